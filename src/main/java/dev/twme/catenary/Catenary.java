@@ -3,9 +3,16 @@ package dev.twme.catenary;
 import dev.twme.catenary.commands.CommandManager;
 import dev.twme.catenary.config.ConfigManager;
 import dev.twme.catenary.listeners.PlayerInteractionListener;
+import dev.twme.catenary.math.CatenaryCalculator;
+import dev.twme.catenary.math.PointCache;
 import dev.twme.catenary.model.PresetManager;
 import dev.twme.catenary.render.DisplayEntityManager;
+import dev.twme.catenary.render.FarFieldRenderer;
+import dev.twme.catenary.render.QualityGovernor;
+import dev.twme.catenary.render.RenderReconciler;
+import dev.twme.catenary.scheduler.TaskScheduler;
 import dev.twme.catenary.storage.StructureManager;
+import dev.twme.catenary.storage.WriteBehindExecutor;
 import dev.twme.catenary.studio.StudioManager;
 import org.bukkit.NamespacedKey;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -13,22 +20,41 @@ import org.bukkit.plugin.java.JavaPlugin;
 public final class Catenary extends JavaPlugin {
     
     private static Catenary instance;
+    private TaskScheduler taskScheduler;
     private ConfigManager configManager;
     private PresetManager presetManager;
     private DisplayEntityManager displayEntityManager;
     private StudioManager studioManager;
     private CommandManager commandManager;
     private StructureManager structureManager;
+    private FarFieldRenderer farFieldRenderer;
+    private QualityGovernor qualityGovernor;
+    private RenderReconciler renderReconciler;
+    private WriteBehindExecutor writeBehind;
+    private PointCache pointCache;
 
     @Override
     public void onEnable() {
         // Plugin startup logic
         instance = this;
         
+        // 初始化排程器（支援 Folia 區域執行緒）
+        taskScheduler = TaskScheduler.create(this);
+        
         // 初始化配置管理器
         configManager = new ConfigManager(this);
         configManager.loadConfig();
         
+        // 初始化背景寫入
+        writeBehind = new WriteBehindExecutor(getLogger());
+        
+        // 初始化曲線點位快取
+        pointCache = new PointCache(new CatenaryCalculator(), configManager.getPointCacheSize());
+        
+        // 初始化渲染品質調節器
+        qualityGovernor = new QualityGovernor(this);
+        qualityGovernor.start();
+        
         // 初始化預設管理器
         presetManager = new PresetManager(this);
         presetManager.loadPresets();
@@ -39,6 +65,14 @@ public final class Catenary extends JavaPlugin {
         // 初始化結構管理器
         structureManager = new StructureManager(this);
         
+        // 初始化遠距離渲染器
+        farFieldRenderer = new FarFieldRenderer(this);
+        farFieldRenderer.start();
+        
+        // 初始化渲染校正器
+        renderReconciler = new RenderReconciler(this);
+        renderReconciler.start();
+        
         // 初始化工作室管理器
         studioManager = new StudioManager(this);
         
@@ -66,11 +100,40 @@ public final class Catenary extends JavaPlugin {
             presetManager.savePresets();
         }
         
-        // 移除所有顯示實體
+        // 停止背景寫入
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+        }
+        if (structureManager != null) {
+            structureManager.close();
+        }
+        
+        // 停止品質調節
+        if (qualityGovernor != null) {
+            qualityGovernor.stop();
+        }
+        
+        // 停止渲染校正
+        if (renderReconciler != null) {
+            renderReconciler.stop();
+        }
+        
+        // 停止遠距離渲染
+        if (farFieldRenderer != null) {
+            farFieldRenderer.stop();
+        }
+        
+        // 停止渲染規劃並移除所有顯示實體
         if (displayEntityManager != null) {
+            displayEntityManager.shutdown();
             displayEntityManager.removeAllEntities();
         }
         
+        // 取消所有排程任務
+        if (taskScheduler != null) {
+            taskScheduler.cancelAll();
+        }
+        
         getLogger().info("Catenary 插件已停用！");
     }
     
@@ -85,6 +148,10 @@ public final class Catenary extends JavaPlugin {
         return instance;
     }
     
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
+    }
+    
     public ConfigManager getConfigManager() {
         return configManager;
     }
@@ -108,4 +175,24 @@ public final class Catenary extends JavaPlugin {
     public StructureManager getStructureManager() {
         return structureManager;
     }
+    
+    public FarFieldRenderer getFarFieldRenderer() {
+        return farFieldRenderer;
+    }
+    
+    public QualityGovernor getQualityGovernor() {
+        return qualityGovernor;
+    }
+    
+    public RenderReconciler getRenderReconciler() {
+        return renderReconciler;
+    }
+    
+    public PointCache getPointCache() {
+        return pointCache;
+    }
+    
+    public WriteBehindExecutor getWriteBehind() {
+        return writeBehind;
+    }
 }
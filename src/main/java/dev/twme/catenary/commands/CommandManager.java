@@ -2,16 +2,29 @@ package dev.twme.catenary.commands;
 
 import dev.twme.catenary.Catenary;
 import dev.twme.catenary.model.CatenaryStructure;
+import dev.twme.catenary.model.StructureSnapshot;
+import dev.twme.catenary.render.QualityTier;
+import dev.twme.catenary.storage.RegionKey;
+import dev.twme.catenary.storage.RegionResidency;
+import dev.twme.catenary.storage.StructureArchive;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -19,6 +32,9 @@ import java.util.stream.Collectors;
  */
 public class CommandManager implements CommandExecutor, TabCompleter {
 
+    // 結構名稱補全的最大數量
+    private static final int MAX_NAME_COMPLETIONS = 50;
+
     private final Catenary plugin;
     
     public CommandManager(Catenary plugin) {
@@ -66,6 +82,12 @@ public class CommandManager implements CommandExecutor, TabCompleter {
             case "remove":
                 handleRemoveCommand(player, args);
                 break;
+            case "move":
+                handleMoveCommand(player, args);
+                break;
+            case "rename":
+                handleRenameCommand(player, args);
+                break;
             case "list":
                 handleListCommand(player);
                 break;
@@ -130,12 +152,24 @@ public class CommandManager implements CommandExecutor, TabCompleter {
             return;
         }
         
-        // 建立新的編輯會話
-        plugin.getStudioManager().startCreateSession(player, preset);
-        
-        player.sendMessage("§a已選擇預設: " + preset.getName());
-        player.sendMessage("§a請使用工具右鍵點擊以設定第一個點。");
-        player.sendMessage("§a輸入 /catenary cancel 隨時取消。");
+        // 檢查結構數量上限，依區域載入時在寫入執行緒上計數
+        plugin.getStructureManager().hasReachedStructureLimit(player, reached -> {
+            if (reached) {
+                player.sendMessage("§c你已達到懸掛結構數量上限 (" + plugin.getConfigManager().getMaxStructuresPerPlayer() + ")！");
+                return;
+            }
+            // 計數期間玩家可能已離線或開始了其他會話
+            if (!player.isOnline() || plugin.getStudioManager().hasActiveSession(player)) {
+                return;
+            }
+            
+            // 建立新的編輯會話
+            plugin.getStudioManager().startCreateSession(player, preset);
+            
+            player.sendMessage("§a已選擇預設: " + preset.getName());
+            player.sendMessage("§a請使用工具右鍵點擊以設定第一個點。");
+            player.sendMessage("§a輸入 /catenary cancel 隨時取消。");
+        });
     }
     
     /**
@@ -173,8 +207,90 @@ public class CommandManager implements CommandExecutor, TabCompleter {
             return;
         }
         
-        String identifier = args[1];
+        resolveStructure(player, args[1], structure -> {
+            // 檢查擁有權
+            if (!structure.getOwnerId().equals(player.getUniqueId()) && !player.hasPermission("catenary.admin")) {
+                player.sendMessage("§c你不是此結構的擁有者，無法移除。");
+                return;
+            }
+            
+            // 移除結構
+            plugin.getStructureManager().removeStructure(structure.getId());
+            player.sendMessage("§a成功移除懸掛結構: " + structure.getName());
+        });
+    }
+    
+    /**
+     * 處理 move 指令
+     */
+    private void handleMoveCommand(Player player, String[] args) {
+        if (!player.hasPermission("catenary.edit")) {
+            player.sendMessage("§c你沒有編輯懸掛結構的權限。");
+            return;
+        }
         
+        if (args.length < 5) {
+            player.sendMessage("§c用法: /catenary move <結構ID或名稱> <dx> <dy> <dz>");
+            return;
+        }
+        
+        double dx;
+        double dy;
+        double dz;
+        try {
+            dx = Double.parseDouble(args[2]);
+            dy = Double.parseDouble(args[3]);
+            dz = Double.parseDouble(args[4]);
+        } catch (NumberFormatException e) {
+            player.sendMessage("§c無效的位移數值。");
+            return;
+        }
+        
+        resolveStructure(player, args[1], structure -> {
+            // 檢查擁有權
+            if (!structure.getOwnerId().equals(player.getUniqueId()) && !player.hasPermission("catenary.admin")) {
+                player.sendMessage("§c你不是此結構的擁有者，無法移動。");
+                return;
+            }
+            
+            plugin.getStructureManager().moveStructure(structure, dx, dy, dz);
+            player.sendMessage(String.format("§a已將懸掛結構 %s 移動 (%.1f, %.1f, %.1f)", structure.getName(), dx, dy, dz));
+        });
+    }
+    
+    /**
+     * 處理 rename 指令
+     */
+    private void handleRenameCommand(Player player, String[] args) {
+        if (!player.hasPermission("catenary.edit")) {
+            player.sendMessage("§c你沒有編輯懸掛結構的權限。");
+            return;
+        }
+        
+        if (args.length < 3) {
+            player.sendMessage("§c用法: /catenary rename <結構ID或名稱> <新名稱>");
+            return;
+        }
+        
+        String name = String.join(" ", Arrays.copyOfRange(args, 2, args.length));
+        resolveStructure(player, args[1], structure -> {
+            // 檢查擁有權
+            if (!structure.getOwnerId().equals(player.getUniqueId()) && !player.hasPermission("catenary.admin")) {
+                player.sendMessage("§c你不是此結構的擁有者，無法重新命名。");
+                return;
+            }
+            
+            String oldName = structure.getName();
+            plugin.getStructureManager().renameStructure(structure, name);
+            player.sendMessage("§a已將懸掛結構 " + oldName + " 重新命名為 " + name);
+        });
+    }
+    
+    /**
+     * 依 ID 或名稱尋找結構，找到唯一的結構時交給 action；找不到或有多個結果時通知玩家
+     * 依區域載入時在寫入執行緒上查詢，只載入最後選定結構所在的區域
+     */
+    private void resolveStructure(Player player, String identifier, Consumer<CatenaryStructure> action) {
         // 嘗試通過 ID 查找結構
         UUID structureId = null;
         try {
@@ -183,45 +299,37 @@ public class CommandManager implements CommandExecutor, TabCompleter {
             // 如果不是有效的UUID，則通過名稱搜尋
         }
         
-        CatenaryStructure structure = null;
+        Consumer<CatenaryStructure> found = structure -> {
+            if (structure == null) {
+                player.sendMessage("§c找不到匹配的結構: " + identifier);
+            } else {
+                action.accept(structure);
+            }
+        };
         
         if (structureId != null) {
-            structure = plugin.getStructureManager().getStructure(structureId);
-        } else {
-            // 通過名稱模糊搜尋
-            List<CatenaryStructure> foundStructures = 
-                plugin.getStructureManager().findPlayerStructuresByName(player.getUniqueId(), identifier);
-            
-            if (foundStructures.size() == 1) {
-                structure = foundStructures.get(0);
-            } else if (foundStructures.size() > 1) {
+            plugin.getStructureManager().loadStructure(structureId, found);
+            return;
+        }
+        
+        // 通過名稱模糊搜尋
+        plugin.getStructureManager().findPlayerStructuresByName(player.getUniqueId(), identifier, matches -> {
+            if (matches.isEmpty()) {
+                player.sendMessage("§c找不到匹配的結構: " + identifier);
+            } else if (matches.size() > 1) {
                 player.sendMessage("§e找到多個匹配的結構，請使用更具體的名稱或ID:");
-                for (CatenaryStructure s : foundStructures) {
+                for (StructureSnapshot s : matches) {
                     player.sendMessage(String.format("§a- %s §7[ID: %s]", s.getName(), s.getId().toString().substring(0, 8)));
                 }
-                return;
+            } else {
+                plugin.getStructureManager().loadStructure(matches.get(0).getId(), found);
             }
-        }
-        
-        // 檢查是否找到結構
-        if (structure == null) {
-            player.sendMessage("§c找不到匹配的結構: " + identifier);
-            return;
-        }
-        
-        // 檢查擁有權
-        if (!structure.getOwnerId().equals(player.getUniqueId()) && !player.hasPermission("catenary.admin")) {
-            player.sendMessage("§c你不是此結構的擁有者，無法移除。");
-            return;
-        }
-        
-        // 移除結構
-        plugin.getStructureManager().removeStructure(structure.getId());
-        player.sendMessage("§a成功移除懸掛結構: " + structure.getName());
+        });
     }
     
     /**
      * 處理 list 指令
+     * 依區域載入時包含已釋放的結構，但不會載入其所在的區域
      */
     private void handleListCommand(Player player) {
         if (!player.hasPermission("catenary.list")) {
@@ -230,26 +338,26 @@ public class CommandManager implements CommandExecutor, TabCompleter {
         }
         
         // 列出玩家的結構
-        List<CatenaryStructure> playerStructures = plugin.getStructureManager().getPlayerStructures(player.getUniqueId());
-        
-        if (playerStructures.isEmpty()) {
-            player.sendMessage("§e你沒有任何懸掛結構。");
-            return;
-        }
-        
-        player.sendMessage("§a你的懸掛結構列表 (" + playerStructures.size() + "):");
-        for (CatenaryStructure structure : playerStructures) {
-            player.sendMessage(String.format("§a- %s §7[ID: %s] §f位於 (%.1f, %.1f, %.1f) 至 (%.1f, %.1f, %.1f)",
-                structure.getName(),
-                structure.getId().toString().substring(0, 8),
-                structure.getStart().getX(),
-                structure.getStart().getY(),
-                structure.getStart().getZ(),
-                structure.getEnd().getX(),
-                structure.getEnd().getY(),
-                structure.getEnd().getZ()
-            ));
-        }
+        plugin.getStructureManager().findPlayerStructures(player.getUniqueId(), playerStructures -> {
+            if (playerStructures.isEmpty()) {
+                player.sendMessage("§e你沒有任何懸掛結構。");
+                return;
+            }
+            
+            player.sendMessage("§a你的懸掛結構列表 (" + playerStructures.size() + "):");
+            for (StructureSnapshot structure : playerStructures) {
+                player.sendMessage(String.format("§a- %s §7[ID: %s] §f位於 (%.1f, %.1f, %.1f) 至 (%.1f, %.1f, %.1f)",
+                    structure.getName(),
+                    structure.getId().toString().substring(0, 8),
+                    structure.getStart().getX(),
+                    structure.getStart().getY(),
+                    structure.getStart().getZ(),
+                    structure.getEnd().getX(),
+                    structure.getEnd().getY(),
+                    structure.getEnd().getZ()
+                ));
+            }
+        });
     }
     
     /**
@@ -280,7 +388,7 @@ public class CommandManager implements CommandExecutor, TabCompleter {
         }
         
         if (args.length < 2) {
-            player.sendMessage("§c用法: /catenary admin <reload|cleanup|export>");
+            player.sendMessage("§c用法: /catenary admin <reload|cleanup|export|import|bakepack|quality|residency|purge>");
             return;
         }
         
@@ -290,9 +398,44 @@ public class CommandManager implements CommandExecutor, TabCompleter {
             case "reload":
                 plugin.getConfigManager().reloadConfig();
                 plugin.getPresetManager().loadPresets();
+                plugin.getPointCache().setMaxEntries(plugin.getConfigManager().getPointCacheSize());
+                if (plugin.getConfigManager().isBakedMode()) {
+                    plugin.getDisplayEntityManager().bakeResourcePack();
+                }
+                plugin.getFarFieldRenderer().start();
+                plugin.getQualityGovernor().start();
+                plugin.getRenderReconciler().start();
                 player.sendMessage("§a插件配置已重新載入。");
                 break;
                 
+            case "bakepack":
+                plugin.getDisplayEntityManager().bakeResourcePack();
+                player.sendMessage("§a正在依預設產生烘焙模型資源包: plugins/Catenary/resourcepack/catenary-models.zip");
+                break;
+                
+            case "quality":
+                QualityTier tier = plugin.getQualityGovernor().getTier();
+                player.sendMessage("§6===== 渲染品質 =====");
+                player.sendMessage(String.format("§7目前等級: §f%s §7(MSPT %.1f)", tier.getDisplayName(), plugin.getQualityGovernor().getLastMspt()));
+                player.sendMessage(String.format("§7間距倍率: §f%.1f §7分段除數: §f%d", tier.getSpacingMultiplier(), tier.getLodDivisor()));
+                player.sendMessage(String.format("§7生成預算: §f%d/刻 §7預覽粒子: §f每 %d 刻",
+                    tier.scaleBudget(plugin.getConfigManager().getSpawnBudgetPerTick()), tier.getPreviewInterval()));
+                break;
+                
+            case "residency":
+                RegionResidency residency = plugin.getStructureManager().getRegionResidency();
+                player.sendMessage("§6===== 結構駐留 =====");
+                player.sendMessage("§7記憶體中的結構: §f" + plugin.getStructureManager().getResidentCount());
+                if (residency == null) {
+                    player.sendMessage("§7目前的儲存格式不依區域載入，所有已載入世界的結構都保留在記憶體中。");
+                    break;
+                }
+                player.sendMessage("§7已載入區域: §f" + residency.getResidentCount()
+                    + " §7累計載入: §f" + residency.getRegionLoads());
+                player.sendMessage("§7閒置釋放區域: §f" + residency.getRegionEvictions()
+                    + " §7移出結構: §f" + residency.getStructureEvictions());
+                break;
+                
             case "cleanup":
                 player.sendMessage("§a清理無效實體中...");
                 plugin.getStructureManager().cleanupInvalidEntities();
@@ -300,17 +443,201 @@ public class CommandManager implements CommandExecutor, TabCompleter {
                 break;
                 
             case "export":
-                if (args.length < 4) {
-                    player.sendMessage("§c用法: /catenary admin export <結構ID> <匯出名稱>");
+                handleExportCommand(player, args);
+                break;
+                
+            case "import":
+                handleImportCommand(player, args);
+                break;
+                
+            case "purge":
+                handlePurgeCommand(player, args);
+                break;
+                
+            default:
+                player.sendMessage("§c未知的管理員指令！可用指令: reload, cleanup, export, import, bakepack, quality, residency, purge");
+        }
+    }
+    
+    /**
+     * 處理 admin export 指令
+     * 用法: export <all|world|region|owner|ids> [條件...] <匯出名稱>
+     */
+    private void handleExportCommand(Player player, String[] args) {
+        String usage = "§c用法: /catenary admin export <all|world <世界>|region <世界> <區域X> <區域Z>|owner <玩家>|ids <ID,ID...>> <匯出名稱>";
+        if (args.length < 4) {
+            player.sendMessage(usage);
+            return;
+        }
+        
+        String scope = args[2].toLowerCase();
+        Predicate<StructureSnapshot> filter;
+        int nameIndex;
+        switch (scope) {
+            case "all":
+                filter = snapshot -> true;
+                nameIndex = 3;
+                break;
+                
+            case "world":
+                if (args.length < 5) {
+                    player.sendMessage(usage);
+                    return;
+                }
+                String worldName = args[3];
+                filter = snapshot -> snapshot.getWorldName().equals(worldName);
+                nameIndex = 4;
+                break;
+                
+            case "region":
+                if (args.length < 7) {
+                    player.sendMessage(usage);
+                    return;
+                }
+                RegionKey region;
+                try {
+                    region = new RegionKey(args[3], Integer.parseInt(args[4]), Integer.parseInt(args[5]));
+                } catch (NumberFormatException e) {
+                    player.sendMessage("§c無效的區域座標。");
+                    return;
+                }
+                filter = snapshot -> RegionKey.of(snapshot).equals(region);
+                nameIndex = 6;
+                break;
+                
+            case "owner":
+                if (args.length < 5) {
+                    player.sendMessage(usage);
+                    return;
+                }
+                OfflinePlayer owner = Bukkit.getOfflinePlayerIfCached(args[3]);
+                if (owner == null) {
+                    player.sendMessage("§c找不到玩家: " + args[3]);
+                    return;
+                }
+                UUID ownerId = owner.getUniqueId();
+                filter = snapshot -> snapshot.getOwnerId().equals(ownerId);
+                nameIndex = 4;
+                break;
+                
+            case "ids":
+                if (args.length < 5) {
+                    player.sendMessage(usage);
+                    return;
+                }
+                Set<UUID> ids = new HashSet<>();
+                try {
+                    for (String id : args[3].split(",")) {
+                        ids.add(UUID.fromString(id.trim()));
+                    }
+                } catch (IllegalArgumentException e) {
+                    player.sendMessage("§c無效的結構ID: " + args[3]);
+                    return;
+                }
+                filter = snapshot -> ids.contains(snapshot.getId());
+                nameIndex = 4;
+                break;
+                
+            default:
+                player.sendMessage(usage);
+                return;
+        }
+        
+        File file = exportFile(player, args[nameIndex]);
+        if (file == null) {
+            return;
+        }
+        player.sendMessage("§a正在匯出懸掛結構到 " + file.getName() + "...");
+        plugin.getStructureManager().exportStructures(file, filter, (count, error) -> {
+            if (!player.isOnline()) {
+                return;
+            }
+            if (error != null) {
+                player.sendMessage("§c匯出失敗: " + error.getMessage());
+            } else {
+                player.sendMessage("§a已匯出 " + count + " 個懸掛結構到 exports/" + file.getName());
+            }
+        });
+    }
+    
+    /**
+     * 處理 admin import 指令
+     */
+    private void handleImportCommand(Player player, String[] args) {
+        if (args.length < 3) {
+            player.sendMessage("§c用法: /catenary admin import <匯出名稱>");
+            return;
+        }
+        
+        File file = exportFile(player, args[2]);
+        if (file == null) {
+            return;
+        }
+        if (!file.isFile()) {
+            player.sendMessage("§c找不到匯出檔: exports/" + file.getName());
+            return;
+        }
+        player.sendMessage("§a正在從 " + file.getName() + " 匯入懸掛結構...");
+        plugin.getStructureManager().importStructures(file, (count, error) -> {
+            if (!player.isOnline()) {
+                return;
+            }
+            if (error != null) {
+                player.sendMessage("§c匯入中斷，已匯入 " + count + " 個懸掛結構: " + error.getMessage());
+            } else {
+                player.sendMessage("§a已匯入 " + count + " 個懸掛結構。");
+            }
+        });
+    }
+    
+    /**
+     * 取得 exports 資料夾中的匯出檔，名稱只允許英數字、底線與連字號
+     *
+     * @return 名稱無效時為 null
+     */
+    private File exportFile(Player player, String name) {
+        if (name.endsWith(StructureArchive.EXTENSION)) {
+            name = name.substring(0, name.length() - StructureArchive.EXTENSION.length());
+        }
+        if (!name.matches("[A-Za-z0-9_-]+")) {
+            player.sendMessage("§c匯出名稱只能包含英數字、底線與連字號。");
+            return null;
+        }
+        return new File(new File(plugin.getDataFolder(), "exports"), name + StructureArchive.EXTENSION);
+    }
+    
+    /**
+     * 處理 admin purge 指令
+     */
+    private void handlePurgeCommand(Player player, String[] args) {
+        if (args.length < 4) {
+            player.sendMessage("§c用法: /catenary admin purge <owner|world> <玩家名稱|世界名稱>");
+            return;
+        }
+        
+        IntConsumer callback = count -> {
+            if (player.isOnline()) {
+                player.sendMessage("§a已移除 " + count + " 個懸掛結構。");
+            }
+        };
+        switch (args[2].toLowerCase()) {
+            case "owner":
+                OfflinePlayer owner = Bukkit.getOfflinePlayerIfCached(args[3]);
+                if (owner == null) {
+                    player.sendMessage("§c找不到玩家: " + args[3]);
                     return;
                 }
-                // TODO: 實作匯出功能
-                player.sendMessage("§a匯出結構中...");
-                player.sendMessage("§c匯出功能尚未實現。");
+                player.sendMessage("§a正在移除 " + args[3] + " 的所有懸掛結構...");
+                plugin.getStructureManager().purgeOwner(owner.getUniqueId(), callback);
+                break;
+                
+            case "world":
+                player.sendMessage("§a正在移除世界 " + args[3] + " 中的所有懸掛結構...");
+                plugin.getStructureManager().purgeWorld(args[3], callback);
                 break;
                 
             default:
-                player.sendMessage("§c未知的管理員指令！可用指令: reload, cleanup, export");
+                player.sendMessage("§c用法: /catenary admin purge <owner|world> <玩家名稱|世界名稱>");
         }
     }
     
@@ -405,6 +732,8 @@ public class CommandManager implements CommandExecutor, TabCompleter {
         player.sendMessage("§f/catenary adjust <參數> <值> §7- 調整懸掛參數");
         player.sendMessage("§f/catenary edit <ID> §7- 編輯現有結構");
         player.sendMessage("§f/catenary remove <ID> §7- 移除結構");
+        player.sendMessage("§f/catenary move <ID> <dx> <dy> <dz> §7- 平移結構");
+        player.sendMessage("§f/catenary rename <ID> <新名稱> §7- 重新命名結構");
         player.sendMessage("§f/catenary list §7- 列出你的懸掛結構");
         player.sendMessage("§f/catenary presets §7- 顯示可用的預設清單");
         player.sendMessage("§a註： 實體會自動順著曲線方向旋轉，並根據曲率自動調整密度分佈");
@@ -412,7 +741,12 @@ public class CommandManager implements CommandExecutor, TabCompleter {
         if (player.hasPermission("catenary.admin")) {
             player.sendMessage("§f/catenary admin reload §7- 重新載入配置");
             player.sendMessage("§f/catenary admin cleanup §7- 清理無效實體");
-            player.sendMessage("§f/catenary admin export <ID> <名稱> §7- 匯出結構為新預設");
+            player.sendMessage("§f/catenary admin export <all|world|region|owner|ids> ... <名稱> §7- 匯出結構到 exports/");
+            player.sendMessage("§f/catenary admin import <名稱> §7- 從 exports/ 匯入結構");
+            player.sendMessage("§f/catenary admin bakepack §7- 產生烘焙模型資源包");
+            player.sendMessage("§f/catenary admin quality §7- 顯示目前的渲染品質等級");
+            player.sendMessage("§f/catenary admin residency §7- 顯示記憶體中的結構與區域釋放統計");
+            player.sendMessage("§f/catenary admin purge <owner|world> <名稱> §7- 移除玩家或世界的所有結構");
         }
     }
     
@@ -423,7 +757,7 @@ public class CommandManager implements CommandExecutor, TabCompleter {
         if (args.length == 1) {
             // 第一層子指令補全
             List<String> subCommands = new ArrayList<>(Arrays.asList(
-                "create", "edit", "remove", "list", "presets", "help", "cancel", "confirm", "adjust"
+                "create", "edit", "remove", "move", "rename", "list", "presets", "help", "cancel", "confirm", "adjust"
             ));
             
             if (sender.hasPermission("catenary.admin")) {
@@ -446,12 +780,28 @@ public class CommandManager implements CommandExecutor, TabCompleter {
                 case "adjust":
                     return filterCompletions(Arrays.asList("slack", "segments", "spacing"), args[1]);
                     
+                case "remove":
+                case "move":
+                case "rename":
+                    // 以名稱前綴索引補全玩家自己的結構
+                    if (sender instanceof Player player) {
+                        return plugin.getStructureManager().completePlayerStructureNames(
+                            player.getUniqueId(), args[1], MAX_NAME_COMPLETIONS);
+                    }
+                    break;
+                    
                 case "admin":
                     if (sender.hasPermission("catenary.admin")) {
-                        return filterCompletions(Arrays.asList("reload", "cleanup", "export"), args[1]);
+                        return filterCompletions(Arrays.asList("reload", "cleanup", "export", "import", "bakepack", "quality", "residency", "purge"), args[1]);
                     }
                     break;
             }
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("admin") && args[1].equalsIgnoreCase("purge")
+                && sender.hasPermission("catenary.admin")) {
+            return filterCompletions(Arrays.asList("owner", "world"), args[2]);
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("admin") && args[1].equalsIgnoreCase("export")
+                && sender.hasPermission("catenary.admin")) {
+            return filterCompletions(Arrays.asList("all", "world", "region", "owner", "ids"), args[2]);
         }
         
         return completions;
@@ -1,6 +1,9 @@
 package dev.twme.catenary.config;
 
 import dev.twme.catenary.Catenary;
+import dev.twme.catenary.render.RenderSettings;
+import dev.twme.catenary.render.RiggingMode;
+import dev.twme.catenary.storage.StorageType;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
@@ -10,7 +13,7 @@ import java.io.IOException;
 /**
  * 配置管理器
  */
-public class ConfigManager {
+public class ConfigManager implements RenderSettings {
 
     private final Catenary plugin;
     private FileConfiguration config;
@@ -40,6 +43,38 @@ public class ConfigManager {
         config.addDefault("general.maxStructuresPerPlayer", 50);
         config.addDefault("rendering.viewDistance", 64);
         config.addDefault("rendering.updateInterval", 20);
+        config.addDefault("rendering.reconcileSliceSize", 32);
+        config.addDefault("rendering.plannerThreads", 0);
+        config.addDefault("rendering.pointCacheSize", 4096);
+        config.addDefault("rendering.spawnBudgetPerTick", 1000);
+        config.addDefault("rendering.rigging", "none");
+        config.addDefault("rendering.structureRiggingMaxSpan", 32.0);
+        config.addDefault("rendering.moveInterpolationTicks", 10);
+        config.addDefault("rendering.mode", "entities");
+        config.addDefault("rendering.baked.sectionLength", 4.0);
+        config.addDefault("rendering.budget.perChunk", 1024);
+        config.addDefault("rendering.budget.perWorld", 50000);
+        config.addDefault("rendering.budget.perPlayer", 10000);
+        config.addDefault("rendering.backend", "entity");
+        config.addDefault("rendering.virtual.refreshTicks", 10);
+        config.addDefault("rendering.farField.enabled", true);
+        config.addDefault("rendering.farField.distance", 256);
+        config.addDefault("rendering.farField.refreshTicks", 20);
+        config.addDefault("rendering.farField.sampleSpacing", 2.0);
+        config.addDefault("rendering.farField.particlesPerPlayer", 300);
+        config.addDefault("rendering.farField.particlesPerTick", 3000);
+        config.addDefault("quality.enabled", true);
+        config.addDefault("quality.sampleTicks", 20);
+        config.addDefault("quality.mediumMspt", 40.0);
+        config.addDefault("quality.lowMspt", 50.0);
+        config.addDefault("quality.minimalMspt", 65.0);
+        config.addDefault("quality.recoveryMargin", 5.0);
+        config.addDefault("quality.recoverySamples", 5);
+        config.addDefault("storage.type", "binary");
+        config.addDefault("storage.compression", true);
+        config.addDefault("storage.saveDelayMillis", 2000);
+        config.addDefault("storage.journal.compactBytes", 1048576);
+        config.addDefault("storage.region.unloadDelaySeconds", 300);
         
         // 保存預設值
         config.options().copyDefaults(true);
@@ -75,6 +110,7 @@ public class ConfigManager {
     /**
      * 取得除錯模式設定
      */
+    @Override
     public boolean isDebugMode() {
         return config.getBoolean("general.debugMode", false);
     }
@@ -99,4 +135,255 @@ public class ConfigManager {
     public int getUpdateInterval() {
         return config.getInt("rendering.updateInterval", 20);
     }
+    
+    /**
+     * 取得每次校正檢查的結構數量
+     */
+    public int getReconcileSliceSize() {
+        return Math.max(1, config.getInt("rendering.reconcileSliceSize", 32));
+    }
+    
+    /**
+     * 取得曲線點位快取最多保存的曲線數量
+     */
+    public int getPointCacheSize() {
+        return Math.max(16, config.getInt("rendering.pointCacheSize", 4096));
+    }
+    
+    /**
+     * 取得渲染規劃執行緒數量，0 表示依處理器數量自動決定
+     */
+    @Override
+    public int getPlannerThreads() {
+        int threads = config.getInt("rendering.plannerThreads", 0);
+        if (threads <= 0) {
+            threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        }
+        return threads;
+    }
+    
+    /**
+     * 取得每刻最多生成的顯示實體數量
+     */
+    @Override
+    public int getSpawnBudgetPerTick() {
+        return Math.max(1, config.getInt("rendering.spawnBudgetPerTick", 1000));
+    }
+    
+    /**
+     * 取得顯示實體的掛載模式
+     */
+    @Override
+    public RiggingMode getRiggingMode() {
+        String mode = config.getString("rendering.rigging", "none");
+        try {
+            return RiggingMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Unknown rigging mode '" + mode + "', using none.");
+            return RiggingMode.NONE;
+        }
+    }
+    
+    /**
+     * 取得 structure 掛載模式下渲染點與錨點的最大距離 (方塊)，超過時改為每個區塊一個錨點
+     */
+    @Override
+    public double getStructureRiggingMaxSpan() {
+        return Math.max(1.0, config.getDouble("rendering.structureRiggingMaxSpan", 32.0));
+    }
+    
+    /**
+     * 取得移動結構時的傳送插值時間 (刻)
+     */
+    @Override
+    public int getMoveInterpolationTicks() {
+        return Math.max(0, Math.min(59, config.getInt("rendering.moveInterpolationTicks", 10)));
+    }
+    
+    /**
+     * 是否使用烘焙資源包模型渲染
+     */
+    @Override
+    public boolean isBakedMode() {
+        return "baked".equalsIgnoreCase(config.getString("rendering.mode", "entities"));
+    }
+    
+    /**
+     * 取得烘焙模式的目標區段長度 (方塊)
+     */
+    @Override
+    public double getBakedSectionLength() {
+        return Math.max(0.5, config.getDouble("rendering.baked.sectionLength", 4.0));
+    }
+    
+    /**
+     * 取得每個區塊的最大顯示數量，0 表示不限制
+     */
+    @Override
+    public int getMaxDisplaysPerChunk() {
+        return Math.max(0, config.getInt("rendering.budget.perChunk", 1024));
+    }
+    
+    /**
+     * 取得每個世界的最大顯示數量，0 表示不限制
+     */
+    @Override
+    public int getMaxDisplaysPerWorld() {
+        return Math.max(0, config.getInt("rendering.budget.perWorld", 50000));
+    }
+    
+    /**
+     * 取得每位玩家所有結構合計的最大顯示數量，0 表示不限制
+     */
+    @Override
+    public int getMaxDisplaysPerPlayer() {
+        return Math.max(0, config.getInt("rendering.budget.perPlayer", 10000));
+    }
+    
+    /**
+     * 是否使用虛擬顯示（封包）作為渲染輸出
+     */
+    public boolean isVirtualBackend() {
+        return "virtual".equalsIgnoreCase(config.getString("rendering.backend", "entity"));
+    }
+    
+    /**
+     * 取得虛擬顯示可見範圍的更新間隔 (刻)
+     */
+    public int getVirtualRefreshTicks() {
+        return Math.max(1, config.getInt("rendering.virtual.refreshTicks", 10));
+    }
+    
+    /**
+     * 是否啟用遠距離粒子渲染（同時只在玩家附近生成顯示實體）
+     */
+    @Override
+    public boolean isFarFieldEnabled() {
+        return config.getBoolean("rendering.farField.enabled", true);
+    }
+    
+    /**
+     * 取得遠距離粒子渲染的最大距離
+     */
+    public int getFarFieldDistance() {
+        return config.getInt("rendering.farField.distance", 256);
+    }
+    
+    /**
+     * 取得遠距離粒子的更新間隔 (刻)
+     */
+    public int getFarFieldRefreshTicks() {
+        return Math.max(1, config.getInt("rendering.farField.refreshTicks", 20));
+    }
+    
+    /**
+     * 取得遠距離粒子的取樣間距 (方塊)
+     */
+    public double getFarFieldSampleSpacing() {
+        return Math.max(0.5, config.getDouble("rendering.farField.sampleSpacing", 2.0));
+    }
+    
+    /**
+     * 取得每位玩家每次更新最多發送的粒子數
+     */
+    public int getFarFieldParticlesPerPlayer() {
+        return Math.max(0, config.getInt("rendering.farField.particlesPerPlayer", 300));
+    }
+    
+    /**
+     * 取得每次更新所有玩家合計最多發送的粒子數
+     */
+    public int getFarFieldParticlesPerTick() {
+        return Math.max(0, config.getInt("rendering.farField.particlesPerTick", 3000));
+    }
+    
+    /**
+     * 是否依伺服器負載自動調整渲染品質
+     */
+    public boolean isQualityGovernorEnabled() {
+        return config.getBoolean("quality.enabled", true);
+    }
+    
+    /**
+     * 取得 MSPT 取樣間隔 (刻)
+     */
+    public int getQualitySampleTicks() {
+        return Math.max(1, config.getInt("quality.sampleTicks", 20));
+    }
+    
+    /**
+     * 取得降至中品質的 MSPT 門檻
+     */
+    public double getQualityMediumMspt() {
+        return config.getDouble("quality.mediumMspt", 40.0);
+    }
+    
+    /**
+     * 取得降至低品質的 MSPT 門檻
+     */
+    public double getQualityLowMspt() {
+        return config.getDouble("quality.lowMspt", 50.0);
+    }
+    
+    /**
+     * 取得降至最低品質的 MSPT 門檻
+     */
+    public double getQualityMinimalMspt() {
+        return config.getDouble("quality.minimalMspt", 65.0);
+    }
+    
+    /**
+     * 取得恢復品質時 MSPT 須低於門檻的差距
+     */
+    public double getQualityRecoveryMargin() {
+        return Math.max(0, config.getDouble("quality.recoveryMargin", 5.0));
+    }
+    
+    /**
+     * 取得恢復一級品質前須連續低於門檻的取樣次數
+     */
+    public int getQualityRecoverySamples() {
+        return Math.max(1, config.getInt("quality.recoverySamples", 5));
+    }
+    
+    /**
+     * 取得結構資料的儲存格式
+     */
+    public StorageType getStorageType() {
+        String type = config.getString("storage.type", "binary");
+        try {
+            return StorageType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Unknown storage type '" + type + "', using binary.");
+            return StorageType.BINARY;
+        }
+    }
+    
+    /**
+     * 二進位儲存檔是否以 GZIP 壓縮
+     */
+    public boolean isStorageCompressed() {
+        return config.getBoolean("storage.compression", true);
+    }
+    
+    /**
+     * 取得變更後延遲寫入的時間 (毫秒)，期間內的變更會合併為一次寫入
+     */
+    public long getSaveDelayMillis() {
+        return Math.max(0, config.getLong("storage.saveDelayMillis", 2000));
+    }
+    
+    /**
+     * 取得變更日誌觸發壓縮的大小 (位元組)
+     */
+    public long getJournalCompactBytes() {
+        return Math.max(4096, config.getLong("storage.journal.compactBytes", 1048576));
+    }
+    
+    /**
+     * 取得區域沒有玩家接近多久後釋放 (秒)
+     */
+    public int getRegionUnloadDelaySeconds() {
+        return Math.max(10, config.getInt("storage.region.unloadDelaySeconds", 300));
+    }
 }
@@ -0,0 +1,113 @@
+package dev.twme.catenary.math;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 曲線點位的有界快取
+ * 以起點、終點、鬆弛度與分段數為鍵，超過上限時淘汰最久未使用的曲線；
+ * 結構只保存定義參數，點位在第一次使用時才計算。可在任何執行緒上使用。
+ */
+public class PointCache {
+
+    private final CatenaryCalculator calculator;
+    private final Map<Key, List<Vector3D>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile int maxEntries;
+
+    public PointCache(CatenaryCalculator calculator, int maxEntries) {
+        this.calculator = calculator;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 取得曲線點位，未快取時計算並加入快取
+     *
+     * @return 不可修改的點位列表
+     */
+    public List<Vector3D> getPoints(Vector3D start, Vector3D end, double slack, int segments) {
+        Key key = new Key(start, end, slack, segments);
+        synchronized (entries) {
+            List<Vector3D> points = entries.get(key);
+            if (points != null) {
+                return points;
+            }
+        }
+
+        // 計算在鎖外進行，同時計算同一條曲線只會多算一次
+        List<Vector3D> points = Collections.unmodifiableList(calculator.calculatePoints(start, end, slack, segments));
+        synchronized (entries) {
+            entries.put(key, points);
+            trim();
+        }
+        return points;
+    }
+
+    /**
+     * 調整快取上限，超出的曲線立即淘汰
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        synchronized (entries) {
+            trim();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private void trim() {
+        var iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 曲線的定義參數
+     */
+    private static final class Key {
+        private final Vector3D start;
+        private final Vector3D end;
+        private final double slack;
+        private final int segments;
+
+        private Key(Vector3D start, Vector3D end, double slack, int segments) {
+            this.start = start;
+            this.end = end;
+            this.slack = slack;
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return segments == other.segments
+                && Double.compare(slack, other.slack) == 0
+                && start.equals(other.start)
+                && end.equals(other.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, end, slack, segments);
+        }
+    }
+}
@@ -4,11 +4,11 @@ import dev.twme.catenary.math.Vector3D;
 import org.bukkit.Location;
 import org.bukkit.World;
 
-import java.util.List;
 import java.util.UUID;
 
 /**
  * 懸掛結構資料模型
+ * 只保存定義曲線的參數，點位由 {@link dev.twme.catenary.math.PointCache} 在使用時計算
  */
 public class CatenaryStructure {
     private final UUID id;
@@ -17,12 +17,13 @@ public class CatenaryStructure {
     private final World world;
     private Vector3D start;
     private Vector3D end;
-    private List<Vector3D> points;
     private double slack;
     private int segments;
     private double spacing;
     private RenderItem renderItem;
     private boolean visible;
+    // 快取的不可變快照，任何變更都會使其失效
+    private StructureSnapshot snapshot;
 
     public CatenaryStructure(UUID id, UUID ownerId, String name, World world, Vector3D start, Vector3D end, 
                               double slack, int segments, double spacing, RenderItem renderItem) {
@@ -45,23 +46,6 @@ public class CatenaryStructure {
              start.getWorld(), new Vector3D(start), new Vector3D(end), slack, segments, 0.5, renderItem);
     }
 
-    public CatenaryStructure(UUID id, UUID ownerId, String name, Vector3D start, Vector3D end, 
-                             List<Vector3D> points, RenderItem renderItem, double slack, 
-                             int segments, double spacing, boolean visible, World world) {
-        this.id = id;
-        this.ownerId = ownerId;
-        this.name = name;
-        this.start = start;
-        this.end = end;
-        this.points = points;
-        this.renderItem = renderItem;
-        this.slack = slack;
-        this.segments = segments;
-        this.spacing = spacing;
-        this.visible = visible;
-        this.world = world;
-    }
-
     public UUID getId() {
         return id;
     }
@@ -76,6 +60,7 @@ public class CatenaryStructure {
 
     public void setName(String name) {
         this.name = name;
+        this.snapshot = null;
     }
 
     public World getWorld() {
@@ -88,6 +73,7 @@ public class CatenaryStructure {
 
     public void setStart(Vector3D start) {
         this.start = start;
+        this.snapshot = null;
     }
 
     public Vector3D getEnd() {
@@ -96,14 +82,7 @@ public class CatenaryStructure {
 
     public void setEnd(Vector3D end) {
         this.end = end;
-    }
-
-    public List<Vector3D> getPoints() {
-        return points;
-    }
-
-    public void setPoints(List<Vector3D> points) {
-        this.points = points;
+        this.snapshot = null;
     }
 
     public double getSlack() {
@@ -112,6 +91,7 @@ public class CatenaryStructure {
 
     public void setSlack(double slack) {
         this.slack = slack;
+        this.snapshot = null;
     }
 
     public int getSegments() {
@@ -120,6 +100,7 @@ public class CatenaryStructure {
 
     public void setSegments(int segments) {
         this.segments = segments;
+        this.snapshot = null;
     }
 
     public double getSpacing() {
@@ -128,6 +109,7 @@ public class CatenaryStructure {
 
     public void setSpacing(double spacing) {
         this.spacing = spacing;
+        this.snapshot = null;
     }
 
     public RenderItem getRenderItem() {
@@ -136,6 +118,7 @@ public class CatenaryStructure {
 
     public void setRenderItem(RenderItem renderItem) {
         this.renderItem = renderItem;
+        this.snapshot = null;
     }
 
     public boolean isVisible() {
@@ -144,6 +127,19 @@ public class CatenaryStructure {
 
     public void setVisible(boolean visible) {
         this.visible = visible;
+        this.snapshot = null;
+    }
+
+    /**
+     * 取得結構的不可變快照
+     */
+    public StructureSnapshot snapshot() {
+        StructureSnapshot current = snapshot;
+        if (current == null) {
+            current = StructureSnapshot.of(this);
+            snapshot = current;
+        }
+        return current;
     }
 
     public Location getStartLocation() {
@@ -1,6 +1,7 @@
 package dev.twme.catenary.model;
 
 import dev.twme.catenary.Catenary;
+import dev.twme.catenary.storage.AtomicFiles;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -8,15 +9,25 @@ import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 預設管理器
  */
 public class PresetManager {
     
+    // 不屬於任何預設的渲染樣板最多快取的數量
+    private static final int MAX_TEMPLATES = 256;
+    
     private final Catenary plugin;
     private final Map<String, Preset> presets = new HashMap<>();
+    // 以渲染物品簽章為鍵的渲染樣板，預設重新載入時清除並重建
+    private final Map<String, RenderTemplate> templates = new ConcurrentHashMap<>();
+    // 等待寫入的預設內容
+    private final AtomicReference<String> pendingPresets = new AtomicReference<>();
     private File presetFile;
     
     public PresetManager(Catenary plugin) {
@@ -41,6 +52,7 @@ public class PresetManager {
         if (presetsSection == null) {
             plugin.getLogger().warning("No presets found in presets.yml");
             createDefaultPresets();
+            rebuildTemplates();
             return;
         }
         
@@ -63,6 +75,46 @@ public class PresetManager {
         if (presets.isEmpty()) {
             createDefaultPresets();
         }
+        
+        rebuildTemplates();
+    }
+    
+    /**
+     * 重建所有預設的渲染樣板
+     */
+    private void rebuildTemplates() {
+        templates.clear();
+        for (Preset preset : presets.values()) {
+            cacheTemplate(preset.getRenderItem());
+        }
+    }
+    
+    /**
+     * 編譯並快取預設的渲染樣板，不受快取數量限制
+     */
+    private void cacheTemplate(RenderItem renderItem) {
+        templates.put(renderItem.getSignature(),
+            RenderTemplate.compile(renderItem.getItem().getType(), renderItem.isBlock(), renderItem.getScale()));
+    }
+    
+    /**
+     * 取得渲染樣板，不屬於任何預設的組合會在第一次使用時編譯
+     */
+    public RenderTemplate getTemplate(Material material, boolean isBlock, float scale) {
+        // 快取已滿時新的組合每次重新編譯，直到預設重新載入清除快取
+        String signature = RenderTemplate.signature(material, isBlock, scale);
+        RenderTemplate template = templates.get(signature);
+        if (template != null) {
+            return template;
+        }
+        template = RenderTemplate.compile(material, isBlock, scale);
+        if (templates.size() < MAX_TEMPLATES) {
+            RenderTemplate cached = templates.putIfAbsent(signature, template);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return template;
     }
     
     /**
@@ -95,6 +147,39 @@ public class PresetManager {
      * 保存所有預設
      */
     public void savePresets() {
+        savePresetsLater();
+        plugin.getWriteBehind().flush();
+    }
+    
+    /**
+     * 在背景執行緒延遲保存預設，期間內的多次變更只寫入最新的內容
+     */
+    private void savePresetsLater() {
+        pendingPresets.set(serializePresets());
+        plugin.getWriteBehind().schedule("presets", this::writePendingPresets,
+            plugin.getConfigManager().getSaveDelayMillis());
+    }
+    
+    /**
+     * 寫入最新的預設內容，在寫入執行緒上執行
+     */
+    private void writePendingPresets() {
+        String data = pendingPresets.getAndSet(null);
+        if (data == null) {
+            return;
+        }
+        try {
+            AtomicFiles.write(presetFile, data.getBytes(StandardCharsets.UTF_8));
+            plugin.getLogger().info("Saved presets");
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save presets: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 將所有預設序列化為 YAML
+     */
+    private String serializePresets() {
         FileConfiguration config = new YamlConfiguration();
         ConfigurationSection presetsSection = config.createSection("presets");
         
@@ -125,12 +210,7 @@ public class PresetManager {
             section.set("requirePermission", preset.isRequirePermission());
         }
         
-        try {
-            config.save(presetFile);
-            plugin.getLogger().info("Saved " + presets.size() + " presets");
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save presets: " + e.getMessage());
-        }
+        return config.saveToString();
     }
     
     /**
@@ -152,7 +232,8 @@ public class PresetManager {
      */
     public void addPreset(Preset preset) {
         presets.put(preset.getId(), preset);
-        savePresets();
+        cacheTemplate(preset.getRenderItem());
+        savePresetsLater();
     }
     
     /**
@@ -160,7 +241,7 @@ public class PresetManager {
      */
     public boolean removePreset(String id) {
         if (presets.remove(id) != null) {
-            savePresets();
+            savePresetsLater();
             return true;
         }
         return false;
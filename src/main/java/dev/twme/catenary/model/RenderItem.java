@@ -87,6 +87,13 @@ public class RenderItem {
         this.rotationZ = rotationZ;
     }
     
+    /**
+     * 取得渲染樣板的快取鍵
+     */
+    public String getSignature() {
+        return RenderTemplate.signature(item.getType(), isBlock, scale);
+    }
+    
     /**
      * 取得轉換矩陣
      */
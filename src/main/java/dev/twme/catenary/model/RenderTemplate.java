@@ -0,0 +1,98 @@
+package dev.twme.catenary.model;
+
+import dev.twme.catenary.render.BakedModelLibrary;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Display;
+import org.joml.Vector3f;
+
+/**
+ * 預先編譯的渲染樣板
+ * 每種渲染物品只解析一次方塊資料、縮放與顯示設定，生成實體時直接套用，不再重複解析與配置。
+ * 樣板為不可變物件，取得的向量不可修改。
+ */
+public final class RenderTemplate {
+
+    // 稍微縮小一點以便更好看
+    private static final float DISPLAY_SCALE_FACTOR = 0.8f;
+    private static final Display.Brightness FULL_BRIGHTNESS = new Display.Brightness(15, 15);
+    private static final float VIEW_RANGE = 64f;
+
+    private final Material material;
+    private final boolean block;
+    private final float scale;
+    private final Material blockMaterial;
+    private final BlockData blockData;
+    private final Vector3f displayScale;
+
+    public RenderTemplate(Material material, boolean block, float scale, BlockData blockData) {
+        this.material = material;
+        this.block = block;
+        this.scale = scale;
+        this.blockMaterial = blockMaterial(material, block);
+        this.blockData = blockData;
+        float displayScale = scale * DISPLAY_SCALE_FACTOR;
+        this.displayScale = new Vector3f(displayScale, displayScale, displayScale);
+    }
+
+    /**
+     * 編譯渲染樣板
+     */
+    public static RenderTemplate compile(Material material, boolean block, float scale) {
+        return new RenderTemplate(material, block, scale, blockMaterial(material, block).createBlockData());
+    }
+
+    /**
+     * 取得樣板的快取鍵
+     */
+    public static String signature(Material material, boolean block, float scale) {
+        return material.name() + ":" + block + ":" + scale;
+    }
+
+    /**
+     * 取得實際顯示的方塊材質，非方塊物品以鏈條呈現
+     */
+    public static Material blockMaterial(Material material, boolean block) {
+        return BakedModelLibrary.renderMaterial(material, block);
+    }
+
+    /**
+     * 套用共用的顯示設定
+     */
+    public void applyDisplaySettings(Display display) {
+        display.setBrightness(FULL_BRIGHTNESS); // 最大亮度
+        display.setShadowRadius(0); // 沒有陰影
+        display.setShadowStrength(0);
+        display.setViewRange(VIEW_RANGE); // 可見範圍
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    public boolean isBlock() {
+        return block;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    /**
+     * 取得實際顯示的方塊材質，也是烘焙模型使用的渲染材質
+     */
+    public Material getBlockMaterial() {
+        return blockMaterial;
+    }
+
+    public BlockData getBlockData() {
+        return blockData;
+    }
+
+    /**
+     * 取得方塊展示的縮放向量
+     */
+    public Vector3f getDisplayScale() {
+        return displayScale;
+    }
+}
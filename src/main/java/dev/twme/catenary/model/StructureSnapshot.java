@@ -0,0 +1,188 @@
+package dev.twme.catenary.model;
+
+import dev.twme.catenary.math.Vector3D;
+import org.bukkit.Material;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 懸掛結構的不可變快照
+ * 只包含定義結構所需的參數，可安全地交給其他執行緒讀取
+ */
+public final class StructureSnapshot {
+
+    private final UUID id;
+    private final UUID ownerId;
+    private final String name;
+    private final String worldName;
+    private final Vector3D start;
+    private final Vector3D end;
+    private final double slack;
+    private final int segments;
+    private final double spacing;
+    private final Material material;
+    private final boolean block;
+    private final float scale;
+    private final float rotationX;
+    private final float rotationY;
+    private final float rotationZ;
+    private final boolean visible;
+
+    public StructureSnapshot(UUID id, UUID ownerId, String name, String worldName, Vector3D start, Vector3D end,
+                             double slack, int segments, double spacing, Material material, boolean block,
+                             float scale, float rotationX, float rotationY, float rotationZ, boolean visible) {
+        this.id = id;
+        this.ownerId = ownerId;
+        this.name = name;
+        this.worldName = worldName;
+        this.start = start;
+        this.end = end;
+        this.slack = slack;
+        this.segments = segments;
+        this.spacing = spacing;
+        this.material = material;
+        this.block = block;
+        this.scale = scale;
+        this.rotationX = rotationX;
+        this.rotationY = rotationY;
+        this.rotationZ = rotationZ;
+        this.visible = visible;
+    }
+
+    /**
+     * 從結構建立快照
+     */
+    public static StructureSnapshot of(CatenaryStructure structure) {
+        RenderItem renderItem = structure.getRenderItem();
+        return new StructureSnapshot(
+            structure.getId(),
+            structure.getOwnerId(),
+            structure.getName(),
+            structure.getWorld().getName(),
+            structure.getStart(),
+            structure.getEnd(),
+            structure.getSlack(),
+            structure.getSegments(),
+            structure.getSpacing(),
+            renderItem.getItem().getType(),
+            renderItem.isBlock(),
+            renderItem.getScale(),
+            renderItem.getRotationX(),
+            renderItem.getRotationY(),
+            renderItem.getRotationZ(),
+            structure.isVisible()
+        );
+    }
+
+    /**
+     * 建立平移後的快照
+     */
+    public StructureSnapshot translate(Vector3D offset) {
+        return new StructureSnapshot(id, ownerId, name, worldName, start.add(offset), end.add(offset),
+            slack, segments, spacing, material, block, scale, rotationX, rotationY, rotationZ, visible);
+    }
+
+    /**
+     * 建立對應的渲染物品
+     */
+    public RenderItem toRenderItem() {
+        return new RenderItem(material, block, scale, rotationX, rotationY, rotationZ);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public Vector3D getStart() {
+        return start;
+    }
+
+    public Vector3D getEnd() {
+        return end;
+    }
+
+    public double getSlack() {
+        return slack;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public double getSpacing() {
+        return spacing;
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    public boolean isBlock() {
+        return block;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public float getRotationX() {
+        return rotationX;
+    }
+
+    public float getRotationY() {
+        return rotationY;
+    }
+
+    public float getRotationZ() {
+        return rotationZ;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * 以內容比較，用來判斷結構是否與已寫入的內容相同
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof StructureSnapshot other)) return false;
+
+        return segments == other.segments
+            && block == other.block
+            && visible == other.visible
+            && Double.compare(slack, other.slack) == 0
+            && Double.compare(spacing, other.spacing) == 0
+            && Float.compare(scale, other.scale) == 0
+            && Float.compare(rotationX, other.rotationX) == 0
+            && Float.compare(rotationY, other.rotationY) == 0
+            && Float.compare(rotationZ, other.rotationZ) == 0
+            && material == other.material
+            && id.equals(other.id)
+            && ownerId.equals(other.ownerId)
+            && Objects.equals(name, other.name)
+            && Objects.equals(worldName, other.worldName)
+            && start.equals(other.start)
+            && end.equals(other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        // ID 相同的快照才可能相等
+        return id.hashCode();
+    }
+}
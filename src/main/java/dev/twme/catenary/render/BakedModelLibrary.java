@@ -0,0 +1,77 @@
+package dev.twme.catenary.render;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 烘焙弧段模型庫
+ * 每種材質預先烘焙數個不同下垂程度的弧段模型，模型由資源包提供
+ */
+public class BakedModelLibrary {
+
+    public static final String NAMESPACE = "catenary";
+    // 每種材質的弧段模型數量，編號 0 為直線
+    public static final int VARIANTS = 8;
+    // 最大下垂深度與弦長的比例
+    public static final float MAX_SAG_RATIO = 0.25f;
+
+    private final Set<Material> materials;
+
+    public BakedModelLibrary(Collection<Material> materials) {
+        this.materials = materials.isEmpty() ? EnumSet.noneOf(Material.class) : EnumSet.copyOf(materials);
+    }
+
+    /**
+     * 取得實際渲染使用的材質，非方塊物品與實體模式一樣以鏈條呈現
+     */
+    public static Material renderMaterial(Material material, boolean isBlock) {
+        return isBlock ? material : Material.CHAIN;
+    }
+
+    /**
+     * 檢查材質是否有烘焙模型
+     */
+    public boolean supports(Material renderMaterial) {
+        return materials.contains(renderMaterial);
+    }
+
+    /**
+     * 取得弧段模型名稱
+     */
+    public static String modelName(Material renderMaterial, int variant) {
+        return renderMaterial.name().toLowerCase(Locale.ROOT) + "_arc_" + variant;
+    }
+
+    /**
+     * 取得弧段模型的下垂比例
+     */
+    public static float sagRatio(int variant) {
+        return MAX_SAG_RATIO * variant / (VARIANTS - 1);
+    }
+
+    /**
+     * 依下垂比例選擇最接近的弧段模型
+     */
+    public static int variantFor(float sagRatio) {
+        float clamped = Math.max(0, Math.min(MAX_SAG_RATIO, sagRatio));
+        return Math.round(clamped / MAX_SAG_RATIO * (VARIANTS - 1));
+    }
+
+    /**
+     * 建立顯示弧段模型的物品
+     */
+    public static ItemStack createItem(Material renderMaterial, int variant) {
+        ItemStack item = new ItemStack(Material.PAPER);
+        ItemMeta meta = item.getItemMeta();
+        meta.setItemModel(new NamespacedKey(NAMESPACE, modelName(renderMaterial, variant)));
+        item.setItemMeta(meta);
+        return item;
+    }
+}
@@ -0,0 +1,167 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.math.Vector3D;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 烘焙區段規劃器
+ * 將曲線切成長度相近的數個區段，每個區段以弦中點、朝向與最接近的弧段模型表示
+ * 內部暫存陣列會被重複使用，因此單一實例不可同時供多個執行緒使用。
+ */
+public final class BakedSectionPlanner {
+
+    private float[] cumulative = new float[16];
+    private final float[] a = new float[3];
+    private final float[] b = new float[3];
+    private final float[] m = new float[3];
+
+    /**
+     * 規劃烘焙區段
+     *
+     * @param points 曲線點位
+     * @param sectionLength 目標區段長度 (方塊)
+     * @param out 輸出的渲染計畫，會被清空後重新填入
+     * @return 傳入的渲染計畫
+     */
+    public RenderPlan plan(List<Vector3D> points, double sectionLength, RenderPlan out) {
+        int pointCount = points.size();
+        Vector3D origin = points.get(0);
+        double ox = origin.getX();
+        double oy = origin.getY();
+        double oz = origin.getZ();
+        out.reset(ox, oy, oz);
+
+        if (pointCount < 2) {
+            return out;
+        }
+
+        // 計算累積弧長
+        if (cumulative.length < pointCount) {
+            cumulative = Arrays.copyOf(cumulative, Math.max(pointCount, cumulative.length * 2));
+        }
+        cumulative[0] = 0;
+        for (int i = 1; i < pointCount; i++) {
+            cumulative[i] = cumulative[i - 1] + (float) points.get(i - 1).distance(points.get(i));
+        }
+        float totalLength = cumulative[pointCount - 1];
+        if (totalLength <= 0) {
+            return out;
+        }
+
+        int sectionCount = Math.max(1, (int) Math.round(totalLength / Math.max(0.5, sectionLength)));
+        float step = totalLength / sectionCount;
+
+        for (int s = 0; s < sectionCount; s++) {
+            sample(points, pointCount, s * step, ox, oy, oz, a);
+            sample(points, pointCount, (s + 0.5f) * step, ox, oy, oz, m);
+            sample(points, pointCount, (s + 1) * step, ox, oy, oz, b);
+
+            // 弦方向
+            float dx = b[0] - a[0];
+            float dy = b[1] - a[1];
+            float dz = b[2] - a[2];
+            float chord = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (chord < 1.0e-4f) {
+                continue;
+            }
+            dx /= chord;
+            dy /= chord;
+            dz /= chord;
+
+            // 與弦垂直、位於鉛直面上的上方向
+            float ux = -dx * dy;
+            float uy = 1 - dy * dy;
+            float uz = -dz * dy;
+            float upLength = (float) Math.sqrt(ux * ux + uy * uy + uz * uz);
+            if (upLength < 1.0e-4f) {
+                // 弦接近鉛直，任選一個水平方向
+                ux = 1;
+                uy = 0;
+                uz = 0;
+            } else {
+                ux /= upLength;
+                uy /= upLength;
+                uz /= upLength;
+            }
+
+            // 弦中點與弧中點的距離即為下垂深度
+            float cx = (a[0] + b[0]) * 0.5f;
+            float cy = (a[1] + b[1]) * 0.5f;
+            float cz = (a[2] + b[2]) * 0.5f;
+            float sag = (cx - m[0]) * ux + (cy - m[1]) * uy + (cz - m[2]) * uz;
+            int variant = BakedModelLibrary.variantFor(sag / chord);
+
+            // 側向 = 弦方向 × 上方向
+            float sx = dy * uz - dz * uy;
+            float sy = dz * ux - dx * uz;
+            float sz = dx * uy - dy * ux;
+
+            addSection(out, cx, cy, cz, dx, dy, dz, ux, uy, uz, sx, sy, sz, chord, variant);
+        }
+
+        return out;
+    }
+
+    /**
+     * 取得指定弧長處的位置（相對於原點）
+     */
+    private void sample(List<Vector3D> points, int pointCount, float distance, double ox, double oy, double oz, float[] dest) {
+        int index = Arrays.binarySearch(cumulative, 0, pointCount, distance);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        index = Math.max(0, Math.min(pointCount - 2, index));
+
+        Vector3D p0 = points.get(index);
+        Vector3D p1 = points.get(index + 1);
+        float segment = cumulative[index + 1] - cumulative[index];
+        double t = segment > 0 ? Math.min(1, Math.max(0, (distance - cumulative[index]) / segment)) : 0;
+
+        dest[0] = (float) (p0.getX() + (p1.getX() - p0.getX()) * t - ox);
+        dest[1] = (float) (p0.getY() + (p1.getY() - p0.getY()) * t - oy);
+        dest[2] = (float) (p0.getZ() + (p1.getZ() - p0.getZ()) * t - oz);
+    }
+
+    /**
+     * 由正交基底 (X = 弦方向, Y = 上方向, Z = 側向) 求出旋轉四元數並加入區段
+     */
+    private static void addSection(RenderPlan out, float x, float y, float z,
+                                   float m00, float m10, float m20,
+                                   float m01, float m11, float m21,
+                                   float m02, float m12, float m22,
+                                   float length, int variant) {
+        float qx;
+        float qy;
+        float qz;
+        float qw;
+        float trace = m00 + m11 + m22;
+        if (trace > 0) {
+            float s = (float) Math.sqrt(trace + 1) * 2;
+            qw = 0.25f * s;
+            qx = (m21 - m12) / s;
+            qy = (m02 - m20) / s;
+            qz = (m10 - m01) / s;
+        } else if (m00 > m11 && m00 > m22) {
+            float s = (float) Math.sqrt(1 + m00 - m11 - m22) * 2;
+            qw = (m21 - m12) / s;
+            qx = 0.25f * s;
+            qy = (m01 + m10) / s;
+            qz = (m02 + m20) / s;
+        } else if (m11 > m22) {
+            float s = (float) Math.sqrt(1 + m11 - m00 - m22) * 2;
+            qw = (m02 - m20) / s;
+            qx = (m01 + m10) / s;
+            qy = 0.25f * s;
+            qz = (m12 + m21) / s;
+        } else {
+            float s = (float) Math.sqrt(1 + m22 - m00 - m11) * 2;
+            qw = (m10 - m01) / s;
+            qx = (m02 + m20) / s;
+            qy = (m12 + m21) / s;
+            qz = 0.25f * s;
+        }
+        out.addSection(x, y, z, qx, qy, qz, qw, length, variant);
+    }
+}
@@ -0,0 +1,269 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.Catenary;
+import io.papermc.paper.entity.TeleportFlag;
+import dev.twme.catenary.model.RenderTemplate;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.BlockDisplay;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.ItemDisplay;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.util.Transformation;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 以伺服器上的顯示實體作為渲染輸出
+ */
+public class BukkitRenderSink implements RenderSink {
+
+    private static final String STRUCTURE_ID_KEY = "catenary_structure_id";
+
+    private final Catenary plugin;
+    // 烘焙弧段模型物品快取，以模型名稱為鍵
+    private final Map<String, ItemStack> bakedItems = new ConcurrentHashMap<>();
+
+    public BukkitRenderSink(Catenary plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isWorldLoaded(String worldName) {
+        return Bukkit.getWorld(worldName) != null;
+    }
+
+    @Override
+    public boolean isChunkLoaded(String worldName, int chunkX, int chunkZ) {
+        World world = Bukkit.getWorld(worldName);
+        return world != null && world.isChunkLoaded(chunkX, chunkZ);
+    }
+
+    @Override
+    public void execute(String worldName, int chunkX, int chunkZ, Runnable batch) {
+        World world = Bukkit.getWorld(worldName);
+        if (world != null) {
+            plugin.getTaskScheduler().runAt(world, chunkX, chunkZ, batch);
+        }
+    }
+
+    /**
+     * 建立錨點實體
+     * 使用不顯示任何方塊的方塊展示實體，沒有碰撞也幾乎沒有運算成本
+     */
+    @Override
+    public RenderHandle spawnAnchor(String worldName, double x, double y, double z, UUID structureId) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            return null;
+        }
+        Location location = new Location(world, x, y, z);
+        BlockDisplay anchor = world.spawn(location, BlockDisplay.class, display -> {
+            display.setTeleportDuration(plugin.getConfigManager().getMoveInterpolationTicks());
+            markStructure(display, structureId);
+        });
+        return new EntityHandle(anchor, structureId);
+    }
+
+    /**
+     * 建立方塊展示實體
+     */
+    @Override
+    public RenderHandle spawnBlock(String worldName, double x, double y, double z, RenderTemplate template,
+                                   UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            return null;
+        }
+        Location location = new Location(world, x, y, z);
+
+        // 建立方塊顯示實體
+        BlockDisplay display = (BlockDisplay) world.spawnEntity(location, EntityType.BLOCK_DISPLAY);
+
+        // 設置方塊資料，非方塊物品在樣板中已換成鏈條
+        display.setBlock(template.getBlockData());
+        display.setTransformation(new Transformation(
+            translation,
+            rotation,
+            new Vector3f(template.getDisplayScale()),
+            new Quaternionf()
+        ));
+        applyDisplaySettings(display, template, structureId);
+
+        return attach(display, structureId, anchor);
+    }
+
+    /**
+     * 建立烘焙弧段的物品展示實體
+     */
+    @Override
+    public RenderHandle spawnSection(String worldName, double x, double y, double z, RenderTemplate template, int variant, float length,
+                                     UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null) {
+            return null;
+        }
+        Location location = new Location(world, x, y, z);
+
+        ItemDisplay display = (ItemDisplay) world.spawnEntity(location, EntityType.ITEM_DISPLAY);
+        display.setItemStack(getBakedItem(template.getBlockMaterial(), variant));
+        display.setItemDisplayTransform(ItemDisplay.ItemDisplayTransform.NONE);
+        display.setTransformation(new Transformation(
+            translation,
+            rotation,
+            new Vector3f(length, length, length),
+            new Quaternionf()
+        ));
+        applyDisplaySettings(display, template, structureId);
+
+        return attach(display, structureId, anchor);
+    }
+
+    /**
+     * 傳送實體並保留乘客，掛載的實體會跟著移動
+     */
+    @Override
+    public void move(RenderHandle handle, double dx, double dy, double dz, int interpolationTicks) {
+        Display display = ((EntityHandle) handle).display;
+        plugin.getTaskScheduler().runForEntity(display, () -> {
+            display.setTeleportDuration(interpolationTicks);
+            Location target = display.getLocation().add(dx, dy, dz);
+            display.teleportAsync(target, PlayerTeleportEvent.TeleportCause.PLUGIN,
+                TeleportFlag.EntityState.RETAIN_PASSENGERS);
+        });
+    }
+
+    @Override
+    public void remove(RenderHandle handle) {
+        Display display = ((EntityHandle) handle).display;
+        plugin.getTaskScheduler().runForEntity(display, display::remove);
+    }
+
+    /**
+     * 移除區塊中帶有此結構ID、但不在追蹤清單中的顯示實體
+     */
+    @Override
+    public void removeUntracked(String worldName, int chunkX, int chunkZ, UUID structureId, Collection<RenderHandle> tracked) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null || !world.isChunkLoaded(chunkX, chunkZ)) {
+            return;
+        }
+
+        Set<UUID> trackedIds = new HashSet<>();
+        for (RenderHandle handle : tracked) {
+            trackedIds.add(((EntityHandle) handle).display.getUniqueId());
+        }
+        NamespacedKey key = plugin.getNamespacedKey(STRUCTURE_ID_KEY);
+        String id = structureId.toString();
+        plugin.getTaskScheduler().runAt(world, chunkX, chunkZ, () -> {
+            for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                if (entity instanceof Display
+                        && id.equals(entity.getPersistentDataContainer().get(key, PersistentDataType.STRING))
+                        && !trackedIds.contains(entity.getUniqueId())) {
+                    entity.remove();
+                }
+            }
+        });
+    }
+
+    /**
+     * 實體在生成時即已送出，不需要額外的批次處理
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * 取得顯示弧段模型的物品
+     */
+    private ItemStack getBakedItem(Material renderMaterial, int variant) {
+        return bakedItems.computeIfAbsent(BakedModelLibrary.modelName(renderMaterial, variant),
+            name -> BakedModelLibrary.createItem(renderMaterial, variant));
+    }
+
+    /**
+     * 將實體掛載到錨點上並包裝為控制代碼
+     */
+    private RenderHandle attach(Display display, UUID structureId, RenderHandle anchor) {
+        if (anchor != null) {
+            ((EntityHandle) anchor).display.addPassenger(display);
+        }
+        return new EntityHandle(display, structureId);
+    }
+
+    /**
+     * 套用共用的顯示設定並標記結構ID
+     */
+    private void applyDisplaySettings(Display display, RenderTemplate template, UUID structureId) {
+        template.applyDisplaySettings(display);
+        markStructure(display, structureId);
+    }
+
+    /**
+     * 儲存結構ID
+     */
+    private void markStructure(Display display, UUID structureId) {
+        display.getPersistentDataContainer().set(
+            plugin.getNamespacedKey(STRUCTURE_ID_KEY),
+            PersistentDataType.STRING,
+            structureId.toString()
+        );
+    }
+
+    /**
+     * 包裝顯示實體的控制代碼
+     */
+    private static class EntityHandle implements RenderHandle {
+        private final Display display;
+        private final UUID structureId;
+
+        EntityHandle(Display display, UUID structureId) {
+            this.display = display;
+            this.structureId = structureId;
+        }
+
+        @Override
+        public UUID getStructureId() {
+            return structureId;
+        }
+
+        @Override
+        public String getWorldName() {
+            return display.getWorld().getName();
+        }
+
+        @Override
+        public double getX() {
+            return display.getLocation().getX();
+        }
+
+        @Override
+        public double getY() {
+            return display.getLocation().getY();
+        }
+
+        @Override
+        public double getZ() {
+            return display.getLocation().getZ();
+        }
+
+        @Override
+        public boolean isValid() {
+            return display.isValid();
+        }
+    }
+}
@@ -3,318 +3,698 @@ package dev.twme.catenary.render;
 import dev.twme.catenary.Catenary;
 import dev.twme.catenary.math.Vector3D;
 import dev.twme.catenary.model.CatenaryStructure;
+import dev.twme.catenary.model.Preset;
 import dev.twme.catenary.model.RenderItem;
-import org.bukkit.Bukkit;
+import dev.twme.catenary.model.RenderTemplate;
+import dev.twme.catenary.model.StructureSnapshot;
+import dev.twme.catenary.scheduler.SchedulerTask;
+import dev.twme.catenary.scheduler.TaskScheduler;
 import org.bukkit.Location;
-import org.bukkit.World;
-import org.bukkit.entity.BlockDisplay;
-import org.bukkit.entity.Display;
-import org.bukkit.entity.EntityType;
-import org.bukkit.entity.ItemDisplay;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.persistence.PersistentDataType;
-import org.bukkit.util.Transformation;
+import org.bukkit.Material;
 import org.joml.Quaternionf;
+import org.joml.Vector3f;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * 顯示實體管理器
+ * 負責規劃與排程，實際的顯示物件由 {@link RenderSink} 生成；設定、排程器與其他服務透過 {@link RenderEnvironment} 取得
  */
 public class DisplayEntityManager {
 
-    private final Catenary plugin;
-    private final Map<UUID, List<Display>> structureEntities = new HashMap<>();
-    private final String STRUCTURE_ID_KEY = "catenary_structure_id";
+    // 超出預算時最多以較大間距重新規劃的次數
+    private static final int MAX_BUDGET_ATTEMPTS = 4;
+    // 套用後等待所有區塊批次完成的時間，之後才進行校正
+    private static final long RECONCILE_SETTLE_MILLIS = 5000;
+    // 顯示位置與規劃位置的容許誤差 (方塊)
+    private static final double DRIFT_TOLERANCE = 0.05;
+
+    private final RenderEnvironment environment;
+    private final RenderSettings settings;
+    private final RenderSink sink;
+    private final Map<UUID, List<RenderHandle>> structureEntities = new ConcurrentHashMap<>();
+    // 掛載模式下每個結構的錨點實體
+    private final Map<UUID, List<RenderHandle>> structureAnchors = new ConcurrentHashMap<>();
+    // 每個規劃執行緒各自持有可重複使用的規劃器
+    private final ThreadLocal<RenderPlanner> planners = ThreadLocal.withInitial(RenderPlanner::new);
+    private final ThreadLocal<BakedSectionPlanner> bakedPlanners = ThreadLocal.withInitial(BakedSectionPlanner::new);
+    // 目前資源包中已烘焙的模型
+    private volatile BakedModelLibrary bakedModels = new BakedModelLibrary(Collections.emptySet());
+    // 每個結構最新的渲染世代，用來丟棄過期的規劃結果
+    private final Map<UUID, Long> renderGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong generationCounter = new AtomicLong();
+    private final RenderBudget renderBudget = new RenderBudget();
+    // 每個結構目前已套用的規劃，供校正時比對
+    private final Map<UUID, AppliedRender> appliedRenders = new ConcurrentHashMap<>();
+    private final Queue<PlannedRender> pendingApplies = new ConcurrentLinkedQueue<>();
+    private final ExecutorService planningExecutor;
+    private final SchedulerTask applyTask;
     
     public DisplayEntityManager(Catenary plugin) {
-        this.plugin = plugin;
+        this(new PluginRenderEnvironment(plugin), createSink(plugin));
+    }
+    
+    public DisplayEntityManager(RenderEnvironment environment, RenderSink sink) {
+        this.environment = environment;
+        this.settings = environment.getSettings();
+        this.sink = sink;
+        
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.planningExecutor = Executors.newFixedThreadPool(settings.getPlannerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "Catenary-Planner-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        // 每刻在全域執行緒套用已完成的規劃
+        this.applyTask = environment.getScheduler().runGlobalTimer(task -> applyPendingRenders(), 1L, 1L);
+        
+        if (settings.isBakedMode()) {
+            bakeResourcePack();
+        }
+    }
+    
+    /**
+     * 依設定建立渲染輸出端，虛擬顯示需要 ProtocolLib，缺少時改用顯示實體
+     */
+    private static RenderSink createSink(Catenary plugin) {
+        if (plugin.getConfigManager().isVirtualBackend()) {
+            if (plugin.getServer().getPluginManager().isPluginEnabled("ProtocolLib")) {
+                return new VirtualRenderSink(plugin, new ProtocolLibDisplaySender());
+            }
+            plugin.getLogger().warning("rendering.backend is virtual but ProtocolLib is not installed, falling back to entities");
+        }
+        return new BukkitRenderSink(plugin);
+    }
+    
+    /**
+     * 依目前的預設重新產生烘焙模型資源包
+     * 每種渲染材質只烘焙一次，縮放取第一個使用該材質的預設（依 ID 排序）
+     */
+    public void bakeResourcePack() {
+        Map<Material, Float> materialScales = new TreeMap<>();
+        List<Preset> presets = new ArrayList<>(environment.getPresets());
+        presets.sort(Comparator.comparing(Preset::getId));
+        for (Preset preset : presets) {
+            RenderItem item = preset.getRenderItem();
+            materialScales.putIfAbsent(BakedModelLibrary.renderMaterial(item.getItem().getType(), item.isBlock()), item.getScale());
+        }
+        
+        double sectionLength = settings.getBakedSectionLength();
+        File output = environment.getResourcePackFile();
+        environment.getScheduler().runAsync(() -> {
+            try {
+                ResourcePackGenerator.generate(output, materialScales, sectionLength);
+                bakedModels = new BakedModelLibrary(materialScales.keySet());
+                environment.getLogger().info("Baked " + materialScales.size() + " materials into " + output.getPath());
+            } catch (IOException e) {
+                environment.getLogger().severe("Could not generate resource pack: " + e.getMessage());
+            }
+        });
     }
     
     /**
      * 渲染懸掛結構
+     * 曲線與渲染點在規劃執行緒上計算，實體在主執行緒上套用
      */
     public void renderStructure(CatenaryStructure structure) {
-        // 清除現有的顯示實體
-        removeStructureEntities(structure.getId());
-        
-        // 如果結構不可見，則不渲染
-        if (!structure.isVisible()) {
-            return;
-        }
+        renderStructure(structure.snapshot());
+    }
+    
+    /**
+     * 依快照渲染懸掛結構
+     */
+    public void renderStructure(StructureSnapshot snapshot) {
+        long generation = generationCounter.incrementAndGet();
+        renderGenerations.put(snapshot.getId(), generation);
         
-        List<Vector3D> points = structure.getPoints();
-        if (points == null || points.isEmpty() || points.size() < 2) {
+        // 如果結構不可見，則不需規劃，套用時只清除現有實體
+        if (!snapshot.isVisible()) {
+            pendingApplies.add(new PlannedRender(snapshot, null, generation));
             return;
         }
         
-        List<Display> entities = new ArrayList<>();
-        RenderItem renderItem = structure.getRenderItem();
-        World world = structure.getWorld();
-        
-        // 自動計算密度和間距
-        AutoDensityResult densityResult = calculateAutoDensity(points, structure);
-        List<RenderPoint> renderPoints = densityResult.renderPoints;
+        planningExecutor.execute(() -> {
+            try {
+                RenderPlan plan = planRender(snapshot);
+                pendingApplies.add(new PlannedRender(snapshot, plan, generation));
+            } catch (Exception e) {
+                environment.getLogger().warning("Failed to plan structure " + snapshot.getId() + ": " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * 規劃結構的渲染點
+     * 只讀取不可變快照，可在任何執行緒上執行
+     */
+    public RenderPlan planRender(StructureSnapshot snapshot) {
+        // 伺服器負載高時以較少分段與較大間距規劃
+        QualityTier tier = environment.getQualityTier();
+        List<Vector3D> points = environment.getPoints(
+            snapshot.getStart(),
+            snapshot.getEnd(),
+            snapshot.getSlack(),
+            tier.scaleSegments(snapshot.getSegments())
+        );
         
-        // 為每個渲染點建立顯示實體
-        for (RenderPoint renderPoint : renderPoints) {
-            // 始終使用方塊展示實體
-            Display displayEntity = createBlockDisplayEntity(
-                world, 
-                renderPoint.position, 
-                renderItem,
-                structure.getId(),
-                renderPoint.rotation
-            );
-            
-            if (displayEntity != null) {
-                entities.add(displayEntity);
+        // 烘焙模式下，材質已烘焙的結構以少量弧段模型呈現
+        boolean baked = settings.isBakedMode()
+            && bakedModels.supports(BakedModelLibrary.renderMaterial(snapshot.getMaterial(), snapshot.isBlock()));
+        double spacing = (baked ? settings.getBakedSectionLength() : snapshot.getSpacing())
+            * tier.getSpacingMultiplier();
+        RenderPlan plan = planPoints(points, spacing, baked);
+        
+        // 超出區塊、世界或擁有者的顯示預算時，以較大的間距重新規劃，而不是直接拒絕渲染
+        // 規劃執行緒上的檢查只用於選擇間距，實際的佔用在套用時重新檢查
+        for (int attempt = 0; attempt < MAX_BUDGET_ATTEMPTS; attempt++) {
+            double overage = renderBudget.overage(snapshot, plan,
+                settings.getMaxDisplaysPerChunk(), settings.getMaxDisplaysPerWorld(), settings.getMaxDisplaysPerPlayer());
+            if (overage <= 1.0) {
+                return plan;
+            }
+            if (Double.isInfinite(overage)) {
+                break;
             }
+            spacing *= Math.max(1.25, overage * 1.1);
+            plan = planPoints(points, spacing, baked);
         }
         
-        // 儲存這個結構的所有實體
-        structureEntities.put(structure.getId(), entities);
+        // 保留間距最大的規劃，套用時裁切到剩餘的預算
+        if (settings.isDebugMode()) {
+            environment.getLogger().info("Structure " + snapshot.getId() + " exceeds the display budget and will be clipped");
+        }
+        return plan;
+    }
+    
+    private RenderPlan planPoints(List<Vector3D> points, double spacing, boolean baked) {
+        if (baked) {
+            return bakedPlanners.get().plan(points, spacing, new RenderPlan());
+        }
+        return planners.get().plan(points, spacing, new RenderPlan());
     }
     
     /**
-     * 計算自動密度和旋轉
+     * 套用待處理的規劃，每刻受生成數量預算限制
      */
-    private AutoDensityResult calculateAutoDensity(List<Vector3D> points, CatenaryStructure structure) {
-        List<RenderPoint> renderPoints = new ArrayList<>();
-        double baseSpacing = structure.getSpacing();
-        
-        // 計算曲線總長度和最小/最大曲率
-        double totalLength = 0;
-        double maxCurvature = 0;
-        double minCurvature = Double.MAX_VALUE;
-        
-        List<Double> segmentLengths = new ArrayList<>();
-        List<Vector3D> directions = new ArrayList<>();
-        
-        // 計算每個線段的長度和方向
-        for (int i = 1; i < points.size(); i++) {
-            Vector3D prev = points.get(i - 1);
-            Vector3D curr = points.get(i);
-            
-            double length = prev.distance(curr);
-            totalLength += length;
-            segmentLengths.add(length);
-            
-            Vector3D direction = curr.subtract(prev).normalize();
-            directions.add(direction);
+    private void applyPendingRenders() {
+        int budget = environment.getQualityTier().scaleBudget(settings.getSpawnBudgetPerTick());
+        PlannedRender render;
+        while (budget > 0 && (render = pendingApplies.poll()) != null) {
+            if (!isCurrent(render)) {
+                // 已有更新的渲染或結構已被移除
+                continue;
+            }
+            budget -= applyRender(render);
         }
+        sink.flush();
+    }
+    
+    /**
+     * 檢查規劃是否仍是該結構最新的渲染
+     */
+    private boolean isCurrent(PlannedRender render) {
+        Long current = renderGenerations.get(render.snapshot.getId());
+        return current != null && current == render.generation;
+    }
+    
+    /**
+     * 套用單一結構的規劃，回傳生成的實體數量
+     */
+    private int applyRender(PlannedRender planned) {
+        StructureSnapshot snapshot = planned.snapshot;
         
-        // 計算每個內部點的曲率（通過相鄰方向向量的變化估算）
-        List<Double> curvatures = new ArrayList<>();
-        for (int i = 0; i < directions.size() - 1; i++) {
-            Vector3D dir1 = directions.get(i);
-            Vector3D dir2 = directions.get(i + 1);
-            
-            // 使用相鄰方向向量的夾角作為曲率估算
-            double dotProduct = dir1.dot(dir2);
-            dotProduct = Math.min(1.0, Math.max(-1.0, dotProduct)); // 確保在 [-1, 1] 範圍內
-            double angle = Math.acos(dotProduct);
-            double curvature = angle / segmentLengths.get(i + 1);
-            
-            curvatures.add(curvature);
-            maxCurvature = Math.max(maxCurvature, curvature);
-            minCurvature = Math.min(minCurvature, curvature);
+        // 清除現有的顯示實體
+        despawnEntities(snapshot.getId());
+        
+        if (planned.plan == null || planned.plan.size() == 0) {
+            return 0;
         }
         
-        // 為首尾點添加曲率
-        if (curvatures.size() > 0) {
-            curvatures.add(0, curvatures.get(0));
-            curvatures.add(curvatures.get(curvatures.size() - 1));
-        } else {
-            // 直線情況
-            curvatures.add(0.0);
-            curvatures.add(0.0);
+        String worldName = snapshot.getWorldName();
+        if (!sink.isWorldLoaded(worldName)) {
+            return 0;
         }
         
-        // 曲率範圍太小，使用均勻間距
-        double curvatureRange = maxCurvature - minCurvature;
-        boolean useUniformSpacing = curvatureRange < 0.01 || Double.isNaN(curvatureRange);
+        // 同時規劃的結構都以規劃當時的數量檢查，套用時在同一條執行緒上重新檢查並佔用
+        PlannedRender render = fitBudget(planned);
+        RenderPlan plan = render.plan;
+        if (plan.size() == 0) {
+            return 0;
+        }
+        List<RenderHandle> entities = Collections.synchronizedList(new ArrayList<>(plan.size()));
+        structureEntities.put(snapshot.getId(), entities);
+        // 預算在每個顯示物件生成後才計入
+        renderBudget.open(snapshot, render.generation);
+        
+        RiggingMode rigging = settings.getRiggingMode();
+        // Folia 上乘客必須與錨點位於同一區域；長結構若掛在單一錨點，離開錨點的追蹤距離時會整個消失
+        // 這兩種情況都改為每個區塊一個錨點
+        if (rigging == RiggingMode.STRUCTURE && (TaskScheduler.isFolia()
+                || maxDistanceFromFirst(plan) > settings.getStructureRiggingMaxSpan())) {
+            rigging = RiggingMode.CHUNK;
+        }
+        List<RenderHandle> anchors = null;
+        if (rigging != RiggingMode.NONE) {
+            anchors = Collections.synchronizedList(new ArrayList<>());
+            structureAnchors.put(snapshot.getId(), anchors);
+        }
+        AppliedRender applied = new AppliedRender(render, rigging != RiggingMode.NONE);
+        appliedRenders.put(snapshot.getId(), applied);
+        
+        // 整個結構掛在同一個錨點上
+        if (rigging == RiggingMode.STRUCTURE) {
+            applied.runsRemaining.set(1);
+            List<RenderHandle> structureAnchor = anchors;
+            sink.execute(worldName, chunkCoordinate(plan.getX(0)), chunkCoordinate(plan.getZ(0)),
+                () -> spawnRun(render, worldName, 0, plan.size(), entities, structureAnchor, applied));
+            return plan.size();
+        }
         
-        // 根據總長度和配置的基本間距估算實體數量
-        int estimatedEntityCount = Math.max(10, (int)(totalLength / baseSpacing));
+        // 將連續位於同一區塊的渲染點分為一批，交給擁有該區塊的執行緒生成
+        List<RenderHandle> chunkAnchors = anchors;
+        List<int[]> runs = new ArrayList<>();
+        int runStart = 0;
+        int runChunkX = chunkCoordinate(plan.getX(0));
+        int runChunkZ = chunkCoordinate(plan.getZ(0));
+        for (int i = 1; i <= plan.size(); i++) {
+            int chunkX = i < plan.size() ? chunkCoordinate(plan.getX(i)) : runChunkX;
+            int chunkZ = i < plan.size() ? chunkCoordinate(plan.getZ(i)) : runChunkZ;
+            if (i < plan.size() && chunkX == runChunkX && chunkZ == runChunkZ) {
+                continue;
+            }
+            
+            runs.add(new int[]{runStart, i, runChunkX, runChunkZ});
+            runStart = i;
+            runChunkX = chunkX;
+            runChunkZ = chunkZ;
+        }
+        applied.runsRemaining.set(runs.size());
+        for (int[] run : runs) {
+            sink.execute(worldName, run[2], run[3], () -> spawnRun(render, worldName, run[0], run[1], entities, chunkAnchors, applied));
+        }
         
-        // 生成渲染點
-        double remainingDistance = 0;
-        Vector3D prevPoint = points.get(0);
-        Quaternionf prevRotation = calculateRotation(directions.get(0));
+        return plan.size();
+    }
+    
+    /**
+     * 計算渲染點與第一個渲染點的最大水平距離
+     */
+    private static double maxDistanceFromFirst(RenderPlan plan) {
+        double maxSquared = 0;
+        for (int i = 1; i < plan.size(); i++) {
+            double dx = plan.getX(i) - plan.getX(0);
+            double dz = plan.getZ(i) - plan.getZ(0);
+            maxSquared = Math.max(maxSquared, dx * dx + dz * dz);
+        }
+        return Math.sqrt(maxSquared);
+    }
+    
+    /**
+     * 以目前的佔用重新檢查預算，超出時裁切規劃
+     */
+    private PlannedRender fitBudget(PlannedRender render) {
+        int chunkLimit = settings.getMaxDisplaysPerChunk();
+        int worldLimit = settings.getMaxDisplaysPerWorld();
+        int ownerLimit = settings.getMaxDisplaysPerPlayer();
+        if (renderBudget.overage(render.snapshot, render.plan, chunkLimit, worldLimit, ownerLimit) <= 1.0) {
+            return render;
+        }
+        RenderPlan clipped = renderBudget.clip(render.snapshot, render.plan, chunkLimit, worldLimit, ownerLimit);
+        if (settings.isDebugMode()) {
+            environment.getLogger().info("Clipped structure " + render.snapshot.getId() + " from " + render.plan.size()
+                + " to " + clipped.size() + " displays to fit the display budget");
+        }
+        return new PlannedRender(render.snapshot, clipped, render.generation);
+    }
+    
+    /**
+     * 生成一批連續的顯示實體
+     * 掛載模式下會先在第一個渲染點生成錨點，其餘實體以乘客身分掛在錨點上，位移寫入變換的平移量
+     */
+    private void spawnRun(PlannedRender render, String worldName, int from, int to,
+                          List<RenderHandle> entities, List<RenderHandle> anchors, AppliedRender applied) {
+        try {
+            spawnRunEntities(render, worldName, from, to, entities, anchors, applied);
+        } finally {
+            applied.runsRemaining.decrementAndGet();
+        }
+    }
+    
+    private void spawnRunEntities(PlannedRender render, String worldName, int from, int to,
+                                  List<RenderHandle> entities, List<RenderHandle> anchors, AppliedRender applied) {
+        if (!isCurrent(render)) {
+            return;
+        }
         
-        // 為第一個點添加實體
-        renderPoints.add(new RenderPoint(prevPoint, prevRotation));
+        RenderPlan plan = render.plan;
+        StructureSnapshot snapshot = render.snapshot;
+        UUID structureId = snapshot.getId();
+        RenderHandle anchor = null;
+        if (anchors != null) {
+            anchor = sink.spawnAnchor(worldName, plan.getX(from), plan.getY(from), plan.getZ(from), structureId);
+            if (anchor == null) {
+                return;
+            }
+            anchors.add(anchor);
+        }
         
-        for (int i = 1; i < points.size(); i++) {
-            Vector3D currentPoint = points.get(i);
-            Vector3D direction = directions.get(i - 1);
-            double segmentLength = segmentLengths.get(i - 1);
-            double curvature = curvatures.get(i);
+        RenderTemplate template = environment.getTemplate(snapshot.getMaterial(), snapshot.isBlock(), snapshot.getScale());
+        List<RenderHandle> spawned = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            // 掛載時實體生成在錨點上，位移寫入平移量
+            double x = anchor == null ? plan.getX(i) : anchor.getX();
+            double y = anchor == null ? plan.getY(i) : anchor.getY();
+            double z = anchor == null ? plan.getZ(i) : anchor.getZ();
+            Vector3f translation = new Vector3f(
+                (float) (plan.getX(i) - x),
+                (float) (plan.getY(i) - y),
+                (float) (plan.getZ(i) - z)
+            );
             
-            // 根據曲率調整間距
-            double adaptiveSpacing;
-            if (useUniformSpacing) {
-                adaptiveSpacing = baseSpacing;
+            RenderHandle handle;
+            if (plan.hasSections()) {
+                // 烘焙弧段使用物品展示實體
+                handle = sink.spawnSection(
+                    worldName, x, y, z,
+                    template,
+                    plan.getVariant(i),
+                    plan.getLength(i),
+                    structureId,
+                    plan.getRotation(i, new Quaternionf()),
+                    translation,
+                    anchor
+                );
             } else {
-                // 曲率大的地方，間距小（更多實體）
-                double factor = 1.0 - 0.7 * (curvature - minCurvature) / (maxCurvature - minCurvature + 0.0001);
-                adaptiveSpacing = baseSpacing * Math.max(0.3, factor);
+                handle = sink.spawnBlock(
+                    worldName, x, y, z,
+                    template,
+                    structureId,
+                    plan.getRotation(i, new Quaternionf()),
+                    translation,
+                    anchor
+                );
             }
             
-            // 計算此線段的實體放置
-            double distanceAlongSegment = remainingDistance;
-            while (distanceAlongSegment < segmentLength) {
-                // 計算位置
-                Vector3D position = prevPoint.add(direction.multiply(distanceAlongSegment));
-                
-                // 計算旋轉
-                Quaternionf rotation;
-                if (i < points.size() - 1) {
-                    // 內部點使用插值旋轉
-                    double t = distanceAlongSegment / segmentLength;
-                    Vector3D nextDirection = directions.get(Math.min(i, directions.size() - 1));
-                    Vector3D interpolatedDir = interpolateDirection(direction, nextDirection, t);
-                    rotation = calculateRotation(interpolatedDir);
-                } else {
-                    // 最後一個點使用最後的方向
-                    rotation = calculateRotation(direction);
-                }
-                
-                // 添加渲染點
-                renderPoints.add(new RenderPoint(position, rotation));
-                
-                // 移動到下一個間距
-                distanceAlongSegment += adaptiveSpacing;
+            if (handle != null) {
+                spawned.add(handle);
+                applied.slots.set(i, handle);
+                renderBudget.add(structureId, render.generation, plan.getX(i), plan.getZ(i));
             }
-            
-            remainingDistance = distanceAlongSegment - segmentLength;
-            prevPoint = currentPoint;
+        }
+        entities.addAll(spawned);
+        
+        // 生成期間結構已被重新渲染或移除，這批實體不會再被追蹤
+        if (!isCurrent(render)) {
+            for (RenderHandle handle : spawned) {
+                sink.remove(handle);
+            }
+            if (anchor != null) {
+                sink.remove(anchor);
+            }
+        }
+    }
+    
+    /**
+     * 平移已掛載的結構
+     * 每個錨點只需一次傳送，乘客會跟著移動；已套用的規劃與預算佔用改以平移後的位置記錄
+     *
+     * 還有較新的渲染等待套用，或目前的渲染仍在生成時不移動錨點，由呼叫端重新渲染以取代這些渲染
+     *
+     * @return 是否已透過錨點完成移動；未掛載的結構需由呼叫端重新渲染
+     */
+    public boolean moveStructure(UUID structureId, double dx, double dy, double dz) {
+        List<RenderHandle> anchors = structureAnchors.get(structureId);
+        if (anchors == null || anchors.isEmpty()) {
+            return false;
+        }
+        Long generation = renderGenerations.get(structureId);
+        AppliedRender applied = appliedRenders.get(structureId);
+        if (generation == null || applied == null || applied.generation != generation
+                || applied.runsRemaining.get() > 0) {
+            return false;
         }
         
-        // 確保最後一個點有實體
-        if (renderPoints.get(renderPoints.size() - 1).position.distance(points.get(points.size() - 1)) > 0.01) {
-            Vector3D lastDirection = directions.get(directions.size() - 1);
-            Quaternionf lastRotation = calculateRotation(lastDirection);
-            renderPoints.add(new RenderPoint(points.get(points.size() - 1), lastRotation));
+        int interpolationTicks = settings.getMoveInterpolationTicks();
+        synchronized (anchors) {
+            for (RenderHandle anchor : anchors) {
+                sink.move(anchor, dx, dy, dz, interpolationTicks);
+            }
         }
         
-        return new AutoDensityResult(renderPoints, estimatedEntityCount);
+        // 校正與預算都依渲染點的位置分區塊，移動後改記在新的區塊
+        AppliedRender moved = applied.translate(dx, dy, dz);
+        appliedRenders.put(structureId, moved);
+        renderBudget.open(moved.snapshot, moved.generation);
+        for (int i = 0; i < moved.plan.size(); i++) {
+            if (moved.slots.get(i) != null) {
+                renderBudget.add(structureId, moved.generation, moved.plan.getX(i), moved.plan.getZ(i));
+            }
+        }
+        return true;
     }
     
     /**
-     * 插值兩個方向向量
+     * 將座標轉換為區塊座標
      */
-    private Vector3D interpolateDirection(Vector3D dir1, Vector3D dir2, double t) {
-        Vector3D result = dir1.multiply(1 - t).add(dir2.multiply(t));
-        return result.normalize();
+    private static int chunkCoordinate(double coordinate) {
+        return (int) Math.floor(coordinate) >> 4;
     }
     
     /**
-     * 根據方向向量計算四元數旋轉
+     * 檢查結構是否已渲染或正在等待渲染
      */
-    private Quaternionf calculateRotation(Vector3D direction) {
-        // 如果方向是垂直向上或向下的，特殊處理
-        if (Math.abs(direction.getY()) > 0.99) {
-            return new Quaternionf().rotationY((float)(Math.PI / 2)).rotateX(
-                (float)(direction.getY() > 0 ? Math.PI / 2 : -Math.PI / 2)
-            );
+    public boolean isRendered(UUID structureId) {
+        return renderGenerations.containsKey(structureId);
+    }
+    
+    /**
+     * 取得已渲染或正在等待渲染的結構
+     */
+    public Set<UUID> getRenderedStructureIds() {
+        return Collections.unmodifiableSet(renderGenerations.keySet());
+    }
+    
+    /**
+     * 移除結構的顯示實體
+     */
+    public void removeStructureEntities(UUID structureId) {
+        // 使尚未套用的規劃失效
+        renderGenerations.remove(structureId);
+        despawnEntities(structureId);
+    }
+    
+    /**
+     * 移除結構目前已生成的實體
+     */
+    private void despawnEntities(UUID structureId) {
+        renderBudget.release(structureId);
+        appliedRenders.remove(structureId);
+        List<RenderHandle> entities = structureEntities.remove(structureId);
+        if (entities != null) {
+            synchronized (entities) {
+                for (RenderHandle entity : entities) {
+                    sink.remove(entity);
+                }
+            }
         }
         
-        // 計算水平面上的方向（偏航角）
-        double yaw = Math.atan2(direction.getX(), direction.getZ());
-        
-        // 計算垂直方向的仰角
-        double pitch = -Math.asin(direction.getY());
-        
-        // 修改: 先繞Y軸旋轉90度（平面旋轉），再進行原本的旋轉
-        return new Quaternionf()
-            .rotateY((float)(Math.PI / 2)) // 新增: 額外的90度Y軸平面旋轉
-            .rotateY((float)yaw)
-            .rotateX((float)pitch)
-            .rotateZ((float)(Math.PI / 2)); // 原有的Z軸旋轉90度
+        List<RenderHandle> anchors = structureAnchors.remove(structureId);
+        if (anchors != null) {
+            synchronized (anchors) {
+                for (RenderHandle anchor : anchors) {
+                    sink.remove(anchor);
+                }
+            }
+        }
     }
     
     /**
-     * 建立方塊展示實體
+     * 校正單一結構的渲染狀態
+     * 檢查缺少、已失效、重複或位置偏離規劃的顯示物件，發現問題時清除殘留並重新渲染
+     * 各區塊的檢查在擁有該區塊的執行緒上進行，之後才決定是否重新渲染
+     *
+     * @return 是否立即進行了修正；區塊檢查發現的問題會在檢查完成後修正
      */
-    private Display createBlockDisplayEntity(World world, Vector3D position, RenderItem renderItem, UUID structureId, Quaternionf rotation) {
-        Location location = position.toLocation(world);
-        
-        // 建立方塊顯示實體
-        BlockDisplay display = (BlockDisplay) world.spawnEntity(location, EntityType.BLOCK_DISPLAY);
-        
-        // 設置方塊資料
-        if (renderItem.isBlock()) {
-            display.setBlock(renderItem.getItem().getType().createBlockData());
-        } else {
-            // 如果不是方塊物品，則使用石頭作為預設方塊
-            display.setBlock(Bukkit.createBlockData("minecraft:chain"));
+    public boolean reconcile(CatenaryStructure structure) {
+        UUID structureId = structure.getId();
+        if (!structure.isVisible()) {
+            if (structureEntities.containsKey(structureId) || structureAnchors.containsKey(structureId)) {
+                removeStructureEntities(structureId);
+                return true;
+            }
+            return false;
         }
         
-        // 基本變換
-        float scale = renderItem.getScale() * 0.8f; // 稍微縮小一點以便更好看
+        Long generation = renderGenerations.get(structureId);
+        if (generation == null) {
+            // 未啟用遠距離渲染時，所有可見結構都應該被渲染
+            if (!settings.isFarFieldEnabled() && sink.isWorldLoaded(structure.getWorld().getName())) {
+                renderStructure(structure);
+                return true;
+            }
+            return false;
+        }
         
-        // 建立變換矩陣
-        Transformation transformation = new Transformation(
-            new org.joml.Vector3f(0, 0, 0),      // 平移
-            rotation,                            // 四元數旋轉
-            new org.joml.Vector3f(scale, scale, scale),  // 縮放
-            new org.joml.Quaternionf()           // 右乘旋轉（一般不需要）
-        );
+        // 仍在規劃中或剛套用，尚未完成生成
+        AppliedRender applied = appliedRenders.get(structureId);
+        if (applied == null || applied.generation != generation
+                || System.currentTimeMillis() - applied.appliedAt < RECONCILE_SETTLE_MILLIS) {
+            return false;
+        }
         
-        // 設定轉換資訊
-        display.setTransformation(transformation);
+        RenderPlan plan = applied.plan;
+        List<RenderHandle> entities = structureEntities.get(structureId);
+        if (entities != null && entities.size() > plan.size()) {
+            renderStructure(structure);
+            return true;
+        }
         
-        // 設定顯示設定
-        display.setBrightness(new Display.Brightness(15, 15)); // 最大亮度
-        display.setShadowRadius(0); // 沒有陰影
-        display.setShadowStrength(0);
-        display.setViewRange(64f); // 可見範圍
+        // 依區塊分組，交給擁有區塊的執行緒檢查；未載入的區塊無法判斷，也不應為了修正而載入
+        Map<Long, List<Integer>> chunkPoints = new LinkedHashMap<>();
+        for (int i = 0; i < plan.size(); i++) {
+            chunkPoints.computeIfAbsent(RenderBudget.chunkKey(chunkCoordinate(plan.getX(i)), chunkCoordinate(plan.getZ(i))),
+                key -> new ArrayList<>()).add(i);
+        }
         
-        // 儲存結構ID
-        display.getPersistentDataContainer().set(
-            plugin.getNamespacedKey(STRUCTURE_ID_KEY),
-            PersistentDataType.STRING,
-            structureId.toString()
-        );
+        // 清除區塊中不受追蹤的殘留實體（例如區塊重新載入或伺服器異常關閉後留下的實體）
+        List<RenderHandle> tracked = new ArrayList<>();
+        if (entities != null) {
+            synchronized (entities) {
+                tracked.addAll(entities);
+            }
+        }
+        List<RenderHandle> anchors = structureAnchors.get(structureId);
+        if (anchors != null) {
+            synchronized (anchors) {
+                tracked.addAll(anchors);
+            }
+        }
         
-        return display;
+        String worldName = applied.snapshot.getWorldName();
+        AtomicInteger remaining = new AtomicInteger(chunkPoints.size());
+        AtomicBoolean broken = new AtomicBoolean();
+        for (List<Integer> points : chunkPoints.values()) {
+            int chunkX = chunkCoordinate(plan.getX(points.get(0)));
+            int chunkZ = chunkCoordinate(plan.getZ(points.get(0)));
+            sink.execute(worldName, chunkX, chunkZ, () -> {
+                if (sink.isChunkLoaded(worldName, chunkX, chunkZ)) {
+                    if (isBroken(applied, points)) {
+                        broken.set(true);
+                    }
+                    sink.removeUntracked(worldName, chunkX, chunkZ, structureId, tracked);
+                }
+                if (remaining.decrementAndGet() == 0 && broken.get()) {
+                    repair(structureId, generation);
+                }
+            });
+        }
+        return false;
     }
     
     /**
-     * 移除結構的顯示實體
+     * 檢查區塊中的渲染點是否缺少、已失效或偏離規劃，在擁有該區塊的執行緒上呼叫
      */
-    public void removeStructureEntities(UUID structureId) {
-        List<Display> entities = structureEntities.remove(structureId);
-        if (entities != null) {
-            for (Display entity : entities) {
-                entity.remove();
+    private boolean isBroken(AppliedRender applied, List<Integer> points) {
+        RenderPlan plan = applied.plan;
+        for (int i : points) {
+            RenderHandle handle = applied.slots.get(i);
+            if (handle == null || !handle.isValid()) {
+                return true;
+            }
+            if (!applied.rigged) {
+                double dx = handle.getX() - plan.getX(i);
+                double dy = handle.getY() - plan.getY(i);
+                double dz = handle.getZ() - plan.getZ(i);
+                if (dx * dx + dy * dy + dz * dz > DRIFT_TOLERANCE * DRIFT_TOLERANCE) {
+                    return true;
+                }
             }
         }
+        return false;
+    }
+    
+    /**
+     * 檢查發現問題時重新渲染，期間已重新渲染的結構不再處理
+     */
+    private void repair(UUID structureId, long generation) {
+        Long current = renderGenerations.get(structureId);
+        CatenaryStructure structure = environment.getStructure(structureId);
+        if (current == null || current.longValue() != generation || structure == null) {
+            return;
+        }
+        renderStructure(structure);
+        if (settings.isDebugMode()) {
+            environment.getLogger().info("Reconciled structure " + structureId);
+        }
     }
     
     /**
      * 移除所有顯示實體
      */
     public void removeAllEntities() {
-        for (UUID structureId : new ArrayList<>(structureEntities.keySet())) {
-            removeStructureEntities(structureId);
+        renderGenerations.clear();
+        pendingApplies.clear();
+        Set<UUID> structureIds = new HashSet<>(structureEntities.keySet());
+        structureIds.addAll(structureAnchors.keySet());
+        for (UUID structureId : structureIds) {
+            despawnEntities(structureId);
         }
     }
     
+    /**
+     * 停止規劃執行緒與套用任務
+     */
+    public void shutdown() {
+        applyTask.cancel();
+        planningExecutor.shutdownNow();
+        pendingApplies.clear();
+        sink.close();
+    }
+    
+    /**
+     * 取得顯示物件預算
+     */
+    public RenderBudget getRenderBudget() {
+        return renderBudget;
+    }
+    
+    /**
+     * 取得渲染輸出端
+     */
+    public RenderSink getSink() {
+        return sink;
+    }
+    
     /**
      * 尋找特定點位附近的結構
      */
     public Set<UUID> findStructuresNearLocation(Location location, double radius) {
         Set<UUID> nearbyStructures = new HashSet<>();
-        World world = location.getWorld();
-        
-        for (Map.Entry<UUID, List<Display>> entry : structureEntities.entrySet()) {
-            for (Display entity : entry.getValue()) {
-                if (entity.getWorld().equals(world) && entity.getLocation().distance(location) <= radius) {
-                    nearbyStructures.add(entry.getKey());
-                    break;
+        String worldName = location.getWorld().getName();
+        double radiusSquared = radius * radius;
+        
+        for (Map.Entry<UUID, List<RenderHandle>> entry : structureEntities.entrySet()) {
+            List<RenderHandle> entities = entry.getValue();
+            synchronized (entities) {
+                for (RenderHandle entity : entities) {
+                    double dx = entity.getX() - location.getX();
+                    double dy = entity.getY() - location.getY();
+                    double dz = entity.getZ() - location.getZ();
+                    if (entity.getWorldName().equals(worldName) && dx * dx + dy * dy + dz * dz <= radiusSquared) {
+                        nearbyStructures.add(entry.getKey());
+                        break;
+                    }
                 }
             }
         }
@@ -323,28 +703,52 @@ public class DisplayEntityManager {
     }
     
     /**
-     * 渲染點資料類別
+     * 已套用的規劃與每個渲染點對應的顯示物件
      */
-    private static class RenderPoint {
-        public final Vector3D position;
-        public final Quaternionf rotation;
+    private static class AppliedRender {
+        public final StructureSnapshot snapshot;
+        public final RenderPlan plan;
+        public final long generation;
+        public final boolean rigged;
+        public final AtomicReferenceArray<RenderHandle> slots;
+        public final long appliedAt = System.currentTimeMillis();
+        // 尚未完成生成的區塊批次
+        public final AtomicInteger runsRemaining = new AtomicInteger();
+        
+        public AppliedRender(PlannedRender render, boolean rigged) {
+            this(render.snapshot, render.plan, render.generation, rigged, new AtomicReferenceArray<>(render.plan.size()));
+        }
         
-        public RenderPoint(Vector3D position, Quaternionf rotation) {
-            this.position = position;
-            this.rotation = rotation;
+        private AppliedRender(StructureSnapshot snapshot, RenderPlan plan, long generation, boolean rigged,
+                              AtomicReferenceArray<RenderHandle> slots) {
+            this.snapshot = snapshot;
+            this.plan = plan;
+            this.generation = generation;
+            this.rigged = rigged;
+            this.slots = slots;
+        }
+        
+        /**
+         * 建立平移後的記錄，沿用相同的顯示物件
+         */
+        public AppliedRender translate(double dx, double dy, double dz) {
+            return new AppliedRender(snapshot.translate(new Vector3D(dx, dy, dz)), plan.translate(dx, dy, dz),
+                generation, rigged, slots);
         }
     }
     
     /**
-     * 自動密度計算結果
+     * 已完成規劃、等待套用的渲染
      */
-    private static class AutoDensityResult {
-        public final List<RenderPoint> renderPoints;
-        public final int estimatedEntityCount;
-        
-        public AutoDensityResult(List<RenderPoint> renderPoints, int estimatedEntityCount) {
-            this.renderPoints = renderPoints;
-            this.estimatedEntityCount = estimatedEntityCount;
+    private static class PlannedRender {
+        public final StructureSnapshot snapshot;
+        public final RenderPlan plan;
+        public final long generation;
+        
+        public PlannedRender(StructureSnapshot snapshot, RenderPlan plan, long generation) {
+            this.snapshot = snapshot;
+            this.plan = plan;
+            this.generation = generation;
         }
     }
 }
@@ -0,0 +1,245 @@
+package dev.twme.catenary.render;
+
+import com.destroystokyo.paper.ParticleBuilder;
+import dev.twme.catenary.Catenary;
+import dev.twme.catenary.config.ConfigManager;
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.CatenaryStructure;
+import dev.twme.catenary.model.StructureSnapshot;
+import dev.twme.catenary.scheduler.SchedulerTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Color;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 遠距離渲染器
+ * 只讓玩家可見距離內的結構擁有顯示實體，更遠的結構以稀疏的粒子線條對個別玩家繪製。
+ * 粒子發送受每位玩家與每次更新的總量限制，避免封包量隨結構數增加。
+ */
+public class FarFieldRenderer {
+
+    // 移除實體的距離比生成距離略大，避免玩家在邊界徘徊時反覆生成與移除
+    private static final double UNLOAD_HYSTERESIS = 1.25;
+    private static final Particle.DustOptions FAR_DUST = new Particle.DustOptions(Color.fromRGB(96, 96, 96), 1.5f);
+
+    private final Catenary plugin;
+    // 由玩家任務在本次更新中回報，供下一次更新決定實體生成與移除
+    private volatile Set<UUID> wantedNear = ConcurrentHashMap.newKeySet();
+    private volatile Set<UUID> keepNear = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger particleBudget = new AtomicInteger();
+    private SchedulerTask refreshTask;
+
+    public FarFieldRenderer(Catenary plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 啟動定期更新
+     */
+    public void start() {
+        stop();
+        ConfigManager config = plugin.getConfigManager();
+        if (!config.isFarFieldEnabled()) {
+            return;
+        }
+        long period = config.getFarFieldRefreshTicks();
+        refreshTask = plugin.getTaskScheduler().runGlobalTimer(task -> refresh(), period, period);
+    }
+
+    /**
+     * 停止定期更新
+     */
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+        wantedNear.clear();
+        keepNear.clear();
+    }
+
+    /**
+     * 執行一次更新：先套用上一輪的近距離結果，再排程每位玩家的粒子繪製
+     */
+    private void refresh() {
+        updateNearField();
+
+        ConfigManager config = plugin.getConfigManager();
+        particleBudget.set(plugin.getQualityGovernor().getTier().scaleBudget(config.getFarFieldParticlesPerTick()));
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            plugin.getTaskScheduler().runForEntity(player, () -> refreshPlayer(player));
+        }
+    }
+
+    /**
+     * 在玩家附近的結構生成實體，並移除已遠離所有玩家的結構實體
+     */
+    private void updateNearField() {
+        Set<UUID> wanted = wantedNear;
+        Set<UUID> keep = keepNear;
+        wantedNear = ConcurrentHashMap.newKeySet();
+        keepNear = ConcurrentHashMap.newKeySet();
+
+        DisplayEntityManager displayManager = plugin.getDisplayEntityManager();
+        for (UUID structureId : wanted) {
+            if (displayManager.isRendered(structureId)) {
+                continue;
+            }
+            CatenaryStructure structure = plugin.getStructureManager().getStructure(structureId);
+            if (structure != null && structure.isVisible()) {
+                displayManager.renderStructure(structure);
+            }
+        }
+
+        for (UUID structureId : new ArrayList<>(displayManager.getRenderedStructureIds())) {
+            // 工作室預覽或尚未儲存的結構不受管理
+            if (plugin.getStructureManager().getStructure(structureId) == null) {
+                continue;
+            }
+            if (!keep.contains(structureId)) {
+                displayManager.removeStructureEntities(structureId);
+            }
+        }
+    }
+
+    /**
+     * 為單一玩家分類附近結構並繪製遠距離粒子
+     */
+    private void refreshPlayer(Player player) {
+        if (!player.isOnline()) {
+            return;
+        }
+
+        ConfigManager config = plugin.getConfigManager();
+        Location location = player.getLocation();
+        double px = location.getX();
+        double py = location.getY();
+        double pz = location.getZ();
+
+        double nearDistance = config.getViewDistance();
+        double nearSquared = nearDistance * nearDistance;
+        double keepSquared = nearSquared * UNLOAD_HYSTERESIS * UNLOAD_HYSTERESIS;
+        double farDistance = config.getFarFieldDistance();
+        double farSquared = farDistance * farDistance;
+
+        // 在玩家的執行緒上讀取不可變的結構版本，不與主執行緒上的變更交錯
+        List<StructureSnapshot> farStructures = new ArrayList<>();
+        List<Double> farDistances = new ArrayList<>();
+        for (StructureSnapshot structure : plugin.getStructureManager().getCatalog().getWorld(location.getWorld().getName())) {
+            if (!structure.isVisible()) {
+                continue;
+            }
+
+            double distanceSquared = distanceSquaredToChord(structure, px, py, pz);
+            if (distanceSquared <= keepSquared) {
+                keepNear.add(structure.getId());
+                if (distanceSquared <= nearSquared) {
+                    wantedNear.add(structure.getId());
+                }
+            } else if (distanceSquared <= farSquared) {
+                farStructures.add(structure);
+                farDistances.add(distanceSquared);
+            }
+        }
+
+        if (farStructures.isEmpty()) {
+            return;
+        }
+
+        // 由近到遠繪製，預算用完時先捨棄最遠的結構
+        Integer[] order = new Integer[farStructures.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(farDistances.get(a), farDistances.get(b)));
+
+        int playerBudget = config.getFarFieldParticlesPerPlayer();
+        double sampleSpacing = config.getFarFieldSampleSpacing();
+        for (Integer index : order) {
+            if (playerBudget <= 0) {
+                return;
+            }
+            playerBudget -= drawStructure(player, farStructures.get(index), sampleSpacing, playerBudget);
+        }
+    }
+
+    /**
+     * 沿結構點位以取樣間距發送粒子
+     *
+     * @return 實際發送的粒子數
+     */
+    private int drawStructure(Player player, StructureSnapshot structure, double sampleSpacing, int playerBudget) {
+        List<Vector3D> points = plugin.getPointCache().getPoints(
+            structure.getStart(), structure.getEnd(), structure.getSlack(), structure.getSegments());
+        if (points.isEmpty()) {
+            return 0;
+        }
+
+        // 遠距離渲染在原版粒子顯示距離 (32 格) 之外，必須強制發送客戶端才會顯示
+        ParticleBuilder particle = new ParticleBuilder(Particle.DUST)
+            .receivers(player)
+            .count(1)
+            .offset(0, 0, 0)
+            .extra(0)
+            .data(FAR_DUST)
+            .force(true);
+        int sent = 0;
+        double travelled = sampleSpacing;
+        Vector3D previous = null;
+        for (Vector3D point : points) {
+            if (previous != null) {
+                travelled += point.distance(previous);
+            }
+            previous = point;
+            if (travelled < sampleSpacing) {
+                continue;
+            }
+            if (sent >= playerBudget || !reserveParticle()) {
+                break;
+            }
+            travelled = 0;
+            particle.location(player.getWorld(), point.getX(), point.getY(), point.getZ()).spawn();
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * 從本次更新的總預算中取得一個粒子名額
+     */
+    private boolean reserveParticle() {
+        return particleBudget.getAndUpdate(value -> value > 0 ? value - 1 : 0) > 0;
+    }
+
+    /**
+     * 計算玩家到結構起訖點連線的距離平方
+     */
+    private static double distanceSquaredToChord(StructureSnapshot structure, double px, double py, double pz) {
+        Vector3D start = structure.getStart();
+        Vector3D end = structure.getEnd();
+        double dx = end.getX() - start.getX();
+        double dy = end.getY() - start.getY();
+        double dz = end.getZ() - start.getZ();
+        double lengthSquared = dx * dx + dy * dy + dz * dz;
+
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = ((px - start.getX()) * dx + (py - start.getY()) * dy + (pz - start.getZ()) * dz) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+        }
+        double cx = start.getX() + dx * t - px;
+        double cy = start.getY() + dy * t - py;
+        double cz = start.getZ() + dz * t - pz;
+        return cx * cx + cy * cy + cz * cz;
+    }
+}
@@ -0,0 +1,250 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.model.RenderTemplate;
+import org.bukkit.Material;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 記錄所有渲染操作的記憶體輸出端
+ * 不需要伺服器即可執行，用於在大量結構下量測與驗證規劃、剔除與排程的行為
+ */
+public class InMemoryRenderSink implements RenderSink {
+
+    private final Set<String> loadedWorlds;
+    private final Map<Long, MemoryHandle> liveHandles = new ConcurrentHashMap<>();
+    private final AtomicLong handleCounter = new AtomicLong();
+    private final AtomicLong spawnCount = new AtomicLong();
+    private final AtomicLong moveCount = new AtomicLong();
+    private final AtomicLong removeCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+
+    /**
+     * 建立視所有世界都已載入的輸出端
+     */
+    public InMemoryRenderSink() {
+        this(null);
+    }
+
+    /**
+     * 建立只視指定世界為已載入的輸出端
+     */
+    public InMemoryRenderSink(Collection<String> loadedWorlds) {
+        this.loadedWorlds = loadedWorlds == null ? null : Set.copyOf(loadedWorlds);
+    }
+
+    @Override
+    public boolean isWorldLoaded(String worldName) {
+        return loadedWorlds == null || loadedWorlds.contains(worldName);
+    }
+
+    @Override
+    public boolean isChunkLoaded(String worldName, int chunkX, int chunkZ) {
+        return isWorldLoaded(worldName);
+    }
+
+    /**
+     * 直接在呼叫的執行緒上執行
+     */
+    @Override
+    public void execute(String worldName, int chunkX, int chunkZ, Runnable batch) {
+        if (isWorldLoaded(worldName)) {
+            batch.run();
+        }
+    }
+
+    @Override
+    public RenderHandle spawnAnchor(String worldName, double x, double y, double z, UUID structureId) {
+        return spawn(worldName, x, y, z, structureId, null, null, null, 1f, null);
+    }
+
+    @Override
+    public RenderHandle spawnBlock(String worldName, double x, double y, double z, RenderTemplate template,
+                                   UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor) {
+        return spawn(worldName, x, y, z, structureId, template.getBlockMaterial(), rotation, translation,
+            template.getDisplayScale().x, anchor);
+    }
+
+    @Override
+    public RenderHandle spawnSection(String worldName, double x, double y, double z, RenderTemplate template, int variant, float length,
+                                     UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor) {
+        return spawn(worldName, x, y, z, structureId, template.getBlockMaterial(), rotation, translation, length, anchor);
+    }
+
+    private RenderHandle spawn(String worldName, double x, double y, double z, UUID structureId, Material material,
+                               Quaternionf rotation, Vector3f translation, float scale, RenderHandle anchor) {
+        if (!isWorldLoaded(worldName)) {
+            return null;
+        }
+        MemoryHandle handle = new MemoryHandle(handleCounter.incrementAndGet(), structureId, worldName, material, (MemoryHandle) anchor);
+        handle.x = x;
+        handle.y = y;
+        handle.z = z;
+        handle.rotation = rotation == null ? new Quaternionf() : new Quaternionf(rotation);
+        handle.translation = translation == null ? new Vector3f() : new Vector3f(translation);
+        handle.scale = scale;
+        liveHandles.put(handle.id, handle);
+        spawnCount.incrementAndGet();
+        return handle;
+    }
+
+    @Override
+    public void move(RenderHandle handle, double dx, double dy, double dz, int interpolationTicks) {
+        MemoryHandle memoryHandle = (MemoryHandle) handle;
+        memoryHandle.x += dx;
+        memoryHandle.y += dy;
+        memoryHandle.z += dz;
+        moveCount.incrementAndGet();
+    }
+
+    @Override
+    public void remove(RenderHandle handle) {
+        MemoryHandle memoryHandle = (MemoryHandle) handle;
+        if (liveHandles.remove(memoryHandle.id) != null) {
+            memoryHandle.removed = true;
+            removeCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void flush() {
+        flushCount.incrementAndGet();
+    }
+
+    /**
+     * 取得目前存在的顯示物件
+     */
+    public Collection<? extends RenderHandle> getLiveHandles() {
+        return Collections.unmodifiableCollection(liveHandles.values());
+    }
+
+    /**
+     * 取得目前存在的顯示物件數量
+     */
+    public int getLiveCount() {
+        return liveHandles.size();
+    }
+
+    /**
+     * 取得指定結構目前存在的顯示物件數量
+     */
+    public int getLiveCount(UUID structureId) {
+        int count = 0;
+        for (MemoryHandle handle : liveHandles.values()) {
+            if (handle.structureId.equals(structureId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getSpawnCount() {
+        return spawnCount.get();
+    }
+
+    public long getMoveCount() {
+        return moveCount.get();
+    }
+
+    public long getRemoveCount() {
+        return removeCount.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * 清除所有紀錄與顯示物件
+     */
+    public void reset() {
+        liveHandles.clear();
+        spawnCount.set(0);
+        moveCount.set(0);
+        removeCount.set(0);
+        flushCount.set(0);
+    }
+
+    /**
+     * 記憶體中的顯示物件，掛載在錨點上時位置跟隨錨點
+     */
+    public static final class MemoryHandle implements RenderHandle {
+        private final long id;
+        private final UUID structureId;
+        private final String worldName;
+        private final Material material;
+        private final MemoryHandle anchor;
+        private volatile double x;
+        private volatile double y;
+        private volatile double z;
+        private volatile Quaternionf rotation;
+        private volatile Vector3f translation;
+        private volatile float scale;
+        private volatile boolean removed;
+
+        private MemoryHandle(long id, UUID structureId, String worldName, Material material, MemoryHandle anchor) {
+            this.id = id;
+            this.structureId = structureId;
+            this.worldName = worldName;
+            this.material = material;
+            this.anchor = anchor;
+        }
+
+        @Override
+        public UUID getStructureId() {
+            return structureId;
+        }
+
+        @Override
+        public String getWorldName() {
+            return worldName;
+        }
+
+        @Override
+        public double getX() {
+            return anchor == null ? x : anchor.getX();
+        }
+
+        @Override
+        public double getY() {
+            return anchor == null ? y : anchor.getY();
+        }
+
+        @Override
+        public double getZ() {
+            return anchor == null ? z : anchor.getZ();
+        }
+
+        @Override
+        public boolean isValid() {
+            return !removed;
+        }
+
+        /**
+         * 取得顯示的材質，錨點為 null
+         */
+        public Material getMaterial() {
+            return material;
+        }
+
+        public Quaternionf getRotation() {
+            return new Quaternionf(rotation);
+        }
+
+        public Vector3f getTranslation() {
+            return new Vector3f(translation);
+        }
+
+        public float getScale() {
+            return scale;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.Catenary;
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.CatenaryStructure;
+import dev.twme.catenary.model.Preset;
+import dev.twme.catenary.model.RenderTemplate;
+import dev.twme.catenary.scheduler.TaskScheduler;
+import org.bukkit.Material;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * 以插件的設定、排程器與各管理器提供渲染所需的服務
+ */
+class PluginRenderEnvironment implements RenderEnvironment {
+
+    private final Catenary plugin;
+
+    PluginRenderEnvironment(Catenary plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public RenderSettings getSettings() {
+        return plugin.getConfigManager();
+    }
+
+    @Override
+    public TaskScheduler getScheduler() {
+        return plugin.getTaskScheduler();
+    }
+
+    @Override
+    public Logger getLogger() {
+        return plugin.getLogger();
+    }
+
+    @Override
+    public QualityTier getQualityTier() {
+        return plugin.getQualityGovernor().getTier();
+    }
+
+    @Override
+    public List<Vector3D> getPoints(Vector3D start, Vector3D end, double slack, int segments) {
+        return plugin.getPointCache().getPoints(start, end, slack, segments);
+    }
+
+    @Override
+    public RenderTemplate getTemplate(Material material, boolean block, float scale) {
+        return plugin.getPresetManager().getTemplate(material, block, scale);
+    }
+
+    @Override
+    public CatenaryStructure getStructure(UUID structureId) {
+        return plugin.getStructureManager().getStructure(structureId);
+    }
+
+    @Override
+    public Collection<Preset> getPresets() {
+        return plugin.getPresetManager().getAllPresets();
+    }
+
+    @Override
+    public File getResourcePackFile() {
+        return new File(plugin.getDataFolder(), "resourcepack/catenary-models.zip");
+    }
+}
@@ -0,0 +1,162 @@
+package dev.twme.catenary.render;
+
+import com.comphenix.protocol.PacketType;
+import com.comphenix.protocol.ProtocolLibrary;
+import com.comphenix.protocol.ProtocolManager;
+import com.comphenix.protocol.events.PacketContainer;
+import com.comphenix.protocol.utility.MinecraftReflection;
+import com.comphenix.protocol.wrappers.WrappedBlockData;
+import com.comphenix.protocol.wrappers.WrappedDataValue;
+import com.comphenix.protocol.wrappers.WrappedDataWatcher;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 透過 ProtocolLib 發送虛擬顯示封包
+ * 中繼資料索引對應 1.21.4 的顯示實體
+ */
+public class ProtocolLibDisplaySender implements VirtualDisplaySender {
+
+    static final int INDEX_INTERPOLATION_DELAY = 8;
+    static final int INDEX_TRANSFORMATION_DURATION = 9;
+    static final int INDEX_TRANSLATION = 11;
+    static final int INDEX_SCALE = 12;
+    static final int INDEX_LEFT_ROTATION = 13;
+    static final int INDEX_RIGHT_ROTATION = 14;
+    static final int INDEX_BRIGHTNESS = 16;
+    static final int INDEX_VIEW_RANGE = 17;
+    static final int INDEX_SHADOW_RADIUS = 18;
+    static final int INDEX_SHADOW_STRENGTH = 19;
+    // 方塊展示的方塊狀態，或物品展示的物品
+    static final int INDEX_CONTENT = 23;
+    static final int INDEX_ITEM_TRANSFORM = 24;
+
+    // 方塊光與天空光都為 15
+    static final int FULL_BRIGHTNESS = 15 << 4 | 15 << 20;
+
+    private final ProtocolManager protocolManager = ProtocolLibrary.getProtocolManager();
+    // 方塊狀態與物品的 NMS 物件快取
+    private final Map<Material, Object> blockStates = new ConcurrentHashMap<>();
+    private final Map<String, Object> items = new ConcurrentHashMap<>();
+
+    @Override
+    public int allocateEntityId() {
+        return Bukkit.getUnsafe().nextEntityId();
+    }
+
+    @Override
+    public void spawn(Player player, Collection<VirtualDisplay> displays) {
+        for (VirtualDisplay display : displays) {
+            PacketContainer spawn = protocolManager.createPacket(PacketType.Play.Server.SPAWN_ENTITY);
+            spawn.getIntegers().write(0, display.getEntityId());
+            spawn.getUUIDs().write(0, display.getUniqueId());
+            spawn.getEntityTypeModifier().write(0, display.isSection() ? EntityType.ITEM_DISPLAY : EntityType.BLOCK_DISPLAY);
+            spawn.getDoubles()
+                .write(0, display.getSpawnX())
+                .write(1, display.getSpawnY())
+                .write(2, display.getSpawnZ());
+            protocolManager.sendServerPacket(player, spawn);
+
+            List<WrappedDataValue> values = new ArrayList<>();
+            Object content = display.isSection()
+                ? getItem(display.getMaterial(), display.getVariant())
+                : getBlockState(display.getMaterial());
+            writeSpawnMetadata(display, content, (index, value) -> values.add(wrap(display, index, value)));
+            sendMetadata(player, display.getEntityId(), values);
+        }
+    }
+
+    @Override
+    public void update(Player player, VirtualDisplay display, int interpolationTicks) {
+        List<WrappedDataValue> values = new ArrayList<>();
+        writeTransform(display, interpolationTicks, (index, value) -> values.add(wrap(display, index, value)));
+        sendMetadata(player, display.getEntityId(), values);
+    }
+
+    @Override
+    public void destroy(Player player, Collection<Integer> entityIds) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        PacketContainer destroy = protocolManager.createPacket(PacketType.Play.Server.ENTITY_DESTROY);
+        destroy.getIntLists().write(0, new ArrayList<>(entityIds));
+        protocolManager.sendServerPacket(player, destroy);
+    }
+
+    /**
+     * 接收中繼資料的索引與值
+     */
+    @FunctionalInterface
+    interface MetadataWriter {
+        void write(int index, Object value);
+    }
+
+    /**
+     * 寫入生成時的完整中繼資料
+     *
+     * @param content 方塊展示的方塊狀態或物品展示的物品
+     */
+    static void writeSpawnMetadata(VirtualDisplay display, Object content, MetadataWriter out) {
+        writeTransform(display, 0, out);
+        out.write(INDEX_BRIGHTNESS, FULL_BRIGHTNESS);
+        out.write(INDEX_VIEW_RANGE, 64f);
+        out.write(INDEX_SHADOW_RADIUS, 0f);
+        out.write(INDEX_SHADOW_STRENGTH, 0f);
+        out.write(INDEX_CONTENT, content);
+        if (display.isSection()) {
+            out.write(INDEX_ITEM_TRANSFORM, (byte) 0);
+        }
+    }
+
+    /**
+     * 寫入變換相關的中繼資料，插值刻數為 0 時立即套用
+     */
+    static void writeTransform(VirtualDisplay display, int interpolationTicks, MetadataWriter out) {
+        float scale = display.getScale();
+        out.write(INDEX_INTERPOLATION_DELAY, 0);
+        out.write(INDEX_TRANSFORMATION_DURATION, interpolationTicks);
+        out.write(INDEX_TRANSLATION, new Vector3f(display.getTranslation()));
+        out.write(INDEX_SCALE, new Vector3f(scale, scale, scale));
+        out.write(INDEX_LEFT_ROTATION, new Quaternionf(display.getRotation()));
+        out.write(INDEX_RIGHT_ROTATION, new Quaternionf());
+    }
+
+    /**
+     * 依值的型別選擇序列化器，內容欄位依展示類型使用物品或方塊狀態
+     */
+    private static WrappedDataValue wrap(VirtualDisplay display, int index, Object value) {
+        if (index == INDEX_CONTENT) {
+            return new WrappedDataValue(index, display.isSection()
+                ? WrappedDataWatcher.Registry.getItemStackSerializer(false)
+                : WrappedDataWatcher.Registry.getBlockDataSerializer(false), value);
+        }
+        return new WrappedDataValue(index, WrappedDataWatcher.Registry.get(value.getClass()), value);
+    }
+
+    private void sendMetadata(Player player, int entityId, List<WrappedDataValue> values) {
+        PacketContainer metadata = protocolManager.createPacket(PacketType.Play.Server.ENTITY_METADATA);
+        metadata.getIntegers().write(0, entityId);
+        metadata.getDataValueCollectionModifier().write(0, values);
+        protocolManager.sendServerPacket(player, metadata);
+    }
+
+    private Object getBlockState(Material material) {
+        return blockStates.computeIfAbsent(material,
+            key -> WrappedBlockData.createData(key.createBlockData()).getHandle());
+    }
+
+    private Object getItem(Material renderMaterial, int variant) {
+        return items.computeIfAbsent(BakedModelLibrary.modelName(renderMaterial, variant),
+            name -> MinecraftReflection.getMinecraftItemStack(BakedModelLibrary.createItem(renderMaterial, variant)));
+    }
+}
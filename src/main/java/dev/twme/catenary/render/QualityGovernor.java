@@ -0,0 +1,118 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.Catenary;
+import dev.twme.catenary.config.ConfigManager;
+import dev.twme.catenary.scheduler.SchedulerTask;
+
+/**
+ * 渲染品質調節器
+ * 定期取樣伺服器每刻耗時 (MSPT)，負載過高時立即降低品質，
+ * 負載恢復且持續數次取樣低於門檻時才逐級提升，避免在門檻附近來回切換。
+ */
+public class QualityGovernor {
+
+    private static final double TICK_MILLIS = 50.0;
+
+    private final Catenary plugin;
+    private volatile QualityTier tier = QualityTier.HIGH;
+    private volatile double lastMspt;
+    private int recoverySamples;
+    private long lastSampleNanos;
+    private SchedulerTask sampleTask;
+
+    public QualityGovernor(Catenary plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 開始定期取樣
+     */
+    public void start() {
+        stop();
+        tier = QualityTier.HIGH;
+        if (!plugin.getConfigManager().isQualityGovernorEnabled()) {
+            return;
+        }
+        long period = plugin.getConfigManager().getQualitySampleTicks();
+        lastSampleNanos = System.nanoTime();
+        sampleTask = plugin.getTaskScheduler().runGlobalTimer(task -> sample(period), period, period);
+    }
+
+    /**
+     * 停止取樣
+     */
+    public void stop() {
+        if (sampleTask != null) {
+            sampleTask.cancel();
+            sampleTask = null;
+        }
+    }
+
+    /**
+     * 取得目前的品質等級
+     */
+    public QualityTier getTier() {
+        return tier;
+    }
+
+    /**
+     * 取得最近一次取樣的 MSPT
+     */
+    public double getLastMspt() {
+        return lastMspt;
+    }
+
+    private void sample(long periodTicks) {
+        long now = System.nanoTime();
+        double mspt = measureMspt(now - lastSampleNanos, periodTicks);
+        lastSampleNanos = now;
+        lastMspt = mspt;
+
+        ConfigManager config = plugin.getConfigManager();
+        double[] thresholds = {
+            config.getQualityMediumMspt(),
+            config.getQualityLowMspt(),
+            config.getQualityMinimalMspt()
+        };
+
+        QualityTier[] tiers = QualityTier.values();
+        int target = 0;
+        while (target < thresholds.length && mspt > thresholds[target]) {
+            target++;
+        }
+
+        int current = tier.ordinal();
+        if (target > current) {
+            // 負載升高時立即降級
+            recoverySamples = 0;
+            changeTier(tiers[target], mspt);
+        } else if (current > 0 && mspt < thresholds[current - 1] - config.getQualityRecoveryMargin()) {
+            // 需連續數次低於門檻才提升一級
+            if (++recoverySamples >= config.getQualityRecoverySamples()) {
+                recoverySamples = 0;
+                changeTier(tiers[current - 1], mspt);
+            }
+        } else {
+            recoverySamples = 0;
+        }
+    }
+
+    /**
+     * 取得伺服器的平均每刻耗時
+     * 無法取得時（例如 Folia 沒有全域的刻統計）改以取樣間隔的實際時間估算；
+     * 準時完成的刻看不出實際耗時，因此只有落後時才回報估算值，否則視為沒有負載
+     */
+    private double measureMspt(long elapsedNanos, long periodTicks) {
+        try {
+            return plugin.getServer().getAverageTickTime();
+        } catch (UnsupportedOperationException e) {
+            double estimate = elapsedNanos / 1_000_000.0 / periodTicks;
+            return estimate > TICK_MILLIS * 1.05 ? estimate : 0;
+        }
+    }
+
+    private void changeTier(QualityTier newTier, double mspt) {
+        plugin.getLogger().info(String.format("Render quality changed from %s to %s (MSPT %.1f)", tier, newTier, mspt));
+        tier = newTier;
+    }
+}
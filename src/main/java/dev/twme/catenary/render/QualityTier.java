@@ -0,0 +1,73 @@
+package dev.twme.catenary.render;
+
+/**
+ * 全域渲染品質等級
+ * 伺服器負載越高，等級越低，渲染越粗略
+ */
+public enum QualityTier {
+
+    HIGH("高", 1.0, 1, 1.0, 1),
+    MEDIUM("中", 1.5, 1, 0.5, 2),
+    LOW("低", 2.0, 2, 0.25, 4),
+    MINIMAL("最低", 3.0, 4, 0.1, 10);
+
+    private final String displayName;
+    private final double spacingMultiplier;
+    private final int lodDivisor;
+    private final double budgetMultiplier;
+    private final int previewInterval;
+
+    QualityTier(String displayName, double spacingMultiplier, int lodDivisor, double budgetMultiplier, int previewInterval) {
+        this.displayName = displayName;
+        this.spacingMultiplier = spacingMultiplier;
+        this.lodDivisor = lodDivisor;
+        this.budgetMultiplier = budgetMultiplier;
+        this.previewInterval = previewInterval;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 渲染間距（及烘焙區段長度）的倍率
+     */
+    public double getSpacingMultiplier() {
+        return spacingMultiplier;
+    }
+
+    /**
+     * 曲線分段數的除數，用來降低細節層級
+     */
+    public int getLodDivisor() {
+        return lodDivisor;
+    }
+
+    /**
+     * 每刻生成預算與粒子預算的倍率
+     */
+    public double getBudgetMultiplier() {
+        return budgetMultiplier;
+    }
+
+    /**
+     * 預覽粒子每隔幾刻顯示一次
+     */
+    public int getPreviewInterval() {
+        return previewInterval;
+    }
+
+    /**
+     * 套用生成預算倍率，至少保留 1
+     */
+    public int scaleBudget(int budget) {
+        return (int) Math.max(1, budget * budgetMultiplier);
+    }
+
+    /**
+     * 降低後的曲線分段數，至少保留 2
+     */
+    public int scaleSegments(int segments) {
+        return Math.max(2, segments / lodDivisor);
+    }
+}
@@ -0,0 +1,252 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 顯示物件預算
+ * 以計數器記錄每個區塊、世界與擁有者目前的顯示數量，在顯示物件生成與結構移除時同步增減，
+ * 讓規劃時能以 O(1) 查詢判斷結構是否超出預算。
+ */
+public class RenderBudget {
+
+    private final Map<String, Map<Long, AtomicInteger>> chunkCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> worldCounts = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicInteger> ownerCounts = new ConcurrentHashMap<>();
+    // 每個結構目前佔用的數量，移除或重新渲染時據此歸還
+    private final Map<UUID, Charge> charges = new ConcurrentHashMap<>();
+
+    /**
+     * 計算規劃超出預算的倍率
+     * 結構自身目前佔用的數量會先扣除，因此重新渲染不會與舊的渲染重複計算
+     *
+     * @param chunkLimit 每區塊上限，0 表示不限制
+     * @param worldLimit 每世界上限，0 表示不限制
+     * @param ownerLimit 每位擁有者上限，0 表示不限制
+     * @return 需要的數量與可用數量的最大比例，不超過 1 表示符合預算；沒有任何可用數量時為無限大
+     */
+    public synchronized double overage(StructureSnapshot snapshot, RenderPlan plan, int chunkLimit, int worldLimit, int ownerLimit) {
+        Charge required = Charge.of(snapshot, plan);
+        Charge own = charges.get(snapshot.getId());
+
+        double ratio = 0;
+        if (chunkLimit > 0) {
+            Map<Long, AtomicInteger> chunks = chunkCounts.get(snapshot.getWorldName());
+            for (Map.Entry<Long, int[]> chunk : required.perChunk.entrySet()) {
+                long key = chunk.getKey();
+                int used = chunks == null ? 0 : count(chunks.get(key));
+                if (own != null && own.worldName.equals(snapshot.getWorldName())) {
+                    used -= own.countIn(key);
+                }
+                ratio = Math.max(ratio, ratio(chunk.getValue()[0], chunkLimit - used));
+            }
+        }
+        if (worldLimit > 0) {
+            int used = count(worldCounts.get(snapshot.getWorldName()));
+            if (own != null && own.worldName.equals(snapshot.getWorldName())) {
+                used -= own.total;
+            }
+            ratio = Math.max(ratio, ratio(required.total, worldLimit - used));
+        }
+        if (ownerLimit > 0) {
+            int used = count(ownerCounts.get(snapshot.getOwnerId()));
+            if (own != null) {
+                used -= own.total;
+            }
+            ratio = Math.max(ratio, ratio(required.total, ownerLimit - used));
+        }
+        return ratio;
+    }
+
+    /**
+     * 將規劃裁切到目前的可用數量內
+     * 依世界與擁有者剩餘的數量平均取樣，再略過區塊已滿的渲染點；結構自身目前的佔用視為可用
+     */
+    public synchronized RenderPlan clip(StructureSnapshot snapshot, RenderPlan plan, int chunkLimit, int worldLimit, int ownerLimit) {
+        Charge own = charges.get(snapshot.getId());
+        boolean sameWorld = own != null && own.worldName.equals(snapshot.getWorldName());
+
+        int available = plan.size();
+        if (worldLimit > 0) {
+            int used = count(worldCounts.get(snapshot.getWorldName())) - (sameWorld ? own.total : 0);
+            available = Math.min(available, worldLimit - used);
+        }
+        if (ownerLimit > 0) {
+            int used = count(ownerCounts.get(snapshot.getOwnerId())) - (own != null ? own.total : 0);
+            available = Math.min(available, ownerLimit - used);
+        }
+        if (available <= 0) {
+            return new RenderPlan();
+        }
+
+        int stride = (plan.size() + available - 1) / available;
+        boolean[] keep = new boolean[plan.size()];
+        Map<Long, AtomicInteger> chunks = chunkCounts.get(snapshot.getWorldName());
+        Map<Long, int[]> added = new HashMap<>();
+        for (int i = 0; i < plan.size(); i += stride) {
+            if (chunkLimit > 0) {
+                long key = chunkKey((int) Math.floor(plan.getX(i)) >> 4, (int) Math.floor(plan.getZ(i)) >> 4);
+                int used = chunks == null ? 0 : count(chunks.get(key));
+                if (sameWorld) {
+                    used -= own.countIn(key);
+                }
+                int[] addedInChunk = added.computeIfAbsent(key, k -> new int[1]);
+                if (used + addedInChunk[0] >= chunkLimit) {
+                    continue;
+                }
+                addedInChunk[0]++;
+            }
+            keep[i] = true;
+        }
+        return plan.select(keep);
+    }
+
+    /**
+     * 開始記錄結構新一次套用的佔用，取代先前的佔用
+     * 之後每生成一個顯示物件以 {@link #add} 計入
+     */
+    public synchronized void open(StructureSnapshot snapshot, long generation) {
+        release(snapshot.getId());
+        charges.put(snapshot.getId(), new Charge(snapshot.getWorldName(), snapshot.getOwnerId(), generation));
+    }
+
+    /**
+     * 計入一個已生成的顯示物件
+     * 佔用已被歸還或已由較新的套用取代時不計入
+     *
+     * @param x 渲染點的 X 座標
+     * @param z 渲染點的 Z 座標
+     */
+    public synchronized void add(UUID structureId, long generation, double x, double z) {
+        Charge charge = charges.get(structureId);
+        if (charge == null || charge.generation != generation) {
+            return;
+        }
+
+        long key = chunkKey((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4);
+        charge.add(key, 1);
+        chunkCounts.computeIfAbsent(charge.worldName, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+        worldCounts.computeIfAbsent(charge.worldName, k -> new AtomicInteger()).incrementAndGet();
+        ownerCounts.computeIfAbsent(charge.ownerId, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * 歸還結構佔用的數量
+     */
+    public synchronized void release(UUID structureId) {
+        Charge charge = charges.remove(structureId);
+        if (charge == null) {
+            return;
+        }
+
+        Map<Long, AtomicInteger> chunks = chunkCounts.get(charge.worldName);
+        if (chunks != null) {
+            for (Map.Entry<Long, int[]> chunk : charge.perChunk.entrySet()) {
+                AtomicInteger counter = chunks.get(chunk.getKey());
+                if (counter != null && counter.addAndGet(-chunk.getValue()[0]) <= 0) {
+                    chunks.remove(chunk.getKey());
+                }
+            }
+        }
+        decrement(worldCounts, charge.worldName, charge.total);
+        decrement(ownerCounts, charge.ownerId, charge.total);
+    }
+
+    /**
+     * 清除所有計數
+     */
+    public synchronized void clear() {
+        chunkCounts.clear();
+        worldCounts.clear();
+        ownerCounts.clear();
+        charges.clear();
+    }
+
+    /**
+     * 取得區塊目前的顯示數量
+     */
+    public int getChunkCount(String worldName, int chunkX, int chunkZ) {
+        Map<Long, AtomicInteger> chunks = chunkCounts.get(worldName);
+        return chunks == null ? 0 : count(chunks.get(chunkKey(chunkX, chunkZ)));
+    }
+
+    /**
+     * 取得世界目前的顯示數量
+     */
+    public int getWorldCount(String worldName) {
+        return count(worldCounts.get(worldName));
+    }
+
+    /**
+     * 取得擁有者目前的顯示數量
+     */
+    public int getOwnerCount(UUID ownerId) {
+        return count(ownerCounts.get(ownerId));
+    }
+
+    private static <K> void decrement(Map<K, AtomicInteger> counts, K key, int amount) {
+        AtomicInteger counter = counts.get(key);
+        if (counter != null && counter.addAndGet(-amount) <= 0) {
+            counts.remove(key);
+        }
+    }
+
+    private static int count(AtomicInteger counter) {
+        return counter == null ? 0 : counter.get();
+    }
+
+    private static double ratio(int required, int available) {
+        if (required == 0) {
+            return 0;
+        }
+        return available <= 0 ? Double.POSITIVE_INFINITY : (double) required / available;
+    }
+
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 單一結構在各區塊佔用的數量
+     */
+    private static final class Charge {
+        private final String worldName;
+        private final UUID ownerId;
+        private final long generation;
+        private final Map<Long, int[]> perChunk = new HashMap<>();
+        private int total;
+
+        private Charge(String worldName, UUID ownerId, long generation) {
+            this.worldName = worldName;
+            this.ownerId = ownerId;
+            this.generation = generation;
+        }
+
+        /**
+         * 規劃需要的數量，用於檢查預算
+         */
+        static Charge of(StructureSnapshot snapshot, RenderPlan plan) {
+            Charge charge = new Charge(snapshot.getWorldName(), snapshot.getOwnerId(), -1);
+            for (int i = 0; i < plan.size(); i++) {
+                charge.add(chunkKey((int) Math.floor(plan.getX(i)) >> 4, (int) Math.floor(plan.getZ(i)) >> 4), 1);
+            }
+            return charge;
+        }
+
+        void add(long chunkKey, int count) {
+            perChunk.computeIfAbsent(chunkKey, k -> new int[1])[0] += count;
+            total += count;
+        }
+
+        int countIn(long chunkKey) {
+            int[] count = perChunk.get(chunkKey);
+            return count == null ? 0 : count[0];
+        }
+    }
+}
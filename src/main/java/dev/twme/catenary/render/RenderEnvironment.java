@@ -0,0 +1,63 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.CatenaryStructure;
+import dev.twme.catenary.model.Preset;
+import dev.twme.catenary.model.RenderTemplate;
+import dev.twme.catenary.scheduler.TaskScheduler;
+import org.bukkit.Material;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * 顯示實體管理器所需的外部服務
+ * 插件以設定、排程器與各管理器實作；搭配 {@link InMemoryRenderSink} 可在沒有伺服器的環境下驅動整個渲染流程
+ */
+public interface RenderEnvironment {
+
+    /**
+     * 取得渲染設定
+     */
+    RenderSettings getSettings();
+
+    /**
+     * 取得排程器
+     */
+    TaskScheduler getScheduler();
+
+    Logger getLogger();
+
+    /**
+     * 取得目前的渲染品質等級
+     */
+    QualityTier getQualityTier();
+
+    /**
+     * 取得曲線上的點，回傳的列表不可修改
+     */
+    List<Vector3D> getPoints(Vector3D start, Vector3D end, double slack, int segments);
+
+    /**
+     * 取得渲染樣板
+     */
+    RenderTemplate getTemplate(Material material, boolean block, float scale);
+
+    /**
+     * 取得管理中的結構，校正發現問題時用來重新渲染
+     */
+    CatenaryStructure getStructure(UUID structureId);
+
+    /**
+     * 取得所有預設，烘焙資源包時使用
+     */
+    Collection<Preset> getPresets();
+
+    /**
+     * 取得資源包的輸出位置
+     */
+    File getResourcePackFile();
+}
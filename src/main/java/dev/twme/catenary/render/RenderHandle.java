@@ -0,0 +1,30 @@
+package dev.twme.catenary.render;
+
+import java.util.UUID;
+
+/**
+ * 渲染輸出端生成的單一顯示物件
+ */
+public interface RenderHandle {
+
+    /**
+     * 取得所屬結構ID
+     */
+    UUID getStructureId();
+
+    /**
+     * 取得所在世界名稱
+     */
+    String getWorldName();
+
+    double getX();
+
+    double getY();
+
+    double getZ();
+
+    /**
+     * 顯示物件是否仍然存在
+     */
+    boolean isValid();
+}
@@ -0,0 +1,164 @@
+package dev.twme.catenary.render;
+
+import org.joml.Quaternionf;
+
+import java.util.Arrays;
+
+/**
+ * 渲染計畫
+ * 以基本型別陣列保存每個渲染點的位置與旋轉，可重複使用以避免每次規劃時配置物件
+ */
+public final class RenderPlan {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    // 位置以相對原點的 float 保存，避免大座標下的精度損失
+    private double originX;
+    private double originY;
+    private double originZ;
+    private float[] positions = new float[INITIAL_CAPACITY * 3];
+    private float[] rotations = new float[INITIAL_CAPACITY * 4];
+    // 烘焙模式下每個區段的弦長與弧段模型編號，僅在需要時配置
+    private float[] lengths;
+    private int[] variants;
+    private boolean sections;
+    private int size;
+
+    /**
+     * 清除計畫並設定新的原點
+     */
+    void reset(double originX, double originY, double originZ) {
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.size = 0;
+        this.sections = false;
+    }
+
+    /**
+     * 加入一個渲染點（位置相對於原點）
+     */
+    void add(float x, float y, float z, float qx, float qy, float qz, float qw) {
+        if (size * 3 + 3 > positions.length) {
+            int capacity = Math.max(size * 2, INITIAL_CAPACITY);
+            positions = Arrays.copyOf(positions, capacity * 3);
+            rotations = Arrays.copyOf(rotations, capacity * 4);
+        }
+
+        int p = size * 3;
+        positions[p] = x;
+        positions[p + 1] = y;
+        positions[p + 2] = z;
+
+        int r = size * 4;
+        rotations[r] = qx;
+        rotations[r + 1] = qy;
+        rotations[r + 2] = qz;
+        rotations[r + 3] = qw;
+
+        size++;
+    }
+
+    /**
+     * 加入一個烘焙模型區段（位置為弦中點，相對於原點）
+     */
+    void addSection(float x, float y, float z, float qx, float qy, float qz, float qw, float length, int variant) {
+        int index = size;
+        add(x, y, z, qx, qy, qz, qw);
+
+        int capacity = positions.length / 3;
+        if (lengths == null || lengths.length < capacity) {
+            lengths = lengths == null ? new float[capacity] : Arrays.copyOf(lengths, capacity);
+            variants = variants == null ? new int[capacity] : Arrays.copyOf(variants, capacity);
+        }
+        lengths[index] = length;
+        variants[index] = variant;
+        sections = true;
+    }
+
+    /**
+     * 建立只包含標記渲染點的計畫，用於裁切超出預算的規劃
+     */
+    RenderPlan select(boolean[] keep) {
+        RenderPlan selected = new RenderPlan();
+        selected.reset(originX, originY, originZ);
+        for (int i = 0; i < size; i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            int p = i * 3;
+            int r = i * 4;
+            if (sections) {
+                selected.addSection(positions[p], positions[p + 1], positions[p + 2],
+                    rotations[r], rotations[r + 1], rotations[r + 2], rotations[r + 3], lengths[i], variants[i]);
+            } else {
+                selected.add(positions[p], positions[p + 1], positions[p + 2],
+                    rotations[r], rotations[r + 1], rotations[r + 2], rotations[r + 3]);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 建立平移後的計畫，渲染點的相對位置與旋轉不變
+     */
+    RenderPlan translate(double dx, double dy, double dz) {
+        RenderPlan translated = new RenderPlan();
+        translated.reset(originX + dx, originY + dy, originZ + dz);
+        translated.positions = Arrays.copyOf(positions, positions.length);
+        translated.rotations = Arrays.copyOf(rotations, rotations.length);
+        translated.lengths = lengths == null ? null : Arrays.copyOf(lengths, lengths.length);
+        translated.variants = variants == null ? null : Arrays.copyOf(variants, variants.length);
+        translated.sections = sections;
+        translated.size = size;
+        return translated;
+    }
+
+    /**
+     * 是否為烘焙模型區段計畫
+     */
+    public boolean hasSections() {
+        return sections;
+    }
+
+    /**
+     * 取得區段弦長 (方塊)
+     */
+    public float getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * 取得區段使用的弧段模型編號
+     */
+    public int getVariant(int index) {
+        return variants[index];
+    }
+
+    /**
+     * 取得渲染點數量
+     */
+    public int size() {
+        return size;
+    }
+
+    public double getX(int index) {
+        return originX + positions[index * 3];
+    }
+
+    public double getY(int index) {
+        return originY + positions[index * 3 + 1];
+    }
+
+    public double getZ(int index) {
+        return originZ + positions[index * 3 + 2];
+    }
+
+    /**
+     * 將指定渲染點的旋轉寫入目標四元數
+     */
+    public Quaternionf getRotation(int index, Quaternionf dest) {
+        int r = index * 4;
+        return dest.set(rotations[r], rotations[r + 1], rotations[r + 2], rotations[r + 3]);
+    }
+}
@@ -0,0 +1,204 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.math.Vector3D;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 渲染規劃器
+ * 根據曲線點位計算自動密度與旋轉，將結果寫入可重複使用的 {@link RenderPlan}。
+ * 內部暫存陣列會被重複使用，因此單一實例不可同時供多個執行緒使用。
+ */
+public final class RenderPlanner {
+
+    // 避免間距過小造成無窮迴圈
+    private static final double MIN_SPACING = 0.01;
+
+    private float[] segmentLengths = new float[16];
+    private float[] directions = new float[16 * 3];
+    private float[] curvatures = new float[16];
+
+    /**
+     * 規劃渲染點
+     *
+     * @param points 曲線點位
+     * @param baseSpacing 基本間距
+     * @param out 輸出的渲染計畫，會被清空後重新填入
+     * @return 傳入的渲染計畫
+     */
+    public RenderPlan plan(List<Vector3D> points, double baseSpacing, RenderPlan out) {
+        int pointCount = points.size();
+        Vector3D origin = points.get(0);
+        double ox = origin.getX();
+        double oy = origin.getY();
+        double oz = origin.getZ();
+        out.reset(ox, oy, oz);
+
+        if (pointCount < 2) {
+            return out;
+        }
+
+        int segmentCount = pointCount - 1;
+        ensureCapacity(pointCount);
+        baseSpacing = Math.max(MIN_SPACING, baseSpacing);
+
+        // 計算每個線段的長度和方向
+        for (int i = 0; i < segmentCount; i++) {
+            Vector3D prev = points.get(i);
+            Vector3D curr = points.get(i + 1);
+            double dx = curr.getX() - prev.getX();
+            double dy = curr.getY() - prev.getY();
+            double dz = curr.getZ() - prev.getZ();
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+            segmentLengths[i] = (float) length;
+            int d = i * 3;
+            if (length > 0) {
+                directions[d] = (float) (dx / length);
+                directions[d + 1] = (float) (dy / length);
+                directions[d + 2] = (float) (dz / length);
+            } else {
+                directions[d] = 0;
+                directions[d + 1] = 0;
+                directions[d + 2] = 0;
+            }
+        }
+
+        // 計算每個點的曲率（通過相鄰方向向量的夾角估算），首尾點沿用相鄰內部點的曲率
+        double maxCurvature = 0;
+        double minCurvature = Double.MAX_VALUE;
+        if (segmentCount > 1) {
+            for (int i = 0; i < segmentCount - 1; i++) {
+                int d1 = i * 3;
+                int d2 = d1 + 3;
+                double dot = directions[d1] * directions[d2]
+                    + directions[d1 + 1] * directions[d2 + 1]
+                    + directions[d1 + 2] * directions[d2 + 2];
+                dot = Math.min(1.0, Math.max(-1.0, dot));
+                double curvature = Math.acos(dot) / segmentLengths[i + 1];
+
+                curvatures[i + 1] = (float) curvature;
+                maxCurvature = Math.max(maxCurvature, curvature);
+                minCurvature = Math.min(minCurvature, curvature);
+            }
+            curvatures[0] = curvatures[1];
+            curvatures[pointCount - 1] = curvatures[pointCount - 2];
+        } else {
+            // 直線情況
+            curvatures[0] = 0;
+            curvatures[1] = 0;
+        }
+
+        // 曲率範圍太小，使用均勻間距
+        double curvatureRange = maxCurvature - minCurvature;
+        boolean useUniformSpacing = curvatureRange < 0.01 || Double.isNaN(curvatureRange);
+
+        // 生成渲染點；第一個線段從距離 0 開始，因此起點也會被放置
+        double remainingDistance = 0;
+        for (int i = 1; i < pointCount; i++) {
+            Vector3D prevPoint = points.get(i - 1);
+            int d = (i - 1) * 3;
+            float dirX = directions[d];
+            float dirY = directions[d + 1];
+            float dirZ = directions[d + 2];
+            double segmentLength = segmentLengths[i - 1];
+
+            // 曲率大的地方，間距小（更多實體）
+            double adaptiveSpacing;
+            if (useUniformSpacing) {
+                adaptiveSpacing = baseSpacing;
+            } else {
+                double factor = 1.0 - 0.7 * (curvatures[i] - minCurvature) / (curvatureRange + 0.0001);
+                adaptiveSpacing = baseSpacing * Math.max(0.3, factor);
+            }
+
+            double baseX = prevPoint.getX() - ox;
+            double baseY = prevPoint.getY() - oy;
+            double baseZ = prevPoint.getZ() - oz;
+            boolean interior = i < pointCount - 1;
+
+            double distanceAlongSegment = remainingDistance;
+            while (distanceAlongSegment < segmentLength) {
+                float x = (float) (baseX + dirX * distanceAlongSegment);
+                float y = (float) (baseY + dirY * distanceAlongSegment);
+                float z = (float) (baseZ + dirZ * distanceAlongSegment);
+
+                if (interior) {
+                    // 內部點在相鄰兩個方向之間插值
+                    float t = (float) (distanceAlongSegment / segmentLength);
+                    int n = i * 3;
+                    addPoint(out, x, y, z,
+                        dirX * (1 - t) + directions[n] * t,
+                        dirY * (1 - t) + directions[n + 1] * t,
+                        dirZ * (1 - t) + directions[n + 2] * t);
+                } else {
+                    addPoint(out, x, y, z, dirX, dirY, dirZ);
+                }
+
+                distanceAlongSegment += adaptiveSpacing;
+            }
+
+            remainingDistance = distanceAlongSegment - segmentLength;
+        }
+
+        // 確保最後一個點有實體
+        Vector3D last = points.get(pointCount - 1);
+        float lastX = (float) (last.getX() - ox);
+        float lastY = (float) (last.getY() - oy);
+        float lastZ = (float) (last.getZ() - oz);
+        int lastIndex = out.size() - 1;
+        boolean missingLast = lastIndex < 0;
+        if (!missingLast) {
+            double gapX = out.getX(lastIndex) - last.getX();
+            double gapY = out.getY(lastIndex) - last.getY();
+            double gapZ = out.getZ(lastIndex) - last.getZ();
+            missingLast = gapX * gapX + gapY * gapY + gapZ * gapZ > 0.01 * 0.01;
+        }
+        if (missingLast) {
+            int d = (segmentCount - 1) * 3;
+            addPoint(out, lastX, lastY, lastZ, directions[d], directions[d + 1], directions[d + 2]);
+        }
+
+        return out;
+    }
+
+    /**
+     * 加入渲染點，旋轉由 +Y 軸到方向向量的最短弧四元數直接求得
+     */
+    private static void addPoint(RenderPlan out, float x, float y, float z, float dirX, float dirY, float dirZ) {
+        float length = (float) Math.sqrt(dirX * dirX + dirY * dirY + dirZ * dirZ);
+        if (length < 1.0e-6f) {
+            out.add(x, y, z, 0, 0, 0, 1);
+            return;
+        }
+        dirX /= length;
+        dirY /= length;
+        dirZ /= length;
+
+        // q = (up × dir, 1 + up · dir)，其中 up = (0, 1, 0)
+        float qx = dirZ;
+        float qz = -dirX;
+        float qw = 1 + dirY;
+        if (qw < 1.0e-6f) {
+            // 方向正好朝下，繞 X 軸旋轉 180 度
+            out.add(x, y, z, 1, 0, 0, 0);
+            return;
+        }
+
+        float norm = (float) Math.sqrt(qx * qx + qz * qz + qw * qw);
+        out.add(x, y, z, qx / norm, 0, qz / norm, qw / norm);
+    }
+
+    /**
+     * 確保暫存陣列足以容納指定點數
+     */
+    private void ensureCapacity(int pointCount) {
+        if (curvatures.length < pointCount) {
+            int capacity = Math.max(pointCount, curvatures.length * 2);
+            segmentLengths = Arrays.copyOf(segmentLengths, capacity);
+            directions = Arrays.copyOf(directions, capacity * 3);
+            curvatures = Arrays.copyOf(curvatures, capacity);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.Catenary;
+import dev.twme.catenary.model.CatenaryStructure;
+import dev.twme.catenary.scheduler.SchedulerTask;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.UUID;
+
+/**
+ * 渲染校正器
+ * 依 rendering.updateInterval 定期以輪詢方式檢查一小批結構，
+ * 讓殘留或偏離的顯示以固定的小成本持續修正，不必執行全面的 admin cleanup。
+ */
+public class RenderReconciler {
+
+    private final Catenary plugin;
+    // 本輪尚未檢查的結構，清空後重新取得所有結構
+    private final Deque<UUID> queue = new ArrayDeque<>();
+    private SchedulerTask reconcileTask;
+
+    public RenderReconciler(Catenary plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 開始定期校正
+     */
+    public void start() {
+        stop();
+        long period = Math.max(1, plugin.getConfigManager().getUpdateInterval());
+        reconcileTask = plugin.getTaskScheduler().runGlobalTimer(task -> reconcileSlice(), period, period);
+    }
+
+    /**
+     * 停止定期校正
+     */
+    public void stop() {
+        if (reconcileTask != null) {
+            reconcileTask.cancel();
+            reconcileTask = null;
+        }
+        queue.clear();
+    }
+
+    /**
+     * 檢查下一批結構
+     */
+    private void reconcileSlice() {
+        if (queue.isEmpty()) {
+            for (CatenaryStructure structure : plugin.getStructureManager().getAllStructures()) {
+                queue.add(structure.getId());
+            }
+        }
+
+        DisplayEntityManager displayManager = plugin.getDisplayEntityManager();
+        int sliceSize = plugin.getConfigManager().getReconcileSliceSize();
+        int repaired = 0;
+        for (int i = 0; i < sliceSize && !queue.isEmpty(); i++) {
+            CatenaryStructure structure = plugin.getStructureManager().getStructure(queue.poll());
+            // 已被移除的結構
+            if (structure == null) {
+                continue;
+            }
+            try {
+                if (displayManager.reconcile(structure)) {
+                    repaired++;
+                }
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to reconcile structure " + structure.getId() + ": " + e.getMessage());
+            }
+        }
+
+        if (repaired > 0 && plugin.getConfigManager().isDebugMode()) {
+            plugin.getLogger().info("Reconciled " + repaired + " structures");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package dev.twme.catenary.render;
+
+/**
+ * 顯示實體管理器使用的渲染設定
+ * 由設定管理器實作，不需要伺服器的環境中可以直接提供固定的值
+ */
+public interface RenderSettings {
+
+    /**
+     * 是否輸出除錯訊息
+     */
+    boolean isDebugMode();
+
+    /**
+     * 渲染規劃執行緒數量
+     */
+    int getPlannerThreads();
+
+    /**
+     * 每刻最多生成的顯示物件數量
+     */
+    int getSpawnBudgetPerTick();
+
+    /**
+     * 顯示物件的掛載模式
+     */
+    RiggingMode getRiggingMode();
+
+    /**
+     * structure 掛載模式下渲染點與錨點的最大距離 (方塊)
+     */
+    double getStructureRiggingMaxSpan();
+
+    /**
+     * 移動結構時的傳送插值時間 (刻)
+     */
+    int getMoveInterpolationTicks();
+
+    /**
+     * 是否使用烘焙資源包模型渲染
+     */
+    boolean isBakedMode();
+
+    /**
+     * 烘焙模式的目標區段長度 (方塊)
+     */
+    double getBakedSectionLength();
+
+    /**
+     * 每個區塊的最大顯示數量，0 表示不限制
+     */
+    int getMaxDisplaysPerChunk();
+
+    /**
+     * 每個世界的最大顯示數量，0 表示不限制
+     */
+    int getMaxDisplaysPerWorld();
+
+    /**
+     * 每位玩家所有結構合計的最大顯示數量，0 表示不限制
+     */
+    int getMaxDisplaysPerPlayer();
+
+    /**
+     * 是否啟用遠距離渲染
+     */
+    boolean isFarFieldEnabled();
+}
@@ -0,0 +1,80 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.model.RenderTemplate;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * 渲染輸出端
+ * 顯示實體管理器只透過此介面生成、更新與移除顯示物件，
+ * 因此規劃、剔除與排程可以搭配記憶體實作在沒有伺服器的環境下執行。
+ */
+public interface RenderSink {
+
+    /**
+     * 世界是否已載入
+     */
+    boolean isWorldLoaded(String worldName);
+
+    /**
+     * 區塊是否已載入
+     */
+    boolean isChunkLoaded(String worldName, int chunkX, int chunkZ);
+
+    /**
+     * 在擁有指定區塊的執行緒上執行一批生成
+     */
+    void execute(String worldName, int chunkX, int chunkZ, Runnable batch);
+
+    /**
+     * 生成掛載用的錨點
+     */
+    RenderHandle spawnAnchor(String worldName, double x, double y, double z, UUID structureId);
+
+    /**
+     * 生成方塊顯示，方塊資料、縮放與顯示設定取自預先編譯的樣板
+     *
+     * @param anchor 要掛載的錨點，不掛載時為 null
+     */
+    RenderHandle spawnBlock(String worldName, double x, double y, double z, RenderTemplate template,
+                            UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor);
+
+    /**
+     * 生成烘焙弧段模型，模型弦長為 1 格並以等比縮放放大到區段長度
+     *
+     * @param anchor 要掛載的錨點，不掛載時為 null
+     */
+    RenderHandle spawnSection(String worldName, double x, double y, double z, RenderTemplate template, int variant, float length,
+                              UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor);
+
+    /**
+     * 平移顯示物件，掛載在其上的物件會一併移動
+     */
+    void move(RenderHandle handle, double dx, double dy, double dz, int interpolationTicks);
+
+    /**
+     * 移除顯示物件
+     */
+    void remove(RenderHandle handle);
+
+    /**
+     * 每刻套用完所有待處理的規劃後呼叫，批次送出累積的變更
+     */
+    void flush();
+
+    /**
+     * 移除區塊中屬於結構、但不在追蹤清單中的顯示物件
+     * 只有會被伺服器保存的輸出端需要實作
+     */
+    default void removeUntracked(String worldName, int chunkX, int chunkZ, UUID structureId, Collection<RenderHandle> tracked) {
+    }
+
+    /**
+     * 關閉輸出端並釋放資源
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,190 @@
+package dev.twme.catenary.render;
+
+import org.bukkit.Material;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 烘焙模型資源包產生器
+ * 依預設的材質產生弧段模型，輸出內容只取決於輸入參數，相同的 presets.yml 會得到相同的資源包
+ */
+public final class ResourcePackGenerator {
+
+    // 1.21.4 的資源包格式
+    private static final int PACK_FORMAT = 46;
+    // 每個弧段由幾節組成
+    private static final int LINKS_PER_SECTION = 8;
+    // 模型元素只允許這些旋轉角度
+    private static final float[] ALLOWED_ANGLES = {-45f, -22.5f, 0f, 22.5f, 45f};
+    // 固定的壓縮檔時間戳，確保輸出可重現
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+    // 貼圖名稱與方塊 ID 不同的材質: 材質 -> {側面, 端面}
+    private static final Map<String, String[]> TEXTURES = Map.of(
+        "glass_pane", new String[] {"block/glass", "block/glass_pane_top"},
+        "nether_brick_fence", new String[] {"block/nether_bricks", "block/nether_bricks"}
+    );
+
+    private ResourcePackGenerator() {
+    }
+
+    /**
+     * 產生資源包
+     *
+     * @param output 輸出檔案
+     * @param materialScales 每種渲染材質與其縮放
+     * @param sectionLength 目標區段長度 (方塊)
+     */
+    public static void generate(File output, Map<Material, Float> materialScales, double sectionLength) throws IOException {
+        output.getParentFile().mkdirs();
+        File temp = new File(output.getParentFile(), output.getName() + ".tmp");
+
+        // 依名稱排序以確保輸出順序固定
+        Map<String, Float> sorted = new TreeMap<>();
+        for (Map.Entry<Material, Float> entry : materialScales.entrySet()) {
+            sorted.put(entry.getKey().name().toLowerCase(Locale.ROOT), entry.getValue());
+        }
+
+        try (OutputStream stream = Files.newOutputStream(temp.toPath());
+             ZipOutputStream zip = new ZipOutputStream(stream)) {
+            writeEntry(zip, "pack.mcmeta",
+                "{\"pack\":{\"pack_format\":" + PACK_FORMAT + ",\"description\":\"Catenary baked models\"}}");
+
+            for (Map.Entry<String, Float> entry : sorted.entrySet()) {
+                String material = entry.getKey();
+                for (int variant = 0; variant < BakedModelLibrary.VARIANTS; variant++) {
+                    String name = material + "_arc_" + variant;
+                    writeEntry(zip, "assets/" + BakedModelLibrary.NAMESPACE + "/items/" + name + ".json",
+                        "{\"model\":{\"type\":\"minecraft:model\",\"model\":\""
+                            + BakedModelLibrary.NAMESPACE + ":item/" + name + "\"}}");
+                    writeEntry(zip, "assets/" + BakedModelLibrary.NAMESPACE + "/models/item/" + name + ".json",
+                        buildModel(material, variant, entry.getValue(), sectionLength));
+                }
+            }
+        }
+
+        Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 建立單一弧段模型
+     * 弦沿 X 軸由 0 到 16，弦中點位於模型中心 (8, 8, 8)，弧向 -Y 方向下垂
+     */
+    private static String buildModel(String material, int variant, float scale, double sectionLength) {
+        float sag = BakedModelLibrary.sagRatio(variant) * 16;
+        // 模型會被放大到區段長度，因此粗細需依區段長度換算
+        float thickness = (float) Math.max(0.25, Math.min(4.0, 16 * 0.1875 * scale / sectionLength));
+        float half = thickness / 2;
+
+        String[] textures = textures(material);
+        StringBuilder json = new StringBuilder();
+        json.append("{\"textures\":{\"side\":\"minecraft:").append(textures[0])
+            .append("\",\"end\":\"minecraft:").append(textures[1])
+            .append("\",\"particle\":\"minecraft:").append(textures[0]).append("\"},\"elements\":[");
+
+        for (int i = 0; i < LINKS_PER_SECTION; i++) {
+            float x0 = 16f * i / LINKS_PER_SECTION;
+            float x1 = 16f * (i + 1) / LINKS_PER_SECTION;
+            float xc = (x0 + x1) / 2;
+
+            // 拋物線近似: y = 8 - sag * (1 - ((x - 8) / 8)^2)
+            float u = (xc - 8) / 8;
+            float yc = 8 - sag * (1 - u * u);
+            float slope = sag * (xc - 8) / 32;
+            float angle = snapAngle((float) Math.toDegrees(Math.atan(slope)));
+
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"from\":[").append(format(x0)).append(',').append(format(yc - half)).append(',').append(format(8 - half))
+                .append("],\"to\":[").append(format(x1)).append(',').append(format(yc + half)).append(',').append(format(8 + half))
+                .append("],\"rotation\":{\"origin\":[").append(format(xc)).append(',').append(format(yc)).append(",8],\"axis\":\"z\",\"angle\":")
+                .append(format(angle)).append("},\"faces\":{");
+            // 各面的 UV 依該面的實際尺寸取貼圖中央，避免整張貼圖被壓縮到細長的面上
+            appendFace(json, "north", x1 - x0, thickness, "side").append(',');
+            appendFace(json, "east", thickness, thickness, "end").append(',');
+            appendFace(json, "south", x1 - x0, thickness, "side").append(',');
+            appendFace(json, "west", thickness, thickness, "end").append(',');
+            appendFace(json, "up", x1 - x0, thickness, "side").append(',');
+            appendFace(json, "down", x1 - x0, thickness, "side");
+            json.append("}}");
+        }
+
+        json.append("]}");
+        return json.toString();
+    }
+
+    /**
+     * 加入一個面，UV 為貼圖中央與面同尺寸的區域
+     */
+    private static StringBuilder appendFace(StringBuilder json, String face, float width, float height, String texture) {
+        float u = Math.min(16, width) / 2;
+        float v = Math.min(16, height) / 2;
+        return json.append('"').append(face).append("\":{\"uv\":[")
+            .append(format(8 - u)).append(',').append(format(8 - v)).append(',')
+            .append(format(8 + u)).append(',').append(format(8 + v))
+            .append("],\"texture\":\"#").append(texture).append("\"}");
+    }
+
+    /**
+     * 取得材質的側面與端面貼圖
+     * 先查 TEXTURES 中貼圖名稱與方塊 ID 不同的材質，再依原版方塊模型對應：
+     * 染色玻璃片取染色玻璃與玻璃片頂部，原木取側面與頂部，柵欄取木材；其餘使用同名的方塊貼圖
+     */
+    private static String[] textures(String material) {
+        String[] explicit = TEXTURES.get(material);
+        if (explicit != null) {
+            return explicit;
+        }
+        if (material.endsWith("_stained_glass_pane")) {
+            String glass = material.substring(0, material.length() - "_pane".length());
+            return new String[] {"block/" + glass, "block/" + material + "_top"};
+        }
+        if (material.endsWith("_log") || material.endsWith("_stem")) {
+            return new String[] {"block/" + material, "block/" + material + "_top"};
+        }
+        if (material.endsWith("_fence")) {
+            String planks = "block/" + material.substring(0, material.length() - "_fence".length()) + "_planks";
+            return new String[] {planks, planks};
+        }
+        return new String[] {"block/" + material, "block/" + material};
+    }
+
+    /**
+     * 將角度對齊到模型允許的旋轉角度
+     */
+    private static float snapAngle(float degrees) {
+        float best = 0;
+        for (float allowed : ALLOWED_ANGLES) {
+            if (Math.abs(allowed - degrees) < Math.abs(best - degrees)) {
+                best = allowed;
+            }
+        }
+        return best;
+    }
+
+    private static String format(float value) {
+        String text = String.format(Locale.ROOT, "%.4f", value);
+        // 去除多餘的零以縮小檔案
+        text = text.replaceAll("0+$", "");
+        return text.endsWith(".") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTimeLocal(ENTRY_TIME);
+        zip.putNextEntry(entry);
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
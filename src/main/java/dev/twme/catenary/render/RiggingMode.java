@@ -0,0 +1,19 @@
+package dev.twme.catenary.render;
+
+/**
+ * 顯示實體的掛載模式
+ */
+public enum RiggingMode {
+    /**
+     * 每個顯示實體獨立存在
+     */
+    NONE,
+    /**
+     * 整個結構共用一個錨點實體
+     */
+    STRUCTURE,
+    /**
+     * 結構在每個區塊內的片段各有一個錨點實體
+     */
+    CHUNK
+}
@@ -0,0 +1,159 @@
+package dev.twme.catenary.render;
+
+import org.bukkit.Material;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 只存在於客戶端的顯示物件
+ * 位置在生成後不再改變，移動以平移量表示，讓客戶端以插值呈現
+ */
+public final class VirtualDisplay implements RenderHandle {
+
+    private final int entityId;
+    private final UUID uniqueId;
+    private final UUID structureId;
+    private final String worldName;
+    private final double x;
+    private final double y;
+    private final double z;
+    private final Material material;
+    // 烘焙弧段使用的模型編號，方塊顯示為 -1
+    private final int variant;
+    // 錨點不會發送給客戶端，只用來一起移動掛在其上的顯示
+    private final boolean anchor;
+    private final List<VirtualDisplay> passengers = new CopyOnWriteArrayList<>();
+    private final Quaternionf rotation;
+    private volatile Vector3f translation;
+    private final float scale;
+    private volatile boolean removed;
+
+    VirtualDisplay(int entityId, UUID structureId, String worldName, double x, double y, double z,
+                   Material material, int variant, boolean anchor,
+                   Quaternionf rotation, Vector3f translation, float scale) {
+        this.entityId = entityId;
+        this.uniqueId = UUID.randomUUID();
+        this.structureId = structureId;
+        this.worldName = worldName;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.material = material;
+        this.variant = variant;
+        this.anchor = anchor;
+        this.rotation = rotation;
+        this.translation = translation;
+        this.scale = scale;
+    }
+
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    @Override
+    public UUID getStructureId() {
+        return structureId;
+    }
+
+    @Override
+    public String getWorldName() {
+        return worldName;
+    }
+
+    /**
+     * 顯示目前的位置（生成位置加上平移量）
+     */
+    @Override
+    public double getX() {
+        return x + translation.x();
+    }
+
+    @Override
+    public double getY() {
+        return y + translation.y();
+    }
+
+    @Override
+    public double getZ() {
+        return z + translation.z();
+    }
+
+    @Override
+    public boolean isValid() {
+        return !removed;
+    }
+
+    /**
+     * 取得生成位置
+     */
+    public double getSpawnX() {
+        return x;
+    }
+
+    public double getSpawnY() {
+        return y;
+    }
+
+    public double getSpawnZ() {
+        return z;
+    }
+
+    /**
+     * 取得顯示的方塊材質，或烘焙弧段的渲染材質
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * 是否為烘焙弧段（物品展示）
+     */
+    public boolean isSection() {
+        return variant >= 0;
+    }
+
+    public int getVariant() {
+        return variant;
+    }
+
+    public boolean isAnchor() {
+        return anchor;
+    }
+
+    public Quaternionf getRotation() {
+        return rotation;
+    }
+
+    public Vector3f getTranslation() {
+        return translation;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    List<VirtualDisplay> getPassengers() {
+        return passengers;
+    }
+
+    void translate(double dx, double dy, double dz) {
+        Vector3f current = translation;
+        this.translation = new Vector3f(
+            (float) (current.x() + dx),
+            (float) (current.y() + dy),
+            (float) (current.z() + dz)
+        );
+    }
+
+    void markRemoved() {
+        this.removed = true;
+    }
+}
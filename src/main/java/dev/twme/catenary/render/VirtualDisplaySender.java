@@ -0,0 +1,34 @@
+package dev.twme.catenary.render;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+
+/**
+ * 虛擬顯示的封包發送端
+ * 虛擬顯示只存在於客戶端，伺服器不會為它們建立、追蹤或儲存實體
+ */
+public interface VirtualDisplaySender {
+
+    /**
+     * 配置一個不會與伺服器實體衝突的實體ID
+     */
+    int allocateEntityId();
+
+    /**
+     * 對玩家生成虛擬顯示並送出完整的中繼資料
+     */
+    void spawn(Player player, Collection<VirtualDisplay> displays);
+
+    /**
+     * 對玩家送出虛擬顯示變更後的變換
+     *
+     * @param interpolationTicks 客戶端插值的刻數
+     */
+    void update(Player player, VirtualDisplay display, int interpolationTicks);
+
+    /**
+     * 對玩家移除虛擬顯示
+     */
+    void destroy(Player player, Collection<Integer> entityIds);
+}
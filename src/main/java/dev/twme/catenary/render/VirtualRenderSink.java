@@ -0,0 +1,311 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.Catenary;
+import dev.twme.catenary.model.RenderTemplate;
+import dev.twme.catenary.scheduler.SchedulerTask;
+import dev.twme.catenary.scheduler.TaskScheduler;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+/**
+ * 以虛擬顯示作為渲染輸出
+ * 伺服器上不存在任何實體，只對可見距離內的玩家發送生成與中繼資料封包
+ */
+public class VirtualRenderSink implements RenderSink, Listener {
+
+    private final Server server;
+    private final TaskScheduler scheduler;
+    private final IntSupplier viewDistance;
+    private final VirtualDisplaySender sender;
+    private final Map<Integer, VirtualDisplay> displays = new ConcurrentHashMap<>();
+    // 世界名稱 -> 區塊鍵 -> 該區塊內的虛擬顯示
+    private final Map<String, Map<Long, Set<VirtualDisplay>>> chunkIndex = new ConcurrentHashMap<>();
+    private final Map<UUID, Viewer> viewers = new ConcurrentHashMap<>();
+    // 有新的虛擬顯示尚未發送
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final SchedulerTask refreshTask;
+
+    public VirtualRenderSink(Catenary plugin, VirtualDisplaySender sender) {
+        this(plugin.getServer(), plugin.getTaskScheduler(), plugin.getConfigManager()::getViewDistance,
+            plugin.getConfigManager().getVirtualRefreshTicks(), sender);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    /**
+     * 不註冊事件的建構子，玩家與世界取自指定的伺服器
+     *
+     * @param viewDistance 可見距離 (方塊)，每次更新可見集合時讀取
+     * @param refreshTicks 定期更新可見集合的間隔 (刻)
+     */
+    VirtualRenderSink(Server server, TaskScheduler scheduler, IntSupplier viewDistance, long refreshTicks,
+                      VirtualDisplaySender sender) {
+        this.server = server;
+        this.scheduler = scheduler;
+        this.viewDistance = viewDistance;
+        this.sender = sender;
+        this.refreshTask = scheduler.runGlobalTimer(task -> refreshViewers(), refreshTicks, refreshTicks);
+    }
+
+    @Override
+    public boolean isWorldLoaded(String worldName) {
+        return server.getWorld(worldName) != null;
+    }
+
+    /**
+     * 虛擬顯示不依賴區塊，只要世界已載入即可
+     */
+    @Override
+    public boolean isChunkLoaded(String worldName, int chunkX, int chunkZ) {
+        return isWorldLoaded(worldName);
+    }
+
+    /**
+     * 虛擬顯示不屬於任何區域，直接在呼叫的執行緒上執行
+     */
+    @Override
+    public void execute(String worldName, int chunkX, int chunkZ, Runnable batch) {
+        batch.run();
+    }
+
+    @Override
+    public RenderHandle spawnAnchor(String worldName, double x, double y, double z, UUID structureId) {
+        return register(new VirtualDisplay(sender.allocateEntityId(), structureId, worldName, x, y, z,
+            null, -1, true, new Quaternionf(), new Vector3f(), 1f), null);
+    }
+
+    @Override
+    public RenderHandle spawnBlock(String worldName, double x, double y, double z, RenderTemplate template,
+                                   UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor) {
+        return register(new VirtualDisplay(sender.allocateEntityId(), structureId, worldName, x, y, z,
+            template.getBlockMaterial(), -1, false, rotation, translation, template.getDisplayScale().x), (VirtualDisplay) anchor);
+    }
+
+    @Override
+    public RenderHandle spawnSection(String worldName, double x, double y, double z, RenderTemplate template, int variant, float length,
+                                     UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor) {
+        return register(new VirtualDisplay(sender.allocateEntityId(), structureId, worldName, x, y, z,
+            template.getBlockMaterial(), variant, false, rotation, translation, length), (VirtualDisplay) anchor);
+    }
+
+    /**
+     * 以平移量移動虛擬顯示，錨點會帶著掛在其上的顯示一起移動
+     */
+    @Override
+    public void move(RenderHandle handle, double dx, double dy, double dz, int interpolationTicks) {
+        VirtualDisplay display = (VirtualDisplay) handle;
+        List<VirtualDisplay> moved = new ArrayList<>(display.getPassengers());
+        moved.add(display);
+        for (VirtualDisplay target : moved) {
+            unindex(target);
+            target.translate(dx, dy, dz);
+            index(target);
+            if (!target.isAnchor()) {
+                sendUpdate(target, interpolationTicks);
+            }
+        }
+    }
+
+    @Override
+    public void remove(RenderHandle handle) {
+        VirtualDisplay display = (VirtualDisplay) handle;
+        if (displays.remove(display.getEntityId()) == null) {
+            return;
+        }
+        display.markRemoved();
+        unindex(display);
+
+        List<Integer> ids = Collections.singletonList(display.getEntityId());
+        for (Map.Entry<UUID, Viewer> entry : viewers.entrySet()) {
+            if (entry.getValue().visible.remove(display.getEntityId())) {
+                Player player = server.getPlayer(entry.getKey());
+                if (player != null) {
+                    sender.destroy(player, ids);
+                }
+            }
+        }
+    }
+
+    /**
+     * 有新的虛擬顯示時立即更新玩家的可見集合，不必等到下一次定期更新
+     */
+    @Override
+    public void flush() {
+        if (dirty.getAndSet(false)) {
+            refreshViewers();
+        }
+    }
+
+    @Override
+    public void close() {
+        refreshTask.cancel();
+        HandlerList.unregisterAll(this);
+        for (Map.Entry<UUID, Viewer> entry : viewers.entrySet()) {
+            Player player = server.getPlayer(entry.getKey());
+            if (player != null) {
+                sender.destroy(player, entry.getValue().visible);
+            }
+        }
+        viewers.clear();
+        displays.clear();
+        chunkIndex.clear();
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        viewers.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * 換世界或重生時客戶端會清除所有實體，需要重新發送
+     */
+    @EventHandler
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        viewers.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        viewers.remove(event.getPlayer().getUniqueId());
+    }
+
+    private VirtualDisplay register(VirtualDisplay display, VirtualDisplay anchor) {
+        displays.put(display.getEntityId(), display);
+        if (anchor != null) {
+            anchor.getPassengers().add(display);
+        }
+        if (!display.isAnchor()) {
+            index(display);
+            dirty.set(true);
+        }
+        return display;
+    }
+
+    /**
+     * 在每位玩家的執行緒上更新可見集合
+     */
+    private void refreshViewers() {
+        for (Player player : server.getOnlinePlayers()) {
+            scheduler.runForEntity(player, () -> refreshViewer(player));
+        }
+    }
+
+    /**
+     * 對玩家發送進入可見距離的虛擬顯示，並移除離開可見距離的虛擬顯示
+     */
+    private void refreshViewer(Player player) {
+        if (!player.isOnline()) {
+            return;
+        }
+
+        Location location = player.getLocation();
+        String worldName = location.getWorld().getName();
+        Viewer viewer = viewers.computeIfAbsent(player.getUniqueId(), key -> new Viewer());
+
+        Set<Integer> inRange = new HashSet<>();
+        List<VirtualDisplay> entering = new ArrayList<>();
+        Map<Long, Set<VirtualDisplay>> chunks = chunkIndex.get(worldName);
+        if (chunks != null) {
+            int radius = (viewDistance.getAsInt() + 15) >> 4;
+            int centerX = location.getBlockX() >> 4;
+            int centerZ = location.getBlockZ() >> 4;
+            for (int cx = centerX - radius; cx <= centerX + radius; cx++) {
+                for (int cz = centerZ - radius; cz <= centerZ + radius; cz++) {
+                    Set<VirtualDisplay> chunkDisplays = chunks.get(chunkKey(cx, cz));
+                    if (chunkDisplays == null) {
+                        continue;
+                    }
+                    for (VirtualDisplay display : chunkDisplays) {
+                        inRange.add(display.getEntityId());
+                        if (viewer.visible.add(display.getEntityId())) {
+                            entering.add(display);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Integer> leaving = new ArrayList<>();
+        for (Integer entityId : viewer.visible) {
+            if (!inRange.contains(entityId)) {
+                leaving.add(entityId);
+            }
+        }
+        viewer.visible.removeAll(leaving);
+
+        if (!leaving.isEmpty()) {
+            sender.destroy(player, leaving);
+        }
+        if (!entering.isEmpty()) {
+            sender.spawn(player, entering);
+        }
+    }
+
+    /**
+     * 對看得到此虛擬顯示的玩家發送變換
+     */
+    private void sendUpdate(VirtualDisplay display, int interpolationTicks) {
+        for (Map.Entry<UUID, Viewer> entry : viewers.entrySet()) {
+            if (entry.getValue().visible.contains(display.getEntityId())) {
+                Player player = server.getPlayer(entry.getKey());
+                if (player != null) {
+                    sender.update(player, display, interpolationTicks);
+                }
+            }
+        }
+    }
+
+    private void index(VirtualDisplay display) {
+        if (display.isAnchor() || !display.isValid()) {
+            return;
+        }
+        chunkIndex.computeIfAbsent(display.getWorldName(), key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(chunkKey(display), key -> ConcurrentHashMap.newKeySet())
+            .add(display);
+    }
+
+    private void unindex(VirtualDisplay display) {
+        Map<Long, Set<VirtualDisplay>> chunks = chunkIndex.get(display.getWorldName());
+        if (chunks == null) {
+            return;
+        }
+        Set<VirtualDisplay> chunkDisplays = chunks.get(chunkKey(display));
+        if (chunkDisplays != null) {
+            chunkDisplays.remove(display);
+        }
+    }
+
+    private static long chunkKey(VirtualDisplay display) {
+        return chunkKey((int) Math.floor(display.getX()) >> 4, (int) Math.floor(display.getZ()) >> 4);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 單一玩家目前看得到的虛擬顯示
+     */
+    private static class Viewer {
+        private final Set<Integer> visible = ConcurrentHashMap.newKeySet();
+    }
+}
@@ -0,0 +1,100 @@
+package dev.twme.catenary.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 使用 Bukkit 排程器的實作，所有同步任務都在主執行緒執行
+ */
+public class BukkitTaskScheduler implements TaskScheduler {
+
+    private final Plugin plugin;
+
+    public BukkitTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        runSync(task);
+    }
+
+    @Override
+    public void runGlobalNextTick(Runnable task) {
+        Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public SchedulerTask runGlobalTimer(Consumer<SchedulerTask> task, long delay, long period) {
+        AtomicReference<SchedulerTask> handle = new AtomicReference<>();
+        BukkitTask bukkitTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> task.accept(handle.get()), delay, period);
+        handle.set(wrap(bukkitTask));
+        return handle.get();
+    }
+
+    @Override
+    public void runAt(World world, int chunkX, int chunkZ, Runnable task) {
+        runSync(task);
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task) {
+        runSync(() -> {
+            if (entity.isValid()) {
+                task.run();
+            }
+        });
+    }
+
+    @Override
+    public SchedulerTask runForEntityTimer(Entity entity, Consumer<SchedulerTask> task, long delay, long period) {
+        return runGlobalTimer(handle -> {
+            if (!entity.isValid()) {
+                handle.cancel();
+                return;
+            }
+            task.accept(handle);
+        }, delay, period);
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+    }
+
+    @Override
+    public void cancelAll() {
+        Bukkit.getScheduler().cancelTasks(plugin);
+    }
+
+    /**
+     * 已在主執行緒時直接執行，否則排到下一刻
+     */
+    private void runSync(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    private static SchedulerTask wrap(BukkitTask task) {
+        return new SchedulerTask() {
+            @Override
+            public void cancel() {
+                task.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return task.isCancelled();
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package dev.twme.catenary.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Folia 區域執行緒排程器的實作
+ */
+public class FoliaTaskScheduler implements TaskScheduler {
+
+    private final Plugin plugin;
+
+    public FoliaTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+    }
+
+    /**
+     * 全域區域排程器的任務一律排到下一刻執行
+     */
+    @Override
+    public void runGlobalNextTick(Runnable task) {
+        Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+    }
+
+    @Override
+    public SchedulerTask runGlobalTimer(Consumer<SchedulerTask> task, long delay, long period) {
+        AtomicReference<SchedulerTask> handle = new AtomicReference<>();
+        // Folia 不接受小於 1 的延遲
+        ScheduledTask scheduled = Bukkit.getGlobalRegionScheduler().runAtFixedRate(
+            plugin, ignored -> task.accept(handle.get()), Math.max(1L, delay), period);
+        handle.set(wrap(scheduled));
+        return handle.get();
+    }
+
+    @Override
+    public void runAt(World world, int chunkX, int chunkZ, Runnable task) {
+        if (Bukkit.isOwnedByCurrentRegion(world, chunkX, chunkZ)) {
+            task.run();
+        } else {
+            Bukkit.getRegionScheduler().execute(plugin, world, chunkX, chunkZ, task);
+        }
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task) {
+        if (Bukkit.isOwnedByCurrentRegion(entity)) {
+            task.run();
+        } else {
+            entity.getScheduler().execute(plugin, task, null, 1L);
+        }
+    }
+
+    @Override
+    public SchedulerTask runForEntityTimer(Entity entity, Consumer<SchedulerTask> task, long delay, long period) {
+        AtomicReference<SchedulerTask> handle = new AtomicReference<>();
+        ScheduledTask scheduled = entity.getScheduler().runAtFixedRate(
+            plugin, ignored -> task.accept(handle.get()), null, Math.max(1L, delay), period);
+        if (scheduled == null) {
+            // 實體已被移除
+            return null;
+        }
+        handle.set(wrap(scheduled));
+        return handle.get();
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getAsyncScheduler().runNow(plugin, ignored -> task.run());
+    }
+
+    @Override
+    public void cancelAll() {
+        Bukkit.getGlobalRegionScheduler().cancelTasks(plugin);
+        Bukkit.getAsyncScheduler().cancelTasks(plugin);
+    }
+
+    private static SchedulerTask wrap(ScheduledTask task) {
+        return new SchedulerTask() {
+            @Override
+            public void cancel() {
+                task.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return task.isCancelled();
+            }
+        };
+    }
+}
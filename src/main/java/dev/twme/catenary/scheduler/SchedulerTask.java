@@ -0,0 +1,17 @@
+package dev.twme.catenary.scheduler;
+
+/**
+ * 已排程的任務
+ */
+public interface SchedulerTask {
+
+    /**
+     * 取消任務
+     */
+    void cancel();
+
+    /**
+     * 任務是否已被取消
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,85 @@
+package dev.twme.catenary.scheduler;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.util.function.Consumer;
+
+/**
+ * 任務排程抽象
+ * 在一般伺服器上所有同步任務都在主執行緒執行；在 Folia 上則交給擁有該區域或實體的執行緒
+ */
+public interface TaskScheduler {
+
+    /**
+     * 在全域執行緒執行任務
+     */
+    void runGlobal(Runnable task);
+
+    /**
+     * 在全域執行緒的下一刻執行任務，即使目前已在全域執行緒上也不會立即執行
+     */
+    void runGlobalNextTick(Runnable task);
+
+    /**
+     * 在全域執行緒定期執行任務
+     */
+    SchedulerTask runGlobalTimer(Consumer<SchedulerTask> task, long delay, long period);
+
+    /**
+     * 在擁有指定區塊的執行緒執行任務
+     */
+    void runAt(World world, int chunkX, int chunkZ, Runnable task);
+
+    /**
+     * 在擁有指定位置的執行緒執行任務
+     */
+    default void runAt(Location location, Runnable task) {
+        runAt(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4, task);
+    }
+
+    /**
+     * 在擁有指定實體的執行緒執行任務，實體已被移除時不執行
+     */
+    void runForEntity(Entity entity, Runnable task);
+
+    /**
+     * 在擁有指定實體的執行緒定期執行任務，實體被移除時自動停止
+     * 實體已被移除時回傳 null
+     */
+    SchedulerTask runForEntityTimer(Entity entity, Consumer<SchedulerTask> task, long delay, long period);
+
+    /**
+     * 在非同步執行緒執行任務
+     */
+    void runAsync(Runnable task);
+
+    /**
+     * 取消此插件的所有任務
+     */
+    void cancelAll();
+
+    /**
+     * 依伺服器類型建立排程器
+     */
+    static TaskScheduler create(Plugin plugin) {
+        if (isFolia()) {
+            return new FoliaTaskScheduler(plugin);
+        }
+        return new BukkitTaskScheduler(plugin);
+    }
+
+    /**
+     * 檢查是否在 Folia 上執行
+     */
+    static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package dev.twme.catenary.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 以暫存檔寫入後原子取代目標檔，寫入中途失敗或關機時原檔保持完整
+ */
+public final class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * 寫入資料的回呼，不需要關閉傳入的串流
+     */
+    @FunctionalInterface
+    public interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 寫入暫存檔並同步到磁碟，再取代目標檔
+     */
+    public static void write(File file, Writer writer) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+            BufferedOutputStream out = new BufferedOutputStream(fileOut);
+            writer.write(out);
+            out.flush();
+            fileOut.getFD().sync();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 原子寫入整份資料
+     */
+    public static void write(File file, byte[] data) throws IOException {
+        write(file, out -> out.write(data));
+    }
+}
@@ -0,0 +1,221 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Material;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 以版本化的二進位檔儲存結構
+ *
+ * <pre>
+ * 檔頭:   magic "CTNS" (int) | 版本 (byte) | 旗標 (byte, bit0 = GZIP)
+ * 內容:   字串表 (名稱、世界、材質) | 擁有者表 | 結構數量 | 結構紀錄...
+ * 紀錄:   ID | 擁有者索引 | 名稱索引 | 世界索引 | 材質索引 | 旗標 |
+ *         起點 (量化) | 終點與起點的差 (量化) | 鬆弛度 | 分段數 | 間距 | 縮放 | 旋轉
+ * </pre>
+ *
+ * 座標量化為 1/4096 方塊並以 zigzag 可變長度整數儲存，索引與分段數也是可變長度整數。
+ */
+public class BinaryStructureStore implements StructureStore {
+
+    static final int MAGIC = 0x43544E53;
+    static final int VERSION = 1;
+    private static final int FLAG_GZIP = 1;
+    private static final int RECORD_BLOCK = 1;
+    private static final int RECORD_VISIBLE = 1 << 1;
+    // 座標量化精度 (每方塊的單位數)
+    private static final double COORDINATE_SCALE = 4096.0;
+
+    private final File file;
+    private final boolean compress;
+
+    public BinaryStructureStore(File file, boolean compress) {
+        this.file = file;
+        this.compress = compress;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.exists() && file.length() > 0;
+    }
+
+    @Override
+    public List<StructureSnapshot> load() throws IOException {
+        if (!exists()) {
+            return new ArrayList<>();
+        }
+
+        try (DataInputStream header = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (header.readInt() != MAGIC) {
+                throw new IOException("Not a Catenary structure file");
+            }
+            int version = header.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported structure file version " + version);
+            }
+            int flags = header.readUnsignedByte();
+            InputStream body = (flags & FLAG_GZIP) != 0 ? new GZIPInputStream(header) : header;
+            return readBody(new DataInputStream(new BufferedInputStream(body)));
+        }
+    }
+
+    private List<StructureSnapshot> readBody(DataInputStream in) throws IOException {
+        String[] strings = new String[VarInts.readVarInt(in)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        UUID[] owners = new UUID[VarInts.readVarInt(in)];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = new UUID(in.readLong(), in.readLong());
+        }
+        // 材質表以字串索引快取解析結果
+        Map<Integer, Material> materials = new HashMap<>();
+
+        int count = VarInts.readVarInt(in);
+        List<StructureSnapshot> snapshots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            UUID ownerId = owners[VarInts.readVarInt(in)];
+            String name = strings[VarInts.readVarInt(in)];
+            String worldName = strings[VarInts.readVarInt(in)];
+            Material material = materials.computeIfAbsent(VarInts.readVarInt(in), index -> {
+                Material resolved = Material.getMaterial(strings[index]);
+                return resolved == null ? Material.CHAIN : resolved;
+            });
+            int flags = in.readUnsignedByte();
+
+            long startX = VarInts.readSignedVarLong(in);
+            long startY = VarInts.readSignedVarLong(in);
+            long startZ = VarInts.readSignedVarLong(in);
+            long endX = startX + VarInts.readSignedVarLong(in);
+            long endY = startY + VarInts.readSignedVarLong(in);
+            long endZ = startZ + VarInts.readSignedVarLong(in);
+
+            double slack = in.readDouble();
+            int segments = VarInts.readVarInt(in);
+            double spacing = in.readDouble();
+            float scale = in.readFloat();
+            float rotationX = in.readFloat();
+            float rotationY = in.readFloat();
+            float rotationZ = in.readFloat();
+
+            snapshots.add(new StructureSnapshot(
+                id, ownerId, name, worldName,
+                new Vector3D(dequantize(startX), dequantize(startY), dequantize(startZ)),
+                new Vector3D(dequantize(endX), dequantize(endY), dequantize(endZ)),
+                slack, segments, spacing, material,
+                (flags & RECORD_BLOCK) != 0, scale, rotationX, rotationY, rotationZ,
+                (flags & RECORD_VISIBLE) != 0
+            ));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public void save(Collection<StructureSnapshot> snapshots) throws IOException {
+        // 先建立字串表與擁有者表
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        Map<UUID, Integer> ownerIndex = new HashMap<>();
+        List<UUID> owners = new ArrayList<>();
+        for (StructureSnapshot snapshot : snapshots) {
+            intern(snapshot.getName(), stringIndex, strings);
+            intern(snapshot.getWorldName(), stringIndex, strings);
+            intern(snapshot.getMaterial().name(), stringIndex, strings);
+            intern(snapshot.getOwnerId(), ownerIndex, owners);
+        }
+
+        AtomicFiles.write(file, raw -> {
+            DataOutputStream header = new DataOutputStream(raw);
+            header.writeInt(MAGIC);
+            header.writeByte(VERSION);
+            header.writeByte(compress ? FLAG_GZIP : 0);
+
+            OutputStream body = compress ? new GZIPOutputStream(header) : header;
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(body));
+
+            VarInts.writeVarInt(out, strings.size());
+            for (String value : strings) {
+                out.writeUTF(value);
+            }
+            VarInts.writeVarInt(out, owners.size());
+            for (UUID owner : owners) {
+                out.writeLong(owner.getMostSignificantBits());
+                out.writeLong(owner.getLeastSignificantBits());
+            }
+
+            VarInts.writeVarInt(out, snapshots.size());
+            for (StructureSnapshot snapshot : snapshots) {
+                out.writeLong(snapshot.getId().getMostSignificantBits());
+                out.writeLong(snapshot.getId().getLeastSignificantBits());
+                VarInts.writeVarInt(out, ownerIndex.get(snapshot.getOwnerId()));
+                VarInts.writeVarInt(out, stringIndex.get(snapshot.getName()));
+                VarInts.writeVarInt(out, stringIndex.get(snapshot.getWorldName()));
+                VarInts.writeVarInt(out, stringIndex.get(snapshot.getMaterial().name()));
+                out.writeByte((snapshot.isBlock() ? RECORD_BLOCK : 0) | (snapshot.isVisible() ? RECORD_VISIBLE : 0));
+
+                long startX = quantize(snapshot.getStart().getX());
+                long startY = quantize(snapshot.getStart().getY());
+                long startZ = quantize(snapshot.getStart().getZ());
+                VarInts.writeSignedVarLong(out, startX);
+                VarInts.writeSignedVarLong(out, startY);
+                VarInts.writeSignedVarLong(out, startZ);
+                VarInts.writeSignedVarLong(out, quantize(snapshot.getEnd().getX()) - startX);
+                VarInts.writeSignedVarLong(out, quantize(snapshot.getEnd().getY()) - startY);
+                VarInts.writeSignedVarLong(out, quantize(snapshot.getEnd().getZ()) - startZ);
+
+                out.writeDouble(snapshot.getSlack());
+                VarInts.writeVarInt(out, snapshot.getSegments());
+                out.writeDouble(snapshot.getSpacing());
+                out.writeFloat(snapshot.getScale());
+                out.writeFloat(snapshot.getRotationX());
+                out.writeFloat(snapshot.getRotationY());
+                out.writeFloat(snapshot.getRotationZ());
+            }
+
+            // 結束壓縮串流，檔案由 AtomicFiles 關閉
+            out.flush();
+            if (body instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+        });
+    }
+
+    @Override
+    public String describe() {
+        return file.getName() + (compress ? " (gzip)" : "");
+    }
+
+    private static <T> void intern(T value, Map<T, Integer> index, List<T> values) {
+        if (!index.containsKey(value)) {
+            index.put(value, values.size());
+            values.add(value);
+        }
+    }
+
+    private static long quantize(double value) {
+        return Math.round(value * COORDINATE_SCALE);
+    }
+
+    private static double dequantize(long value) {
+        return value / COORDINATE_SCALE;
+    }
+}
@@ -0,0 +1,82 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.Catenary;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 依區塊的載入與卸載綁定區塊資料中的結構
+ * 區塊載入時在擁有該區塊的執行緒上讀取結構，交給寫入執行緒加入管理並排入渲染；
+ * 區塊卸載前先寫入尚未套用的變更，再釋放起點在此區塊的結構。
+ */
+public class ChunkResidency implements Listener {
+
+    private final Catenary plugin;
+    private final StructureManager structureManager;
+    private final ChunkStructureStore store;
+
+    public ChunkResidency(Catenary plugin, StructureManager structureManager, ChunkStructureStore store) {
+        this.plugin = plugin;
+        this.structureManager = structureManager;
+        this.store = store;
+    }
+
+    /**
+     * 開始追蹤區塊，並讀取目前已載入的區塊
+     */
+    public void start() {
+        HandlerList.unregisterAll(this);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                plugin.getTaskScheduler().runAt(world, chunk.getX(), chunk.getZ(), () -> {
+                    if (chunk.isLoaded()) {
+                        bind(chunk);
+                    }
+                });
+            }
+        }
+    }
+
+    public void stop() {
+        HandlerList.unregisterAll(this);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        bind(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        Chunk chunk = event.getChunk();
+        store.flushLoaded(chunk);
+        List<UUID> ids = new ArrayList<>(store.forget(chunk));
+        if (!ids.isEmpty()) {
+            plugin.getWriteBehind().execute(() -> structureManager.evict(ids));
+        }
+    }
+
+    /**
+     * 在擁有區塊的執行緒上讀取結構，交給寫入執行緒加入管理
+     */
+    private void bind(Chunk chunk) {
+        List<StructureSnapshot> snapshots = store.read(chunk);
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        plugin.getWriteBehind().execute(() -> structureManager.admitAndRender(snapshots));
+    }
+}
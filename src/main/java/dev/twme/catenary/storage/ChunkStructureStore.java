@@ -0,0 +1,390 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.Catenary;
+import dev.twme.catenary.model.StructureSnapshot;
+import dev.twme.catenary.scheduler.TaskScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 將結構保存在區塊的 PersistentDataContainer 中
+ * 每個結構的定義存放在起點所在的區塊 (catenary:structures)，隨區塊由伺服器的非同步區塊存取一起讀寫，
+ * 插件不會讀寫任何全域檔案。區塊資料只能在擁有該區塊的執行緒上存取，因此寫入執行緒上的變更
+ * 會依區塊合併後交給該區塊的執行緒套用；關閉時尚未套用的變更在呼叫的執行緒上同步寫入。
+ *
+ * <pre>
+ * 區塊資料: 版本 (byte) | 結構數量 (varint) | 結構...
+ * </pre>
+ *
+ * 結構只存在於區塊中，無法在不載入所有區塊的情況下列出全部結構，因此不支援完整讀取與匯出。
+ */
+public class ChunkStructureStore implements StructureStore {
+
+    private static final int VERSION = 1;
+
+    private final Catenary plugin;
+    private final NamespacedKey key;
+    // 已載入區塊中結構所在的區塊，用於移動與刪除時找到舊的區塊；區塊卸載時移除
+    private final Map<UUID, ChunkKey> homeOf = new ConcurrentHashMap<>();
+    private final Map<ChunkKey, Set<UUID>> residents = new ConcurrentHashMap<>();
+    // 各區塊尚未套用的變更，值為空表示已移除
+    private final Map<ChunkKey, Map<UUID, Optional<StructureSnapshot>>> pendingWrites = new ConcurrentHashMap<>();
+
+    public ChunkStructureStore(Catenary plugin) {
+        this.plugin = plugin;
+        this.key = plugin.getNamespacedKey("structures");
+    }
+
+    /**
+     * 資料分散在區塊中，無法事先確認是否存在
+     */
+    @Override
+    public boolean exists() {
+        return false;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public List<StructureSnapshot> load() throws IOException {
+        throw new IOException("chunk storage keeps structures inside chunks and cannot list unloaded chunks");
+    }
+
+    /**
+     * 寫入完整的結構集合，只用於從其他格式轉換
+     * 必須在主執行緒上呼叫，區塊會同步載入並立即寫入；任何結構的世界尚未載入時不寫入並丟出例外
+     */
+    @Override
+    public void save(Collection<StructureSnapshot> snapshots) throws IOException {
+        if (TaskScheduler.isFolia() || !Bukkit.isPrimaryThread()) {
+            throw new IOException("migrating into chunk storage must run on the main thread of a non-Folia server");
+        }
+        Map<UUID, Optional<StructureSnapshot>> changes = new LinkedHashMap<>();
+        for (StructureSnapshot snapshot : snapshots) {
+            // 尚未載入的世界無法寫入區塊，轉換必須完整成功才能取代原本的資料
+            if (Bukkit.getWorld(snapshot.getWorldName()) == null) {
+                throw new IOException("world " + snapshot.getWorldName() + " is not loaded, cannot write its structures into chunks");
+            }
+            changes.put(snapshot.getId(), Optional.of(snapshot));
+        }
+        queue(changes);
+        drain();
+    }
+
+    /**
+     * 依區塊合併變更，交給擁有區塊的執行緒套用
+     */
+    @Override
+    public void saveChanges(Map<UUID, Optional<StructureSnapshot>> changes,
+                            Collection<StructureSnapshot> snapshots) {
+        for (ChunkKey chunk : queue(changes)) {
+            World world = Bukkit.getWorld(chunk.getWorldName());
+            if (world == null) {
+                plugin.getLogger().warning("Cannot save structures into chunk " + chunk + ": world is not loaded");
+                continue;
+            }
+            plugin.getTaskScheduler().runAt(world, chunk.getX(), chunk.getZ(), () -> flushAsync(world, chunk));
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "chunk data";
+    }
+
+    /**
+     * 同步寫入所有尚未套用的變更，在外掛停用時於主執行緒上呼叫
+     */
+    @Override
+    public void close() {
+        drain();
+    }
+
+    /**
+     * 讀取區塊中的結構，並套用尚未寫入此區塊的變更
+     * 在擁有該區塊的執行緒上呼叫
+     */
+    List<StructureSnapshot> read(Chunk chunk) {
+        ChunkKey chunkKey = ChunkKey.of(chunk);
+        Map<UUID, StructureSnapshot> stored = decode(chunk.getPersistentDataContainer().get(key, PersistentDataType.BYTE_ARRAY), chunkKey);
+        Map<UUID, Optional<StructureSnapshot>> pending = pendingWrites.get(chunkKey);
+        if (pending != null) {
+            synchronized (pending) {
+                apply(stored, pending);
+            }
+        }
+        for (UUID id : stored.keySet()) {
+            setHome(id, chunkKey);
+        }
+        return new ArrayList<>(stored.values());
+    }
+
+    /**
+     * 區塊卸載時停止追蹤起點在此區塊的結構
+     *
+     * @return 起點在此區塊的結構
+     */
+    synchronized Set<UUID> forget(Chunk chunk) {
+        Set<UUID> ids = residents.remove(ChunkKey.of(chunk));
+        if (ids == null) {
+            return Collections.emptySet();
+        }
+        for (UUID id : ids) {
+            homeOf.remove(id);
+        }
+        return ids;
+    }
+
+    /**
+     * 將區塊尚未套用的變更立即寫入，在區塊卸載前於擁有該區塊的執行緒上呼叫
+     */
+    void flushLoaded(Chunk chunk) {
+        Map<UUID, Optional<StructureSnapshot>> pending = take(ChunkKey.of(chunk));
+        if (pending != null) {
+            write(chunk, pending);
+        }
+    }
+
+    /**
+     * 將變更加入所在區塊的待寫入集合
+     *
+     * @return 原本沒有待寫入變更、需要排程寫入的區塊
+     */
+    private synchronized Set<ChunkKey> queue(Map<UUID, Optional<StructureSnapshot>> changes) {
+        Map<ChunkKey, Map<UUID, Optional<StructureSnapshot>>> byChunk = new HashMap<>();
+        for (Map.Entry<UUID, Optional<StructureSnapshot>> change : changes.entrySet()) {
+            UUID id = change.getKey();
+            ChunkKey previous = homeOf.get(id);
+            if (change.getValue().isPresent()) {
+                ChunkKey home = ChunkKey.of(change.getValue().get());
+                if (previous != null && !previous.equals(home)) {
+                    byChunk.computeIfAbsent(previous, k -> new LinkedHashMap<>()).put(id, Optional.empty());
+                }
+                byChunk.computeIfAbsent(home, k -> new LinkedHashMap<>()).put(id, change.getValue());
+                setHome(id, home);
+            } else if (previous != null) {
+                byChunk.computeIfAbsent(previous, k -> new LinkedHashMap<>()).put(id, Optional.empty());
+                clearHome(id);
+            }
+        }
+
+        Set<ChunkKey> scheduled = new HashSet<>();
+        for (Map.Entry<ChunkKey, Map<UUID, Optional<StructureSnapshot>>> entry : byChunk.entrySet()) {
+            Map<UUID, Optional<StructureSnapshot>> pending = pendingWrites.get(entry.getKey());
+            if (pending == null) {
+                pendingWrites.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+                scheduled.add(entry.getKey());
+            } else {
+                synchronized (pending) {
+                    pending.putAll(entry.getValue());
+                }
+            }
+        }
+        return scheduled;
+    }
+
+    /**
+     * 在擁有區塊的執行緒上套用變更；區塊未載入時透過伺服器的非同步區塊載入取得
+     */
+    private void flushAsync(World world, ChunkKey chunk) {
+        if (world.isChunkLoaded(chunk.getX(), chunk.getZ())) {
+            flushInto(world.getChunkAt(chunk.getX(), chunk.getZ()));
+            return;
+        }
+        world.getChunkAtAsync(chunk.getX(), chunk.getZ()).thenAccept(this::flushInto);
+    }
+
+    private void flushInto(Chunk chunk) {
+        Map<UUID, Optional<StructureSnapshot>> pending = take(ChunkKey.of(chunk));
+        if (pending != null) {
+            write(chunk, pending);
+        }
+    }
+
+    private synchronized void setHome(UUID id, ChunkKey home) {
+        ChunkKey previous = homeOf.put(id, home);
+        if (previous != null && !previous.equals(home)) {
+            Set<UUID> ids = residents.get(previous);
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+        residents.computeIfAbsent(home, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private synchronized void clearHome(UUID id) {
+        ChunkKey previous = homeOf.remove(id);
+        if (previous != null) {
+            Set<UUID> ids = residents.get(previous);
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
+    }
+
+    /**
+     * 取出區塊的待寫入變更，與 queue 互斥以免變更加入已取出的集合
+     */
+    private synchronized Map<UUID, Optional<StructureSnapshot>> take(ChunkKey chunk) {
+        return pendingWrites.remove(chunk);
+    }
+
+    /**
+     * 在呼叫的執行緒上寫入所有待寫入的區塊，必要時同步載入區塊
+     */
+    private void drain() {
+        for (ChunkKey chunk : new ArrayList<>(pendingWrites.keySet())) {
+            World world = Bukkit.getWorld(chunk.getWorldName());
+            if (world == null) {
+                plugin.getLogger().warning("Dropping structure changes for chunk " + chunk + ": world is not loaded");
+                take(chunk);
+                continue;
+            }
+            flushInto(world.getChunkAt(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    private void write(Chunk chunk, Map<UUID, Optional<StructureSnapshot>> changes) {
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+        ChunkKey chunkKey = ChunkKey.of(chunk);
+        Map<UUID, StructureSnapshot> stored = decode(container.get(key, PersistentDataType.BYTE_ARRAY), chunkKey);
+        apply(stored, changes);
+        if (stored.isEmpty()) {
+            container.remove(key);
+            return;
+        }
+        try {
+            container.set(key, PersistentDataType.BYTE_ARRAY, encode(stored.values()));
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not encode structures for chunk " + chunkKey + ": " + e.getMessage());
+        }
+    }
+
+    private static void apply(Map<UUID, StructureSnapshot> stored, Map<UUID, Optional<StructureSnapshot>> changes) {
+        for (Map.Entry<UUID, Optional<StructureSnapshot>> change : changes.entrySet()) {
+            if (change.getValue().isPresent()) {
+                stored.put(change.getKey(), change.getValue().get());
+            } else {
+                stored.remove(change.getKey());
+            }
+        }
+    }
+
+    private Map<UUID, StructureSnapshot> decode(byte[] data, ChunkKey chunkKey) {
+        Map<UUID, StructureSnapshot> snapshots = new LinkedHashMap<>();
+        if (data == null) {
+            return snapshots;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("unsupported version " + version);
+            }
+            int count = VarInts.readVarInt(in);
+            for (int i = 0; i < count; i++) {
+                StructureSnapshot snapshot = SnapshotCodec.read(in);
+                snapshots.put(snapshot.getId(), snapshot);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not read structures in chunk " + chunkKey + ": " + e.getMessage());
+        }
+        return snapshots;
+    }
+
+    private static byte[] encode(Collection<StructureSnapshot> snapshots) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        VarInts.writeVarInt(out, snapshots.size());
+        for (StructureSnapshot snapshot : snapshots) {
+            SnapshotCodec.write(out, snapshot);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 區塊座標
+     */
+    static final class ChunkKey {
+        private final String worldName;
+        private final int x;
+        private final int z;
+
+        ChunkKey(String worldName, int x, int z) {
+            this.worldName = worldName;
+            this.x = x;
+            this.z = z;
+        }
+
+        static ChunkKey of(Chunk chunk) {
+            return new ChunkKey(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+        }
+
+        /**
+         * 結構起點所在的區塊
+         */
+        static ChunkKey of(StructureSnapshot snapshot) {
+            return new ChunkKey(snapshot.getWorldName(),
+                (int) Math.floor(snapshot.getStart().getX()) >> 4, (int) Math.floor(snapshot.getStart().getZ()) >> 4);
+        }
+
+        String getWorldName() {
+            return worldName;
+        }
+
+        int getX() {
+            return x;
+        }
+
+        int getZ() {
+            return z;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ChunkKey other)) {
+                return false;
+            }
+            return x == other.x && z == other.z && worldName.equals(other.worldName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * worldName.hashCode() + x) + z;
+        }
+
+        @Override
+        public String toString() {
+            return worldName + "[" + x + ", " + z + "]";
+        }
+    }
+}
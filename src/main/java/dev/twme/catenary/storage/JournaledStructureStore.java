@@ -0,0 +1,202 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * 快照加上僅附加變更日誌的儲存
+ * 每次變更只在日誌尾端附加新增、更新或刪除紀錄，寫入量與結構總數無關；
+ * 日誌超過門檻時在寫入執行緒上寫出新的快照並清空日誌。
+ *
+ * <pre>
+ * 日誌:   magic "CTNJ" (int) | 版本 (byte) | 紀錄...
+ * 紀錄:   類型 (byte) | 內容長度 (int) | 內容 | CRC32 (int)
+ * </pre>
+ *
+ * 啟動時先讀取快照再依序重播日誌；尾端不完整或校驗失敗的紀錄視為寫入中斷而捨棄。
+ */
+public class JournaledStructureStore implements StructureStore {
+
+    private static final int MAGIC = 0x43544E4A;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_DELETE = 2;
+
+    private final StructureStore snapshotStore;
+    private final File journalFile;
+    private final long compactThreshold;
+    private final Logger logger;
+
+    public JournaledStructureStore(StructureStore snapshotStore, File journalFile, long compactThreshold, Logger logger) {
+        this.snapshotStore = snapshotStore;
+        this.journalFile = journalFile;
+        this.compactThreshold = compactThreshold;
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean exists() {
+        return snapshotStore.exists() || journalFile.length() > HEADER_SIZE;
+    }
+
+    @Override
+    public List<StructureSnapshot> load() throws IOException {
+        Map<UUID, StructureSnapshot> snapshots = new LinkedHashMap<>();
+        for (StructureSnapshot snapshot : snapshotStore.load()) {
+            snapshots.put(snapshot.getId(), snapshot);
+        }
+        if (!journalFile.exists()) {
+            return new ArrayList<>(snapshots.values());
+        }
+
+        long validLength = HEADER_SIZE;
+        int replayed = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            if (journalFile.length() < HEADER_SIZE) {
+                validLength = 0;
+            } else {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a Catenary journal file");
+                }
+                int version = in.readUnsignedByte();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported journal version " + version);
+                }
+
+                while (true) {
+                    byte type;
+                    byte[] payload;
+                    try {
+                        type = in.readByte();
+                        int length = in.readInt();
+                        if (length < 0 || length > journalFile.length()) {
+                            break;
+                        }
+                        payload = new byte[length];
+                        in.readFully(payload);
+                        if (in.readInt() != checksum(type, payload)) {
+                            break;
+                        }
+                    } catch (EOFException e) {
+                        break;
+                    }
+
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                    if (type == RECORD_PUT) {
+                        StructureSnapshot snapshot = SnapshotCodec.read(record);
+                        snapshots.put(snapshot.getId(), snapshot);
+                    } else if (type == RECORD_DELETE) {
+                        snapshots.remove(new UUID(record.readLong(), record.readLong()));
+                    } else {
+                        break;
+                    }
+                    validLength += 1 + 4 + payload.length + 4;
+                    replayed++;
+                }
+            }
+        }
+
+        // 捨棄寫入中斷的尾端，之後的紀錄才能接在有效紀錄之後
+        if (validLength < journalFile.length()) {
+            logger.warning("Discarding " + (journalFile.length() - validLength) + " bytes of incomplete journal data");
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.setLength(validLength);
+            }
+        }
+        if (replayed > 0) {
+            logger.info("Replayed " + replayed + " journal records");
+        }
+        return new ArrayList<>(snapshots.values());
+    }
+
+    /**
+     * 寫出完整快照並清空日誌
+     */
+    @Override
+    public void save(Collection<StructureSnapshot> snapshots) throws IOException {
+        snapshotStore.save(snapshots);
+        // 快照已包含所有變更；若在此之前中斷，重播日誌的結果與快照相同
+        AtomicFiles.write(journalFile, this::writeHeader);
+    }
+
+    /**
+     * 將變更附加到日誌，超過門檻時壓縮
+     */
+    @Override
+    public void saveChanges(Map<UUID, Optional<StructureSnapshot>> changes, Collection<StructureSnapshot> snapshots) throws IOException {
+        if (journalFile.length() < HEADER_SIZE) {
+            AtomicFiles.write(journalFile, this::writeHeader);
+        }
+
+        try (FileOutputStream fileOut = new FileOutputStream(journalFile, true)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            for (Map.Entry<UUID, Optional<StructureSnapshot>> change : changes.entrySet()) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+                DataOutputStream record = new DataOutputStream(buffer);
+                byte type;
+                if (change.getValue().isPresent()) {
+                    type = RECORD_PUT;
+                    SnapshotCodec.write(record, change.getValue().get());
+                } else {
+                    type = RECORD_DELETE;
+                    record.writeLong(change.getKey().getMostSignificantBits());
+                    record.writeLong(change.getKey().getLeastSignificantBits());
+                }
+                byte[] payload = buffer.toByteArray();
+                out.writeByte(type);
+                out.writeInt(payload.length);
+                out.write(payload);
+                out.writeInt(checksum(type, payload));
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+
+        if (journalFile.length() > compactThreshold) {
+            long journalSize = journalFile.length();
+            save(snapshots);
+            logger.info("Compacted " + journalSize + " byte journal into " + snapshotStore.describe());
+        }
+    }
+
+    @Override
+    public String describe() {
+        return snapshotStore.describe() + " + " + journalFile.getName();
+    }
+
+    private void writeHeader(OutputStream raw) throws IOException {
+        DataOutputStream out = new DataOutputStream(raw);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,698 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Material;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 以記憶體映射檔儲存固定寬度結構紀錄
+ * 紀錄常駐在作業系統的頁面快取而非 Java 堆積；查詢透過可重複使用的輕量檢視直接讀取映射區，
+ * 只有符合條件的紀錄才會建立快照。搭配區域載入時，只有玩家附近的結構會成為堆積上的物件。
+ *
+ * <pre>
+ * 檔頭 (64 位元組): magic "CTNM" | 版本 | 紀錄大小 | 紀錄數量
+ * 紀錄 (192 位元組): 旗標 | ID | 擁有者 | 世界索引 | 材質索引 | 起點 | 終點 | 鬆弛度 | 分段數 | 間距 |
+ *                   縮放 | 旋轉 | 名稱長度 | 名稱 (UTF-8，最多 67 位元組)
+ * </pre>
+ *
+ * 世界與材質名稱存放在 structures.strings，紀錄中只保存索引；超過 67 位元組的名稱同樣存放在字串表，
+ * 名稱長度記為 -1，名稱欄位保存索引。刪除時以最後一筆紀錄填補空位，紀錄保持連續。
+ * 每次寫入先將變更後的紀錄與數量寫入並同步 structures.mapped.journal，再覆寫映射區；
+ * 覆寫中途當機時，下次開啟會重新套用完整的日誌，未寫完的日誌則直接捨棄。
+ */
+public class MappedStructureStore implements RegionalStructureStore {
+
+    private static final int MAGIC = 0x43544E4D;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 192;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int JOURNAL_MAGIC = 0x43544E4A;
+
+    private static final int FLAG_BLOCK = 1;
+    private static final int FLAG_VISIBLE = 1 << 1;
+
+    // 紀錄內的欄位位移
+    private static final int OFFSET_FLAGS = 0;
+    private static final int OFFSET_ID = 4;
+    private static final int OFFSET_OWNER = 20;
+    private static final int OFFSET_WORLD = 36;
+    private static final int OFFSET_MATERIAL = 38;
+    private static final int OFFSET_START = 40;
+    private static final int OFFSET_END = 64;
+    private static final int OFFSET_SLACK = 88;
+    private static final int OFFSET_SEGMENTS = 96;
+    private static final int OFFSET_SPACING = 100;
+    private static final int OFFSET_SCALE = 108;
+    private static final int OFFSET_ROTATION = 112;
+    private static final int OFFSET_NAME = 124;
+    private static final int NAME_BYTES = RECORD_SIZE - OFFSET_NAME - 1;
+    private static final byte LONG_NAME = -1;
+
+    private final File file;
+    private final File stringsFile;
+    private final File journalFile;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final SlotIndex slots = new SlotIndex();
+    private final Record cursor = new Record();
+    // 尚未寫入的紀錄位置 -> 紀錄內容
+    private final Map<Integer, byte[]> staged = new HashMap<>();
+    private boolean stringsDirty;
+    private RandomAccessFile raf;
+    private MappedByteBuffer buffer;
+    private int count;
+
+    public MappedStructureStore(File file, File stringsFile) {
+        this.file = file;
+        this.stringsFile = stringsFile;
+        this.journalFile = new File(file.getPath() + ".journal");
+    }
+
+    @Override
+    public synchronized boolean exists() {
+        return file.length() > HEADER_SIZE;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public synchronized List<StructureSnapshot> load() throws IOException {
+        return select(record -> true);
+    }
+
+    /**
+     * 以輕量檢視逐筆讀取，不建立完整的列表
+     */
+    @Override
+    public synchronized void scan(SnapshotConsumer consumer) throws IOException {
+        open();
+        for (int slot = 0; slot < count; slot++) {
+            cursor.moveTo(slot);
+            consumer.accept(cursor.toSnapshot());
+        }
+    }
+
+    @Override
+    public synchronized List<StructureSnapshot> loadRegion(RegionKey region) throws IOException {
+        int world = indexOf(region.getWorldName());
+        if (world < 0) {
+            return new ArrayList<>();
+        }
+        return select(record -> record.world() == world
+            && ((int) Math.floor(record.startX()) >> 9) == region.getX()
+            && ((int) Math.floor(record.startZ()) >> 9) == region.getZ());
+    }
+
+    /**
+     * 紀錄不在堆積上，不需要釋放
+     */
+    @Override
+    public void unloadRegion(RegionKey region) {
+    }
+
+    @Override
+    public synchronized List<StructureSnapshot> findByOwner(UUID ownerId) throws IOException {
+        long most = ownerId.getMostSignificantBits();
+        long least = ownerId.getLeastSignificantBits();
+        return select(record -> record.ownerMost() == most && record.ownerLeast() == least);
+    }
+
+    @Override
+    public synchronized StructureSnapshot findById(UUID structureId) throws IOException {
+        open();
+        int slot = slots.get(structureId.getMostSignificantBits(), structureId.getLeastSignificantBits());
+        if (slot < 0) {
+            return null;
+        }
+        cursor.moveTo(slot);
+        return cursor.toSnapshot();
+    }
+
+    @Override
+    public synchronized List<StructureSnapshot> findByWorld(String worldName) throws IOException {
+        int world = indexOf(worldName);
+        return world < 0 ? new ArrayList<>() : select(record -> record.world() == world);
+    }
+
+    @Override
+    public synchronized void save(Collection<StructureSnapshot> snapshots) throws IOException {
+        open();
+        try {
+            count = 0;
+            slots.clear();
+            for (StructureSnapshot snapshot : snapshots) {
+                put(snapshot);
+            }
+            commit();
+        } catch (IOException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    /**
+     * 直接覆寫變更的紀錄
+     */
+    @Override
+    public synchronized void saveChanges(Map<UUID, Optional<StructureSnapshot>> changes,
+                                         Collection<StructureSnapshot> snapshots) throws IOException {
+        open();
+        try {
+            for (Map.Entry<UUID, Optional<StructureSnapshot>> change : changes.entrySet()) {
+                if (change.getValue().isPresent()) {
+                    put(change.getValue().get());
+                } else {
+                    delete(change.getKey());
+                }
+            }
+            commit();
+        } catch (IOException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    @Override
+    public String describe() {
+        return file.getName();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (raf == null) {
+            return;
+        }
+        try {
+            buffer.force();
+            raf.close();
+        } catch (IOException ignored) {
+        }
+        raf = null;
+        buffer = null;
+    }
+
+    /**
+     * 掃描所有紀錄，只為符合條件的紀錄建立快照
+     */
+    private List<StructureSnapshot> select(Predicate<Record> filter) throws IOException {
+        open();
+        List<StructureSnapshot> snapshots = new ArrayList<>();
+        for (int slot = 0; slot < count; slot++) {
+            cursor.moveTo(slot);
+            if (filter.test(cursor)) {
+                snapshots.add(cursor.toSnapshot());
+            }
+        }
+        return snapshots;
+    }
+
+    private void put(StructureSnapshot snapshot) throws IOException {
+        UUID id = snapshot.getId();
+        int slot = slots.get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (slot < 0) {
+            slot = count++;
+            slots.put(id.getMostSignificantBits(), id.getLeastSignificantBits(), slot);
+        }
+        staged.put(slot, encode(snapshot));
+    }
+
+    /**
+     * 以最後一筆紀錄填補被刪除的位置
+     */
+    private void delete(UUID id) {
+        int slot = slots.remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (slot < 0) {
+            return;
+        }
+        int last = --count;
+        byte[] moved = staged.remove(last);
+        if (slot != last) {
+            if (moved == null) {
+                moved = new byte[RECORD_SIZE];
+                buffer.get(recordOffset(last), moved);
+            }
+            staged.put(slot, moved);
+            ByteBuffer record = ByteBuffer.wrap(moved);
+            slots.put(record.getLong(OFFSET_ID), record.getLong(OFFSET_ID + 8), slot);
+        }
+    }
+
+    private byte[] encode(StructureSnapshot snapshot) throws IOException {
+        byte[] bytes = new byte[RECORD_SIZE];
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        record.putInt(OFFSET_FLAGS, (snapshot.isBlock() ? FLAG_BLOCK : 0) | (snapshot.isVisible() ? FLAG_VISIBLE : 0));
+        record.putLong(OFFSET_ID, snapshot.getId().getMostSignificantBits());
+        record.putLong(OFFSET_ID + 8, snapshot.getId().getLeastSignificantBits());
+        record.putLong(OFFSET_OWNER, snapshot.getOwnerId().getMostSignificantBits());
+        record.putLong(OFFSET_OWNER + 8, snapshot.getOwnerId().getLeastSignificantBits());
+        record.putShort(OFFSET_WORLD, shortIndex(snapshot.getWorldName()));
+        record.putShort(OFFSET_MATERIAL, shortIndex(snapshot.getMaterial().name()));
+        putVector(record, OFFSET_START, snapshot.getStart());
+        putVector(record, OFFSET_END, snapshot.getEnd());
+        record.putDouble(OFFSET_SLACK, snapshot.getSlack());
+        record.putInt(OFFSET_SEGMENTS, snapshot.getSegments());
+        record.putDouble(OFFSET_SPACING, snapshot.getSpacing());
+        record.putFloat(OFFSET_SCALE, snapshot.getScale());
+        record.putFloat(OFFSET_ROTATION, snapshot.getRotationX());
+        record.putFloat(OFFSET_ROTATION + 4, snapshot.getRotationY());
+        record.putFloat(OFFSET_ROTATION + 8, snapshot.getRotationZ());
+
+        byte[] name = snapshot.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length <= NAME_BYTES) {
+            record.put(OFFSET_NAME, (byte) name.length);
+            record.put(OFFSET_NAME + 1, name);
+        } else {
+            record.put(OFFSET_NAME, LONG_NAME);
+            record.putInt(OFFSET_NAME + 1, intern(snapshot.getName()));
+        }
+        return bytes;
+    }
+
+    private static void putVector(ByteBuffer record, int offset, Vector3D vector) {
+        record.putDouble(offset, vector.getX());
+        record.putDouble(offset + 8, vector.getY());
+        record.putDouble(offset + 16, vector.getZ());
+    }
+
+    /**
+     * 寫入字串表與日誌後，將暫存的紀錄與數量寫入映射區
+     */
+    private void commit() throws IOException {
+        staged.keySet().removeIf(slot -> slot >= count);
+        if (stringsDirty) {
+            StringBuilder table = new StringBuilder();
+            for (String value : strings) {
+                table.append(escape(value)).append('\n');
+            }
+            AtomicFiles.write(stringsFile, table.toString().getBytes(StandardCharsets.UTF_8));
+            stringsDirty = false;
+        }
+        writeJournal();
+        apply(count, staged);
+        staged.clear();
+        Files.deleteIfExists(journalFile.toPath());
+    }
+
+    /**
+     * 寫入變更的紀錄與數量，最後附上校驗碼作為完成標記，並同步到磁碟
+     */
+    private void writeJournal() throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(journalFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileOut, crc)));
+            out.writeInt(JOURNAL_MAGIC);
+            out.writeInt(count);
+            out.writeInt(staged.size());
+            for (Map.Entry<Integer, byte[]> entry : staged.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.write(entry.getValue());
+            }
+            out.flush();
+            // 校驗碼本身不計入校驗
+            new DataOutputStream(fileOut).writeLong(crc.getValue());
+            fileOut.getFD().sync();
+        }
+    }
+
+    /**
+     * 套用上次寫入中斷時留下的完整日誌；日誌不完整時映射區尚未被修改，直接捨棄
+     */
+    private void replayJournal() throws IOException {
+        if (!journalFile.exists()) {
+            return;
+        }
+        byte[] journal = Files.readAllBytes(journalFile.toPath());
+        ByteBuffer data = ByteBuffer.wrap(journal);
+        if (journal.length >= 20 && data.getInt(0) == JOURNAL_MAGIC
+                && journal.length == 20 + (long) data.getInt(8) * (4 + RECORD_SIZE)) {
+            CRC32 crc = new CRC32();
+            crc.update(journal, 0, journal.length - 8);
+            if (data.getLong(journal.length - 8) == crc.getValue()) {
+                int records = data.getInt(8);
+                Map<Integer, byte[]> changes = new HashMap<>();
+                data.position(12);
+                for (int i = 0; i < records; i++) {
+                    int slot = data.getInt();
+                    byte[] record = new byte[RECORD_SIZE];
+                    data.get(record);
+                    changes.put(slot, record);
+                }
+                apply(data.getInt(4), changes);
+            }
+        }
+        Files.delete(journalFile.toPath());
+    }
+
+    /**
+     * 先寫入紀錄再更新紀錄數量，各自同步到磁碟
+     */
+    private void apply(int records, Map<Integer, byte[]> changes) throws IOException {
+        ensureCapacity(records);
+        for (Map.Entry<Integer, byte[]> entry : changes.entrySet()) {
+            buffer.put(recordOffset(entry.getKey()), entry.getValue());
+        }
+        buffer.force();
+        buffer.putInt(12, records);
+        buffer.force();
+        count = records;
+    }
+
+    /**
+     * 捨棄未寫入的變更，下次使用時從磁碟重新開啟
+     */
+    private void discard() {
+        staged.clear();
+        close();
+    }
+
+    /**
+     * 開啟並映射檔案，第一次開啟時讀取字串表並建立 ID 索引
+     */
+    private void open() throws IOException {
+        if (raf != null) {
+            return;
+        }
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        boolean created = file.length() < HEADER_SIZE;
+        raf = new RandomAccessFile(file, "rw");
+        long size = created ? HEADER_SIZE + (long) INITIAL_CAPACITY * RECORD_SIZE : raf.length();
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(12, 0);
+            count = 0;
+        } else {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+                close();
+                throw new IOException("Unsupported mapped structure file");
+            }
+            count = buffer.getInt(12);
+        }
+
+        strings.clear();
+        stringIndex.clear();
+        stringsDirty = false;
+        if (stringsFile.exists()) {
+            for (String line : Files.readAllLines(stringsFile.toPath(), StandardCharsets.UTF_8)) {
+                String value = unescape(line);
+                stringIndex.put(value, strings.size());
+                strings.add(value);
+            }
+        }
+        replayJournal();
+        slots.clear();
+        for (int slot = 0; slot < count; slot++) {
+            cursor.moveTo(slot);
+            slots.put(cursor.idMost(), cursor.idLeast(), slot);
+        }
+    }
+
+    /**
+     * 容量不足時將檔案加倍並重新映射
+     */
+    private void ensureCapacity(int records) throws IOException {
+        long required = HEADER_SIZE + (long) records * RECORD_SIZE;
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long size = buffer.capacity();
+        while (size < required) {
+            size = HEADER_SIZE + (size - HEADER_SIZE) * 2;
+        }
+        buffer.force();
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * 取得字串索引，新的字串在寫入紀錄前一併寫入字串表，避免紀錄指向不存在的索引
+     */
+    private int intern(String value) {
+        Integer index = stringIndex.get(value);
+        if (index != null) {
+            return index;
+        }
+        strings.add(value);
+        stringIndex.put(value, strings.size() - 1);
+        stringsDirty = true;
+        return strings.size() - 1;
+    }
+
+    /**
+     * 取得世界或材質名稱的索引，紀錄中以 short 保存
+     */
+    private short shortIndex(String value) throws IOException {
+        int index = intern(value);
+        if (index > Short.MAX_VALUE) {
+            throw new IOException("Too many distinct strings for world and material names");
+        }
+        return (short) index;
+    }
+
+    private int indexOf(String value) throws IOException {
+        open();
+        Integer index = stringIndex.get(value);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 字串表以行分隔，跳脫名稱中的換行與反斜線
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String line) {
+        if (line.indexOf('\\') < 0) {
+            return line;
+        }
+        StringBuilder value = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                value.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+
+    private static int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    /**
+     * 指向單一紀錄的輕量檢視，讀取時直接存取映射區
+     */
+    private final class Record {
+        private int base;
+
+        void moveTo(int slot) {
+            base = recordOffset(slot);
+        }
+
+        long idMost() {
+            return buffer.getLong(base + OFFSET_ID);
+        }
+
+        long idLeast() {
+            return buffer.getLong(base + OFFSET_ID + 8);
+        }
+
+        long ownerMost() {
+            return buffer.getLong(base + OFFSET_OWNER);
+        }
+
+        long ownerLeast() {
+            return buffer.getLong(base + OFFSET_OWNER + 8);
+        }
+
+        int world() {
+            return buffer.getShort(base + OFFSET_WORLD);
+        }
+
+        double startX() {
+            return buffer.getDouble(base + OFFSET_START);
+        }
+
+        double startZ() {
+            return buffer.getDouble(base + OFFSET_START + 16);
+        }
+
+        double endX() {
+            return buffer.getDouble(base + OFFSET_END);
+        }
+
+        double endZ() {
+            return buffer.getDouble(base + OFFSET_END + 16);
+        }
+
+        StructureSnapshot toSnapshot() {
+            int flags = buffer.getInt(base + OFFSET_FLAGS);
+            Material material = Material.getMaterial(strings.get(buffer.getShort(base + OFFSET_MATERIAL)));
+            return new StructureSnapshot(
+                new UUID(idMost(), idLeast()),
+                new UUID(ownerMost(), ownerLeast()),
+                name(),
+                strings.get(world()),
+                vector(base + OFFSET_START),
+                vector(base + OFFSET_END),
+                buffer.getDouble(base + OFFSET_SLACK),
+                buffer.getInt(base + OFFSET_SEGMENTS),
+                buffer.getDouble(base + OFFSET_SPACING),
+                material == null ? Material.CHAIN : material,
+                (flags & FLAG_BLOCK) != 0,
+                buffer.getFloat(base + OFFSET_SCALE),
+                buffer.getFloat(base + OFFSET_ROTATION),
+                buffer.getFloat(base + OFFSET_ROTATION + 4),
+                buffer.getFloat(base + OFFSET_ROTATION + 8),
+                (flags & FLAG_VISIBLE) != 0
+            );
+        }
+
+        private String name() {
+            byte length = buffer.get(base + OFFSET_NAME);
+            if (length == LONG_NAME) {
+                return strings.get(buffer.getInt(base + OFFSET_NAME + 1));
+            }
+            byte[] name = new byte[length];
+            buffer.get(base + OFFSET_NAME + 1, name);
+            return new String(name, StandardCharsets.UTF_8);
+        }
+
+        private Vector3D vector(int offset) {
+            return new Vector3D(buffer.getDouble(offset), buffer.getDouble(offset + 8), buffer.getDouble(offset + 16));
+        }
+    }
+
+    /**
+     * 以基本型別陣列實作的 ID 到紀錄位置的開放定址雜湊表，每筆約 20 位元組
+     */
+    private static final class SlotIndex {
+        private long[] keys = new long[2 * 64];
+        private int[] values = new int[64];
+        private int size;
+
+        void clear() {
+            Arrays.fill(values, -1);
+            size = 0;
+        }
+
+        SlotIndex() {
+            clear();
+        }
+
+        int get(long most, long least) {
+            int mask = values.length - 1;
+            for (int i = hash(most, least) & mask; values[i] >= 0; i = (i + 1) & mask) {
+                if (keys[2 * i] == most && keys[2 * i + 1] == least) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long most, long least, int slot) {
+            if ((size + 1) * 2 > values.length) {
+                resize();
+            }
+            int mask = values.length - 1;
+            int i = hash(most, least) & mask;
+            while (values[i] >= 0) {
+                if (keys[2 * i] == most && keys[2 * i + 1] == least) {
+                    values[i] = slot;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[2 * i] = most;
+            keys[2 * i + 1] = least;
+            values[i] = slot;
+            size++;
+        }
+
+        /**
+         * 移除並以向後位移維持探測鏈
+         */
+        int remove(long most, long least) {
+            int mask = values.length - 1;
+            int i = hash(most, least) & mask;
+            while (values[i] >= 0 && !(keys[2 * i] == most && keys[2 * i + 1] == least)) {
+                i = (i + 1) & mask;
+            }
+            int removed = values[i];
+            if (removed < 0) {
+                return -1;
+            }
+            values[i] = -1;
+            size--;
+            for (int j = (i + 1) & mask; values[j] >= 0; j = (j + 1) & mask) {
+                int home = hash(keys[2 * j], keys[2 * j + 1]) & mask;
+                // 若 home 不在 (i, j] 之間，將 j 移到空位 i
+                if ((j > i && (home <= i || home > j)) || (j < i && (home <= i && home > j))) {
+                    keys[2 * i] = keys[2 * j];
+                    keys[2 * i + 1] = keys[2 * j + 1];
+                    values[i] = values[j];
+                    values[j] = -1;
+                    i = j;
+                }
+            }
+            return removed;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            clear();
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] >= 0) {
+                    put(oldKeys[2 * i], oldKeys[2 * i + 1], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long most, long least) {
+            long h = most ^ least;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return (int) h;
+        }
+    }
+}
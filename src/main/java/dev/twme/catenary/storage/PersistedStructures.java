@@ -0,0 +1,138 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 最近一次寫入的結構內容與尚未寫入的變更
+ * 變更可在任何執行緒上記錄；已寫入的內容只在寫入執行緒上修改
+ */
+final class PersistedStructures {
+
+    // 尚未寫入的變更，值為空表示結構已移除；在變更的執行緒上擷取快照
+    private final Map<UUID, Optional<StructureSnapshot>> pending = new ConcurrentHashMap<>();
+    // 最近一次寫入的完整內容；完整寫入的後端包含所在世界尚未載入的結構
+    private final Map<UUID, StructureSnapshot> persisted = new HashMap<>();
+
+    /**
+     * 以從儲存後端讀取的內容取代已寫入的內容
+     */
+    synchronized void reset(Collection<StructureSnapshot> snapshots) {
+        persisted.clear();
+        for (StructureSnapshot snapshot : snapshots) {
+            persisted.put(snapshot.getId(), snapshot);
+        }
+    }
+
+    /**
+     * 記錄一筆已在儲存後端中的結構
+     */
+    synchronized void put(StructureSnapshot snapshot) {
+        persisted.put(snapshot.getId(), snapshot);
+    }
+
+    synchronized void remove(UUID structureId) {
+        persisted.remove(structureId);
+    }
+
+    synchronized void removeAll(Collection<UUID> structureIds) {
+        for (UUID structureId : structureIds) {
+            persisted.remove(structureId);
+        }
+    }
+
+    /**
+     * 取得符合條件的已寫入結構
+     */
+    synchronized List<StructureSnapshot> matching(Predicate<StructureSnapshot> filter) {
+        List<StructureSnapshot> snapshots = new ArrayList<>();
+        for (StructureSnapshot snapshot : persisted.values()) {
+            if (filter.test(snapshot)) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * 取得所有已寫入結構的複本
+     */
+    synchronized List<StructureSnapshot> snapshots() {
+        return new ArrayList<>(persisted.values());
+    }
+
+    synchronized int size() {
+        return persisted.size();
+    }
+
+    /**
+     * 記錄一筆變更，取代同一結構尚未寫入的變更
+     *
+     * @param snapshot 變更後的快照，空表示已移除
+     */
+    void change(UUID structureId, Optional<StructureSnapshot> snapshot) {
+        pending.put(structureId, snapshot);
+    }
+
+    /**
+     * 將與已寫入內容不同的快照排入寫入，內容相同的結構不會重複寫入
+     * 已有尚未寫入變更的結構保留原本的變更
+     *
+     * @return 排入寫入的數量
+     */
+    synchronized int queueUnsaved(Collection<StructureSnapshot> snapshots) {
+        int queued = 0;
+        for (StructureSnapshot snapshot : snapshots) {
+            if (!snapshot.equals(persisted.get(snapshot.getId()))
+                    && pending.putIfAbsent(snapshot.getId(), Optional.of(snapshot)) == null) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * 取得尚未寫入的變更，不可修改
+     */
+    Map<UUID, Optional<StructureSnapshot>> getPending() {
+        return Collections.unmodifiableMap(pending);
+    }
+
+    /**
+     * 將尚未寫入的變更套用到已寫入的內容並交給儲存後端，在寫入執行緒上呼叫
+     * 寫入失敗時變更仍視為已套用，下一次的完整寫入會包含它們
+     *
+     * @return 寫入的變更數量
+     */
+    synchronized int write(StructureStore store) throws IOException {
+        Map<UUID, Optional<StructureSnapshot>> changes = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Optional<StructureSnapshot>> entry : pending.entrySet()) {
+            // 只移除已讀取的值，寫入期間的新變更留待下一次
+            if (!pending.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            if (entry.getValue().isPresent()) {
+                persisted.put(entry.getKey(), entry.getValue().get());
+            } else {
+                persisted.remove(entry.getKey());
+            }
+            changes.put(entry.getKey(), entry.getValue());
+        }
+        if (!changes.isEmpty()) {
+            store.saveChanges(changes, persisted.values());
+        }
+        return changes.size();
+    }
+}
@@ -0,0 +1,291 @@
+package dev.twme.catenary.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 區域儲存的側索引，記錄每個結構的擁有者與所在區域
+ * 每個擁有者一個 owners/&lt;UUID&gt;.idx，另以 ID 的第一個位元組分成 256 個 ids/&lt;xx&gt;.idx。
+ * 查詢與寫入只讀寫相關的小檔，不需要讀取區域檔，也不在記憶體中保存所有結構。
+ */
+final class RegionIndex {
+
+    private static final int VERSION = 1;
+    private static final int BUCKETS = 256;
+
+    private final File root;
+
+    RegionIndex(File root) {
+        this.root = root;
+    }
+
+    /**
+     * 索引是否已建立；建立時先寫入暫存目錄再改名，存在即表示完整
+     */
+    boolean exists() {
+        return root.isDirectory();
+    }
+
+    /**
+     * 以完整的結構集合重建索引
+     */
+    void rebuild(Iterable<Entry> entries) throws IOException {
+        File temp = new File(root.getParentFile(), root.getName() + ".tmp");
+        deleteTree(temp);
+        Map<Integer, Map<UUID, Entry>> buckets = new HashMap<>();
+        Map<UUID, Map<UUID, RegionKey>> owners = new HashMap<>();
+        for (Entry entry : entries) {
+            buckets.computeIfAbsent(bucket(entry.id), key -> new LinkedHashMap<>()).put(entry.id, entry);
+            owners.computeIfAbsent(entry.ownerId, key -> new LinkedHashMap<>()).put(entry.id, entry.region);
+        }
+        RegionIndex staging = new RegionIndex(temp);
+        Files.createDirectories(temp.toPath());
+        for (Map.Entry<Integer, Map<UUID, Entry>> bucket : buckets.entrySet()) {
+            staging.writeBucket(bucket.getKey(), bucket.getValue());
+        }
+        for (Map.Entry<UUID, Map<UUID, RegionKey>> owned : owners.entrySet()) {
+            staging.writeOwner(owned.getKey(), owned.getValue());
+        }
+        deleteTree(root);
+        Files.move(temp.toPath(), root.toPath());
+    }
+
+    /**
+     * 取得擁有者所有結構所在的區域
+     */
+    Map<UUID, RegionKey> owned(UUID ownerId) throws IOException {
+        return readOwner(ownerId);
+    }
+
+    /**
+     * 取得結構的擁有者與所在區域，找不到時為 null
+     */
+    Entry find(UUID structureId) throws IOException {
+        return readBucket(bucket(structureId)).get(structureId);
+    }
+
+    /**
+     * 開始一批修改，讀過的檔案在這一批中重複使用
+     */
+    Batch edit() {
+        return new Batch();
+    }
+
+    /**
+     * 一批索引修改，呼叫 {@link #commit()} 後只重寫有變更的檔案
+     */
+    final class Batch {
+        private final Map<Integer, Map<UUID, Entry>> buckets = new HashMap<>();
+        private final Map<UUID, Map<UUID, RegionKey>> owners = new HashMap<>();
+        private final Set<Integer> dirtyBuckets = new HashSet<>();
+        private final Set<UUID> dirtyOwners = new HashSet<>();
+
+        Entry get(UUID structureId) throws IOException {
+            return bucket(structureId).get(structureId);
+        }
+
+        void put(UUID structureId, UUID ownerId, RegionKey region) throws IOException {
+            Entry previous = get(structureId);
+            if (previous != null && previous.ownerId.equals(ownerId) && previous.region.equals(region)) {
+                return;
+            }
+            if (previous != null && !previous.ownerId.equals(ownerId)) {
+                owner(previous.ownerId).remove(structureId);
+                dirtyOwners.add(previous.ownerId);
+            }
+            bucket(structureId).put(structureId, new Entry(structureId, ownerId, region));
+            dirtyBuckets.add(RegionIndex.bucket(structureId));
+            owner(ownerId).put(structureId, region);
+            dirtyOwners.add(ownerId);
+        }
+
+        void remove(UUID structureId) throws IOException {
+            Entry previous = bucket(structureId).remove(structureId);
+            if (previous == null) {
+                return;
+            }
+            dirtyBuckets.add(RegionIndex.bucket(structureId));
+            owner(previous.ownerId).remove(structureId);
+            dirtyOwners.add(previous.ownerId);
+        }
+
+        void commit() throws IOException {
+            Files.createDirectories(root.toPath());
+            for (int bucket : dirtyBuckets) {
+                writeBucket(bucket, buckets.get(bucket));
+            }
+            for (UUID ownerId : dirtyOwners) {
+                writeOwner(ownerId, owners.get(ownerId));
+            }
+            dirtyBuckets.clear();
+            dirtyOwners.clear();
+        }
+
+        private Map<UUID, Entry> bucket(UUID structureId) throws IOException {
+            int bucket = RegionIndex.bucket(structureId);
+            Map<UUID, Entry> entries = buckets.get(bucket);
+            if (entries == null) {
+                entries = readBucket(bucket);
+                buckets.put(bucket, entries);
+            }
+            return entries;
+        }
+
+        private Map<UUID, RegionKey> owner(UUID ownerId) throws IOException {
+            Map<UUID, RegionKey> owned = owners.get(ownerId);
+            if (owned == null) {
+                owned = readOwner(ownerId);
+                owners.put(ownerId, owned);
+            }
+            return owned;
+        }
+    }
+
+    /**
+     * 索引中的一筆結構
+     */
+    static final class Entry {
+        final UUID id;
+        final UUID ownerId;
+        final RegionKey region;
+
+        Entry(UUID id, UUID ownerId, RegionKey region) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.region = region;
+        }
+    }
+
+    private static int bucket(UUID structureId) {
+        return (int) (structureId.getMostSignificantBits() >>> 56) % BUCKETS;
+    }
+
+    private File bucketFile(int bucket) {
+        return new File(new File(root, "ids"), String.format("%02x.idx", bucket));
+    }
+
+    private File ownerFile(UUID ownerId) {
+        return new File(new File(root, "owners"), ownerId + ".idx");
+    }
+
+    private Map<UUID, Entry> readBucket(int bucket) throws IOException {
+        Map<UUID, Entry> entries = new LinkedHashMap<>();
+        try (DataInputStream in = open(bucketFile(bucket))) {
+            if (in == null) {
+                return entries;
+            }
+            int count = readHeader(in, bucketFile(bucket));
+            for (int i = 0; i < count; i++) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                UUID ownerId = new UUID(in.readLong(), in.readLong());
+                entries.put(id, new Entry(id, ownerId, readRegion(in)));
+            }
+        }
+        return entries;
+    }
+
+    private Map<UUID, RegionKey> readOwner(UUID ownerId) throws IOException {
+        Map<UUID, RegionKey> owned = new LinkedHashMap<>();
+        try (DataInputStream in = open(ownerFile(ownerId))) {
+            if (in == null) {
+                return owned;
+            }
+            int count = readHeader(in, ownerFile(ownerId));
+            for (int i = 0; i < count; i++) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                owned.put(id, readRegion(in));
+            }
+        }
+        return owned;
+    }
+
+    private void writeBucket(int bucket, Map<UUID, Entry> entries) throws IOException {
+        File file = bucketFile(bucket);
+        if (entries.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+        AtomicFiles.write(file, raw -> {
+            DataOutputStream out = new DataOutputStream(raw);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : entries.values()) {
+                writeId(out, entry.id);
+                writeId(out, entry.ownerId);
+                writeRegion(out, entry.region);
+            }
+            out.flush();
+        });
+    }
+
+    private void writeOwner(UUID ownerId, Map<UUID, RegionKey> owned) throws IOException {
+        File file = ownerFile(ownerId);
+        if (owned.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+        AtomicFiles.write(file, raw -> {
+            DataOutputStream out = new DataOutputStream(raw);
+            out.writeInt(VERSION);
+            out.writeInt(owned.size());
+            for (Map.Entry<UUID, RegionKey> entry : owned.entrySet()) {
+                writeId(out, entry.getKey());
+                writeRegion(out, entry.getValue());
+            }
+            out.flush();
+        });
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        try {
+            return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static int readHeader(DataInputStream in, File file) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported index version " + version + " in " + file.getName());
+        }
+        return in.readInt();
+    }
+
+    private static void writeId(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static RegionKey readRegion(DataInputStream in) throws IOException {
+        return new RegionKey(in.readUTF(), in.readInt(), in.readInt());
+    }
+
+    private static void writeRegion(DataOutputStream out, RegionKey region) throws IOException {
+        out.writeUTF(region.getWorldName());
+        out.writeInt(region.getX());
+        out.writeInt(region.getZ());
+    }
+
+    private static void deleteTree(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -0,0 +1,71 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.util.Objects;
+
+/**
+ * 世界中 32×32 區塊的區域，與原版的區域檔相同劃分
+ */
+public final class RegionKey {
+
+    private final String worldName;
+    private final int x;
+    private final int z;
+
+    public RegionKey(String worldName, int x, int z) {
+        this.worldName = worldName;
+        this.x = x;
+        this.z = z;
+    }
+
+    /**
+     * 取得區塊所在的區域
+     */
+    public static RegionKey ofChunk(String worldName, int chunkX, int chunkZ) {
+        return new RegionKey(worldName, chunkX >> 5, chunkZ >> 5);
+    }
+
+    /**
+     * 取得方塊座標所在的區域
+     */
+    public static RegionKey ofBlock(String worldName, double x, double z) {
+        return new RegionKey(worldName, (int) Math.floor(x) >> 9, (int) Math.floor(z) >> 9);
+    }
+
+    /**
+     * 取得結構所屬的區域，以起點為準
+     */
+    public static RegionKey of(StructureSnapshot snapshot) {
+        return ofBlock(snapshot.getWorldName(), snapshot.getStart().getX(), snapshot.getStart().getZ());
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RegionKey other)) return false;
+        return x == other.x && z == other.z && worldName.equals(other.worldName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(worldName, x, z);
+    }
+
+    @Override
+    public String toString() {
+        return worldName + "/r." + x + "." + z;
+    }
+}
@@ -0,0 +1,238 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.Catenary;
+import dev.twme.catenary.config.ConfigManager;
+import dev.twme.catenary.model.CatenaryStructure;
+import dev.twme.catenary.scheduler.SchedulerTask;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 依玩家活動載入與釋放區域內的結構
+ * 區域在其中的區塊載入或有玩家接近時載入；沒有玩家接近超過 storage.region.unloadDelaySeconds 後釋放，
+ * 結構只保留在儲存後端中，再次接近時重新讀取。讀檔與釋放都在寫入執行緒上進行，與寫入依序執行。
+ */
+public class RegionResidency implements Listener {
+
+    // 檢查玩家位置與閒置區域的間隔 (刻)
+    private static final long CHECK_PERIOD_TICKS = 100;
+
+    private final Catenary plugin;
+    private final StructureManager structureManager;
+    private final RegionalStructureStore store;
+    // 已載入的區域與最後一次有玩家接近的時間
+    private final Map<RegionKey, AtomicLong> residentRegions = new ConcurrentHashMap<>();
+    // 已排程載入、尚未完成的區域
+    private final Set<RegionKey> loadingRegions = ConcurrentHashMap.newKeySet();
+    // 啟用後累計的載入與釋放次數
+    private final AtomicLong regionLoads = new AtomicLong();
+    private final AtomicLong regionEvictions = new AtomicLong();
+    private final AtomicLong structureEvictions = new AtomicLong();
+    private SchedulerTask checkTask;
+
+    public RegionResidency(Catenary plugin, StructureManager structureManager, RegionalStructureStore store) {
+        this.plugin = plugin;
+        this.structureManager = structureManager;
+        this.store = store;
+    }
+
+    /**
+     * 開始追蹤區域，並載入目前已載入區塊所在的區域
+     */
+    public void start() {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                request(RegionKey.ofChunk(world.getName(), chunk.getX(), chunk.getZ()));
+            }
+        }
+        checkTask = plugin.getTaskScheduler().runGlobalTimer(task -> check(), CHECK_PERIOD_TICKS, CHECK_PERIOD_TICKS);
+    }
+
+    public void stop() {
+        if (checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+        HandlerList.unregisterAll(this);
+    }
+
+    public boolean isResident(RegionKey region) {
+        return residentRegions.containsKey(region);
+    }
+
+    /**
+     * 取得已載入的區域數量
+     */
+    public int getResidentCount() {
+        return residentRegions.size();
+    }
+
+    /**
+     * 取得累計載入的區域數量，包含釋放後再次載入
+     */
+    public long getRegionLoads() {
+        return regionLoads.get();
+    }
+
+    /**
+     * 取得累計因閒置釋放的區域數量
+     */
+    public long getRegionEvictions() {
+        return regionEvictions.get();
+    }
+
+    /**
+     * 取得累計因區域閒置移出記憶體的結構數量
+     */
+    public long getStructureEvictions() {
+        return structureEvictions.get();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+        request(RegionKey.ofChunk(chunk.getWorld().getName(), chunk.getX(), chunk.getZ()));
+    }
+
+    /**
+     * 排程載入尚未載入的區域
+     */
+    private void request(RegionKey region) {
+        if (residentRegions.containsKey(region) || !loadingRegions.add(region)) {
+            return;
+        }
+        plugin.getWriteBehind().execute(() -> {
+            try {
+                if (!residentRegions.containsKey(region)) {
+                    structureManager.admit(store.loadRegion(region));
+                    residentRegions.put(region, new AtomicLong(System.currentTimeMillis()));
+                    regionLoads.incrementAndGet();
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not load structure region " + region + ": " + e.getMessage());
+            } finally {
+                loadingRegions.remove(region);
+            }
+        });
+    }
+
+    /**
+     * 立即載入區域，用於指令存取已釋放的結構
+     * 在寫入執行緒上呼叫，與釋放依序執行，不會載入到正在釋放的區域
+     */
+    void loadNow(RegionKey region) throws IOException {
+        AtomicLong lastActive = residentRegions.get(region);
+        if (lastActive != null) {
+            lastActive.set(System.currentTimeMillis());
+            return;
+        }
+        structureManager.admit(store.loadRegion(region));
+        if (residentRegions.putIfAbsent(region, new AtomicLong(System.currentTimeMillis())) == null) {
+            regionLoads.incrementAndGet();
+        }
+    }
+
+    /**
+     * 更新玩家附近區域的活動時間，並釋放閒置的區域
+     */
+    private void check() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            plugin.getTaskScheduler().runForEntity(player, () -> touch(player));
+        }
+
+        long idleBefore = System.currentTimeMillis() - plugin.getConfigManager().getRegionUnloadDelaySeconds() * 1000L;
+        for (Map.Entry<RegionKey, AtomicLong> entry : residentRegions.entrySet()) {
+            if (entry.getValue().get() < idleBefore) {
+                RegionKey region = entry.getKey();
+                plugin.getWriteBehind().execute(() -> unloadIfIdle(region, idleBefore));
+            }
+        }
+    }
+
+    /**
+     * 標記玩家可見範圍內的區域為活動中，尚未載入的區域會被載入
+     */
+    private void touch(Player player) {
+        if (!player.isOnline()) {
+            return;
+        }
+        ConfigManager config = plugin.getConfigManager();
+        int margin = config.getViewDistance();
+        if (config.isFarFieldEnabled()) {
+            margin = Math.max(margin, config.getFarFieldDistance());
+        }
+
+        Location location = player.getLocation();
+        String worldName = location.getWorld().getName();
+        RegionKey min = RegionKey.ofBlock(worldName, location.getX() - margin, location.getZ() - margin);
+        RegionKey max = RegionKey.ofBlock(worldName, location.getX() + margin, location.getZ() + margin);
+        long now = System.currentTimeMillis();
+        for (int x = min.getX(); x <= max.getX(); x++) {
+            for (int z = min.getZ(); z <= max.getZ(); z++) {
+                RegionKey region = new RegionKey(worldName, x, z);
+                AtomicLong lastActive = residentRegions.get(region);
+                if (lastActive != null) {
+                    lastActive.set(now);
+                } else {
+                    request(region);
+                }
+            }
+        }
+    }
+
+    /**
+     * 釋放世界中所有已載入的區域，世界卸載後在寫入執行緒上呼叫
+     */
+    void releaseWorld(String worldName) {
+        for (RegionKey region : new ArrayList<>(residentRegions.keySet())) {
+            if (region.getWorldName().equals(worldName)) {
+                residentRegions.remove(region);
+                store.unloadRegion(region);
+            }
+        }
+    }
+
+    /**
+     * 在寫入執行緒上再次確認區域仍然閒置，移除區域內的結構與顯示並釋放區域
+     * 與載入在同一條執行緒上依序進行，釋放期間不會有同一區域的載入交錯
+     */
+    private void unloadIfIdle(RegionKey region, long idleBefore) {
+        AtomicLong lastActive = residentRegions.get(region);
+        if (lastActive == null || lastActive.get() >= idleBefore) {
+            return;
+        }
+        residentRegions.remove(region);
+        
+        List<UUID> ids = new ArrayList<>();
+        for (CatenaryStructure structure : structureManager.getWorldStructures(region.getWorldName())) {
+            if (region.equals(RegionKey.of(structure.snapshot()))) {
+                ids.add(structure.getId());
+            }
+        }
+        structureManager.evict(ids);
+        store.unloadRegion(region);
+        regionEvictions.incrementAndGet();
+        structureEvictions.addAndGet(ids.size());
+        if (plugin.getConfigManager().isDebugMode()) {
+            plugin.getLogger().info("Unloaded structure region " + region + " (" + ids.size() + " structures)");
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 依世界與 32×32 區塊區域分檔的儲存
+ * 每個區域是一個 regions/&lt;世界&gt;/r.&lt;x&gt;.&lt;z&gt;.dat 二進位檔，只在區域內有變更時重寫該檔。
+ * 結構以起點所在的區域歸檔。擁有者與所在區域記錄在 regions/.index/ 的側索引中，隨寫入更新；
+ * 沒有索引的舊資料在第一次需要時逐一讀取區域建立一次。
+ */
+public class RegionStructureStore implements RegionalStructureStore {
+
+    private static final Pattern SHARD_NAME = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.dat");
+
+    private final File root;
+    private final boolean compress;
+    // 已讀取的區域內容
+    private final Map<RegionKey, Map<UUID, StructureSnapshot>> shards = new HashMap<>();
+    // 已讀取區域內結構所在的區域，其餘結構以側索引查詢
+    private final Map<UUID, RegionKey> regionOf = new HashMap<>();
+    private final RegionIndex index;
+
+    public RegionStructureStore(File root, boolean compress) {
+        this.root = root;
+        this.compress = compress;
+        this.index = new RegionIndex(new File(root, ".index"));
+    }
+
+    @Override
+    public synchronized boolean exists() {
+        return !listShards().isEmpty();
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public synchronized List<StructureSnapshot> loadRegion(RegionKey region) throws IOException {
+        return new ArrayList<>(shard(region).values());
+    }
+
+    @Override
+    public synchronized void unloadRegion(RegionKey region) {
+        Map<UUID, StructureSnapshot> shard = shards.remove(region);
+        if (shard != null) {
+            for (UUID id : shard.keySet()) {
+                regionOf.remove(id, region);
+            }
+        }
+    }
+
+    /**
+     * 讀取所有區域，用於轉換格式
+     */
+    @Override
+    public synchronized List<StructureSnapshot> load() throws IOException {
+        List<StructureSnapshot> snapshots = new ArrayList<>();
+        for (RegionKey region : listShards()) {
+            snapshots.addAll(shard(region).values());
+        }
+        return snapshots;
+    }
+
+    /**
+     * 一次讀取一個區域，未快取的區域讀完即釋放
+     */
+    @Override
+    public synchronized void scan(SnapshotConsumer consumer) throws IOException {
+        for (RegionKey region : listShards()) {
+            Map<UUID, StructureSnapshot> cached = shards.get(region);
+            Collection<StructureSnapshot> snapshots = cached != null
+                ? new ArrayList<>(cached.values())
+                : new BinaryStructureStore(shardFile(region), compress).load();
+            for (StructureSnapshot snapshot : snapshots) {
+                consumer.accept(snapshot);
+            }
+        }
+    }
+
+    /**
+     * 只讀取擁有者結構所在的區域
+     */
+    @Override
+    public synchronized List<StructureSnapshot> findByOwner(UUID ownerId) throws IOException {
+        Map<UUID, RegionKey> owned = index().owned(ownerId);
+        return find(new ArrayList<>(new HashSet<>(owned.values())), snapshot -> snapshot.getOwnerId().equals(ownerId));
+    }
+
+    /**
+     * 以側索引計數，不讀取區域檔
+     */
+    @Override
+    public synchronized Set<UUID> findIdsByOwner(UUID ownerId) throws IOException {
+        return new HashSet<>(index().owned(ownerId).keySet());
+    }
+
+    @Override
+    public synchronized StructureSnapshot findById(UUID structureId) throws IOException {
+        RegionKey region = locate(structureId);
+        if (region == null) {
+            return null;
+        }
+        List<StructureSnapshot> found = find(List.of(region), snapshot -> snapshot.getId().equals(structureId));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * 只讀取世界目錄下的區域
+     */
+    @Override
+    public synchronized List<StructureSnapshot> findByWorld(String worldName) throws IOException {
+        List<RegionKey> regions = new ArrayList<>();
+        for (RegionKey region : listShards()) {
+            if (region.getWorldName().equals(worldName)) {
+                regions.add(region);
+            }
+        }
+        return find(regions, snapshot -> true);
+    }
+
+    /**
+     * 以完整內容重建所有區域檔
+     */
+    @Override
+    public synchronized void save(Collection<StructureSnapshot> snapshots) throws IOException {
+        Set<RegionKey> stale = new HashSet<>(listShards());
+        shards.clear();
+        regionOf.clear();
+        for (StructureSnapshot snapshot : snapshots) {
+            RegionKey region = RegionKey.of(snapshot);
+            shards.computeIfAbsent(region, key -> new LinkedHashMap<>()).put(snapshot.getId(), snapshot);
+            regionOf.put(snapshot.getId(), region);
+        }
+        for (RegionKey region : shards.keySet()) {
+            writeShard(region);
+            stale.remove(region);
+        }
+        for (RegionKey region : stale) {
+            Files.deleteIfExists(shardFile(region).toPath());
+        }
+        List<RegionIndex.Entry> entries = new ArrayList<>(snapshots.size());
+        for (StructureSnapshot snapshot : snapshots) {
+            entries.add(new RegionIndex.Entry(snapshot.getId(), snapshot.getOwnerId(), regionOf.get(snapshot.getId())));
+        }
+        index.rebuild(entries);
+    }
+
+    /**
+     * 只重寫有變更的區域；結構原本所在的區域以側索引查詢，
+     * 即使舊區域沒有快取，跨區域移動與刪除也會從舊區域移除
+     */
+    @Override
+    public synchronized void saveChanges(Map<UUID, Optional<StructureSnapshot>> changes,
+                                         Collection<StructureSnapshot> snapshots) throws IOException {
+        RegionIndex.Batch batch = index().edit();
+        Set<RegionKey> cached = new HashSet<>(shards.keySet());
+        Set<RegionKey> dirty = new HashSet<>();
+        for (Map.Entry<UUID, Optional<StructureSnapshot>> change : changes.entrySet()) {
+            UUID id = change.getKey();
+            RegionKey previous = regionOf.get(id);
+            if (previous == null) {
+                RegionIndex.Entry entry = batch.get(id);
+                previous = entry == null ? null : entry.region;
+            }
+            if (change.getValue().isPresent()) {
+                StructureSnapshot snapshot = change.getValue().get();
+                RegionKey region = RegionKey.of(snapshot);
+                if (previous != null && !previous.equals(region)) {
+                    shard(previous).remove(id);
+                    dirty.add(previous);
+                }
+                shard(region).put(id, snapshot);
+                regionOf.put(id, region);
+                dirty.add(region);
+                batch.put(id, snapshot.getOwnerId(), region);
+            } else if (previous != null) {
+                shard(previous).remove(id);
+                regionOf.remove(id);
+                dirty.add(previous);
+                batch.remove(id);
+            }
+        }
+        for (RegionKey region : dirty) {
+            writeShard(region);
+            // 只為這次寫入讀取的區域不保留在快取中
+            if (!cached.contains(region)) {
+                unloadRegion(region);
+            }
+        }
+        // 區域檔先寫入，中斷時索引最多指向舊區域，查詢時仍會以內容過濾
+        batch.commit();
+    }
+
+    @Override
+    public String describe() {
+        return root.getName() + "/";
+    }
+
+    /**
+     * 取得區域內容，尚未讀取時從檔案讀取
+     */
+    private Map<UUID, StructureSnapshot> shard(RegionKey region) throws IOException {
+        Map<UUID, StructureSnapshot> shard = shards.get(region);
+        if (shard != null) {
+            return shard;
+        }
+        shard = new LinkedHashMap<>();
+        for (StructureSnapshot snapshot : new BinaryStructureStore(shardFile(region), compress).load()) {
+            shard.put(snapshot.getId(), snapshot);
+            regionOf.put(snapshot.getId(), region);
+        }
+        shards.put(region, shard);
+        return shard;
+    }
+
+    /**
+     * 讀取區域中符合條件的結構，未快取的區域讀完即釋放
+     */
+    private List<StructureSnapshot> find(List<RegionKey> regions, Predicate<StructureSnapshot> filter) throws IOException {
+        List<StructureSnapshot> found = new ArrayList<>();
+        for (RegionKey region : regions) {
+            Map<UUID, StructureSnapshot> cached = shards.get(region);
+            Collection<StructureSnapshot> snapshots = cached != null
+                ? cached.values()
+                : new BinaryStructureStore(shardFile(region), compress).load();
+            for (StructureSnapshot snapshot : snapshots) {
+                if (filter.test(snapshot)) {
+                    found.add(snapshot);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 取得結構所在的區域，未快取時查詢側索引
+     */
+    private RegionKey locate(UUID structureId) throws IOException {
+        RegionKey region = regionOf.get(structureId);
+        if (region != null) {
+            return region;
+        }
+        RegionIndex.Entry entry = index().find(structureId);
+        return entry == null ? null : entry.region;
+    }
+
+    /**
+     * 取得側索引；舊資料沒有索引時逐一讀取區域建立一次，之後隨寫入更新
+     */
+    private RegionIndex index() throws IOException {
+        if (index.exists()) {
+            return index;
+        }
+        List<RegionIndex.Entry> entries = new ArrayList<>();
+        for (RegionKey region : listShards()) {
+            Map<UUID, StructureSnapshot> cached = shards.get(region);
+            Collection<StructureSnapshot> snapshots = cached != null
+                ? cached.values()
+                : new BinaryStructureStore(shardFile(region), compress).load();
+            for (StructureSnapshot snapshot : snapshots) {
+                entries.add(new RegionIndex.Entry(snapshot.getId(), snapshot.getOwnerId(), region));
+            }
+        }
+        index.rebuild(entries);
+        return index;
+    }
+
+    private void writeShard(RegionKey region) throws IOException {
+        Map<UUID, StructureSnapshot> shard = shards.get(region);
+        File file = shardFile(region);
+        if (shard == null || shard.isEmpty()) {
+            Files.deleteIfExists(file.toPath());
+            return;
+        }
+        new BinaryStructureStore(file, compress).save(shard.values());
+    }
+
+    private File shardFile(RegionKey region) {
+        return new File(new File(root, region.getWorldName()), "r." + region.getX() + "." + region.getZ() + ".dat");
+    }
+
+    private List<RegionKey> listShards() {
+        List<RegionKey> regions = new ArrayList<>();
+        File[] worlds = root.listFiles(File::isDirectory);
+        if (worlds == null) {
+            return regions;
+        }
+        for (File world : worlds) {
+            // 側索引與其暫存目錄
+            if (world.getName().startsWith(".")) {
+                continue;
+            }
+            File[] files = world.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                Matcher matcher = SHARD_NAME.matcher(file.getName());
+                if (matcher.matches()) {
+                    regions.add(new RegionKey(world.getName(), Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+                }
+            }
+        }
+        return regions;
+    }
+}
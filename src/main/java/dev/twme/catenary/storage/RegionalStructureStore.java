@@ -0,0 +1,22 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 以區域為單位載入與釋放的儲存後端
+ */
+public interface RegionalStructureStore extends StructureStore {
+
+    /**
+     * 讀取區域內的結構
+     */
+    List<StructureSnapshot> loadRegion(RegionKey region) throws IOException;
+
+    /**
+     * 釋放區域的快取，區域內等待中的變更必須已經寫入
+     */
+    void unloadRegion(RegionKey region);
+}
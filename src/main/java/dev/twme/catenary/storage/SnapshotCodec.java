@@ -0,0 +1,72 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Material;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * 單筆結構快照的自足二進位編碼，不依賴字串表，用於變更日誌與匯出檔
+ */
+final class SnapshotCodec {
+
+    private static final int FLAG_BLOCK = 1;
+    private static final int FLAG_VISIBLE = 1 << 1;
+
+    private SnapshotCodec() {
+    }
+
+    static void write(DataOutputStream out, StructureSnapshot snapshot) throws IOException {
+        out.writeLong(snapshot.getId().getMostSignificantBits());
+        out.writeLong(snapshot.getId().getLeastSignificantBits());
+        out.writeLong(snapshot.getOwnerId().getMostSignificantBits());
+        out.writeLong(snapshot.getOwnerId().getLeastSignificantBits());
+        out.writeUTF(snapshot.getName());
+        out.writeUTF(snapshot.getWorldName());
+        out.writeUTF(snapshot.getMaterial().name());
+        out.writeByte((snapshot.isBlock() ? FLAG_BLOCK : 0) | (snapshot.isVisible() ? FLAG_VISIBLE : 0));
+        writeVector(out, snapshot.getStart());
+        writeVector(out, snapshot.getEnd());
+        out.writeDouble(snapshot.getSlack());
+        VarInts.writeVarInt(out, snapshot.getSegments());
+        out.writeDouble(snapshot.getSpacing());
+        out.writeFloat(snapshot.getScale());
+        out.writeFloat(snapshot.getRotationX());
+        out.writeFloat(snapshot.getRotationY());
+        out.writeFloat(snapshot.getRotationZ());
+    }
+
+    static StructureSnapshot read(DataInputStream in) throws IOException {
+        UUID id = new UUID(in.readLong(), in.readLong());
+        UUID ownerId = new UUID(in.readLong(), in.readLong());
+        String name = in.readUTF();
+        String worldName = in.readUTF();
+        Material material = Material.getMaterial(in.readUTF());
+        int flags = in.readUnsignedByte();
+        Vector3D start = readVector(in);
+        Vector3D end = readVector(in);
+        double slack = in.readDouble();
+        int segments = VarInts.readVarInt(in);
+        double spacing = in.readDouble();
+        return new StructureSnapshot(
+            id, ownerId, name, worldName, start, end, slack, segments, spacing,
+            material == null ? Material.CHAIN : material,
+            (flags & FLAG_BLOCK) != 0, in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+            (flags & FLAG_VISIBLE) != 0
+        );
+    }
+
+    private static void writeVector(DataOutputStream out, Vector3D vector) throws IOException {
+        out.writeDouble(vector.getX());
+        out.writeDouble(vector.getY());
+        out.writeDouble(vector.getZ());
+    }
+
+    private static Vector3D readVector(DataInputStream in) throws IOException {
+        return new Vector3D(in.readDouble(), in.readDouble(), in.readDouble());
+    }
+}
@@ -0,0 +1,385 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Material;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 以內嵌 SQLite 資料庫儲存結構
+ * 以擁有者、世界與起點建立索引，區域在使用時才讀取；變更在寫入執行緒上以單一交易批次寫入。
+ * 查詢使用另一條唯讀連線，WAL 模式下不會等待寫入中的交易；匯出的逐列讀取另開連線，不佔用查詢連線。
+ * 驅動程式由伺服器提供，不需額外打包。
+ */
+public class SqliteStructureStore implements RegionalStructureStore {
+
+    private static final String COLUMNS = "id, owner, name, world, min_cx, min_cz, max_cx, max_cz, "
+        + "start_x, start_y, start_z, end_x, end_y, end_z, slack, segments, spacing, "
+        + "material, is_block, scale, rot_x, rot_y, rot_z, visible";
+
+    private final File file;
+    // 寫入用的連線，只在寫入執行緒上使用
+    private Connection connection;
+    // 唯讀的查詢連線，由 readLock 保護
+    private final Object readLock = new Object();
+    private Connection reader;
+
+    public SqliteStructureStore(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public List<StructureSnapshot> load() throws IOException {
+        return query("SELECT " + COLUMNS + " FROM structures", statement -> { });
+    }
+
+    /**
+     * 只讀取指定世界的結構
+     */
+    @Override
+    public List<StructureSnapshot> load(Set<String> worldNames) throws IOException {
+        List<StructureSnapshot> snapshots = new ArrayList<>();
+        for (String worldName : worldNames) {
+            snapshots.addAll(findByWorld(worldName));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public List<StructureSnapshot> findByOwner(UUID ownerId) throws IOException {
+        return query("SELECT " + COLUMNS + " FROM structures WHERE owner = ?",
+            statement -> statement.setString(1, ownerId.toString()));
+    }
+
+    /**
+     * 只讀取 ID 欄位，以擁有者索引完成
+     */
+    @Override
+    public Set<UUID> findIdsByOwner(UUID ownerId) throws IOException {
+        synchronized (readLock) {
+            try (PreparedStatement statement = reader().prepareStatement("SELECT id FROM structures WHERE owner = ?")) {
+                statement.setString(1, ownerId.toString());
+                Set<UUID> ids = new HashSet<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        ids.add(UUID.fromString(rows.getString(1)));
+                    }
+                }
+                return ids;
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    @Override
+    public StructureSnapshot findById(UUID structureId) throws IOException {
+        List<StructureSnapshot> snapshots = query("SELECT " + COLUMNS + " FROM structures WHERE id = ?",
+            statement -> statement.setString(1, structureId.toString()));
+        return snapshots.isEmpty() ? null : snapshots.get(0);
+    }
+
+    @Override
+    public List<StructureSnapshot> findByWorld(String worldName) throws IOException {
+        return query("SELECT " + COLUMNS + " FROM structures WHERE world = ?",
+            statement -> statement.setString(1, worldName));
+    }
+
+    /**
+     * 以起點座標查詢區域內的結構
+     */
+    @Override
+    public List<StructureSnapshot> loadRegion(RegionKey region) throws IOException {
+        return query("SELECT " + COLUMNS + " FROM structures WHERE world = ?"
+                + " AND start_x >= ? AND start_x < ? AND start_z >= ? AND start_z < ?",
+            statement -> {
+                statement.setString(1, region.getWorldName());
+                statement.setDouble(2, region.getX() << 9);
+                statement.setDouble(3, (region.getX() + 1) << 9);
+                statement.setDouble(4, region.getZ() << 9);
+                statement.setDouble(5, (region.getZ() + 1) << 9);
+            });
+    }
+
+    /**
+     * 資料只存在資料庫中，沒有需要釋放的快取
+     */
+    @Override
+    public void unloadRegion(RegionKey region) {
+    }
+
+    /**
+     * 以完整內容取代資料表
+     */
+    @Override
+    public synchronized void save(Collection<StructureSnapshot> snapshots) throws IOException {
+        transaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM structures");
+            }
+            try (PreparedStatement upsert = connection.prepareStatement(upsertSql())) {
+                for (StructureSnapshot snapshot : snapshots) {
+                    bind(upsert, snapshot);
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * 在單一交易中寫入所有變更
+     */
+    @Override
+    public synchronized void saveChanges(Map<UUID, Optional<StructureSnapshot>> changes,
+                                         Collection<StructureSnapshot> snapshots) throws IOException {
+        transaction(connection -> {
+            try (PreparedStatement upsert = connection.prepareStatement(upsertSql());
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM structures WHERE id = ?")) {
+                for (Map.Entry<UUID, Optional<StructureSnapshot>> change : changes.entrySet()) {
+                    if (change.getValue().isPresent()) {
+                        bind(upsert, change.getValue().get());
+                        upsert.addBatch();
+                    } else {
+                        delete.setString(1, change.getKey().toString());
+                        delete.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+                delete.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public String describe() {
+        return file.getName();
+    }
+
+    @Override
+    public void close() {
+        synchronized (readLock) {
+            closeQuietly(reader);
+            reader = null;
+        }
+        synchronized (this) {
+            closeQuietly(connection);
+            connection = null;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * 取得連線，第一次使用時建立資料表與索引
+     */
+    private Connection connection() throws SQLException {
+        if (connection != null) {
+            return connection;
+        }
+        file.getParentFile().mkdirs();
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS structures ("
+                + "id TEXT PRIMARY KEY, owner TEXT NOT NULL, name TEXT NOT NULL, world TEXT NOT NULL, "
+                + "min_cx INTEGER NOT NULL, min_cz INTEGER NOT NULL, max_cx INTEGER NOT NULL, max_cz INTEGER NOT NULL, "
+                + "start_x REAL NOT NULL, start_y REAL NOT NULL, start_z REAL NOT NULL, "
+                + "end_x REAL NOT NULL, end_y REAL NOT NULL, end_z REAL NOT NULL, "
+                + "slack REAL NOT NULL, segments INTEGER NOT NULL, spacing REAL NOT NULL, "
+                + "material TEXT NOT NULL, is_block INTEGER NOT NULL, scale REAL NOT NULL, "
+                + "rot_x REAL NOT NULL, rot_y REAL NOT NULL, rot_z REAL NOT NULL, visible INTEGER NOT NULL)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_structures_owner ON structures (owner)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_structures_start ON structures (world, start_x, start_z)");
+            // 區塊範圍沒有查詢使用，不再維護其索引
+            statement.execute("DROP INDEX IF EXISTS idx_structures_chunk");
+        }
+        return connection;
+    }
+
+    /**
+     * 取得唯讀的查詢連線，呼叫端必須持有 readLock
+     */
+    private Connection reader() throws SQLException {
+        if (reader == null) {
+            reader = openReader();
+        }
+        return reader;
+    }
+
+    /**
+     * 開啟唯讀連線，資料表由寫入連線先建立
+     */
+    private Connection openReader() throws SQLException {
+        synchronized (this) {
+            connection();
+        }
+        Connection readOnly = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement statement = readOnly.createStatement()) {
+            statement.execute("PRAGMA query_only = ON");
+        } catch (SQLException e) {
+            closeQuietly(readOnly);
+            throw e;
+        }
+        return readOnly;
+    }
+
+    private static String upsertSql() {
+        return "INSERT OR REPLACE INTO structures (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    }
+
+    private static void bind(PreparedStatement statement, StructureSnapshot snapshot) throws SQLException {
+        Vector3D start = snapshot.getStart();
+        Vector3D end = snapshot.getEnd();
+        int startChunkX = (int) Math.floor(start.getX()) >> 4;
+        int startChunkZ = (int) Math.floor(start.getZ()) >> 4;
+        int endChunkX = (int) Math.floor(end.getX()) >> 4;
+        int endChunkZ = (int) Math.floor(end.getZ()) >> 4;
+
+        statement.setString(1, snapshot.getId().toString());
+        statement.setString(2, snapshot.getOwnerId().toString());
+        statement.setString(3, snapshot.getName());
+        statement.setString(4, snapshot.getWorldName());
+        statement.setInt(5, Math.min(startChunkX, endChunkX));
+        statement.setInt(6, Math.min(startChunkZ, endChunkZ));
+        statement.setInt(7, Math.max(startChunkX, endChunkX));
+        statement.setInt(8, Math.max(startChunkZ, endChunkZ));
+        statement.setDouble(9, start.getX());
+        statement.setDouble(10, start.getY());
+        statement.setDouble(11, start.getZ());
+        statement.setDouble(12, end.getX());
+        statement.setDouble(13, end.getY());
+        statement.setDouble(14, end.getZ());
+        statement.setDouble(15, snapshot.getSlack());
+        statement.setInt(16, snapshot.getSegments());
+        statement.setDouble(17, snapshot.getSpacing());
+        statement.setString(18, snapshot.getMaterial().name());
+        statement.setInt(19, snapshot.isBlock() ? 1 : 0);
+        statement.setFloat(20, snapshot.getScale());
+        statement.setFloat(21, snapshot.getRotationX());
+        statement.setFloat(22, snapshot.getRotationY());
+        statement.setFloat(23, snapshot.getRotationZ());
+        statement.setInt(24, snapshot.isVisible() ? 1 : 0);
+    }
+
+    private static StructureSnapshot read(ResultSet row) throws SQLException {
+        Material material = Material.getMaterial(row.getString("material"));
+        return new StructureSnapshot(
+            UUID.fromString(row.getString("id")),
+            UUID.fromString(row.getString("owner")),
+            row.getString("name"),
+            row.getString("world"),
+            new Vector3D(row.getDouble("start_x"), row.getDouble("start_y"), row.getDouble("start_z")),
+            new Vector3D(row.getDouble("end_x"), row.getDouble("end_y"), row.getDouble("end_z")),
+            row.getDouble("slack"),
+            row.getInt("segments"),
+            row.getDouble("spacing"),
+            material == null ? Material.CHAIN : material,
+            row.getInt("is_block") != 0,
+            row.getFloat("scale"),
+            row.getFloat("rot_x"),
+            row.getFloat("rot_y"),
+            row.getFloat("rot_z"),
+            row.getInt("visible") != 0
+        );
+    }
+
+    /**
+     * 以另開的唯讀連線逐列讀取，不建立完整的列表，也不佔用查詢與寫入連線
+     */
+    @Override
+    public void scan(SnapshotConsumer consumer) throws IOException {
+        try (Connection scanning = openReader();
+             PreparedStatement statement = scanning.prepareStatement("SELECT " + COLUMNS + " FROM structures");
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                consumer.accept(read(rows));
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 在唯讀連線上查詢
+     */
+    private List<StructureSnapshot> query(String sql, Binder binder) throws IOException {
+        synchronized (readLock) {
+            try (PreparedStatement statement = reader().prepareStatement(sql)) {
+                binder.bind(statement);
+                List<StructureSnapshot> snapshots = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        snapshots.add(read(rows));
+                    }
+                }
+                return snapshots;
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private void transaction(Work work) throws IOException {
+        try {
+            Connection connection = connection();
+            connection.setAutoCommit(false);
+            try {
+                work.run(connection);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        void run(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,35 @@
+package dev.twme.catenary.storage;
+
+/**
+ * 結構資料的儲存格式
+ */
+public enum StorageType {
+    /**
+     * 舊版 structures.yml
+     */
+    YAML,
+    /**
+     * 版本化的二進位檔 structures.dat
+     */
+    BINARY,
+    /**
+     * 二進位快照加上僅附加的變更日誌 structures.journal
+     */
+    JOURNAL,
+    /**
+     * 內嵌 SQLite 資料庫 structures.db，以擁有者、世界與區塊建立索引
+     */
+    SQLITE,
+    /**
+     * 依世界與 32×32 區塊區域分檔的 regions/，區域在使用時才載入
+     */
+    REGION,
+    /**
+     * 記憶體映射的固定寬度紀錄檔 structures.mapped，區域在使用時才建立結構物件
+     */
+    MAPPED,
+    /**
+     * 存放在起點所在區塊的持久化資料中，結構跟著區塊載入與卸載
+     */
+    CHUNK
+}
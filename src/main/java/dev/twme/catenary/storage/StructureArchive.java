@@ -0,0 +1,140 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 結構匯出檔 (.ctnx)
+ * 結構逐筆寫入與讀取，匯出與匯入的記憶體用量與結構總數無關。
+ *
+ * <pre>
+ * GZIP( magic "CTNX" (int) | 版本 (byte) | (1 (byte) | 結構)... | 0 (byte) | 結構數量 (long) )
+ * </pre>
+ *
+ * 結尾的數量用於確認檔案完整，缺少結尾的檔案視為不完整。
+ */
+public final class StructureArchive {
+
+    /**
+     * 匯出檔的副檔名
+     */
+    public static final String EXTENSION = ".ctnx";
+
+    private static final int MAGIC = 0x43544E58;
+    private static final int VERSION = 1;
+    private static final int RECORD = 1;
+    private static final int END = 0;
+
+    private StructureArchive() {
+    }
+
+    /**
+     * 逐筆寫入結構，完成後必須呼叫 {@link #finish()}
+     */
+    public static final class Writer {
+        private final GZIPOutputStream gzip;
+        private final DataOutputStream out;
+        private long count;
+
+        /**
+         * 寫入檔頭，不會關閉傳入的串流
+         */
+        public Writer(OutputStream raw) throws IOException {
+            this.gzip = new GZIPOutputStream(raw, 1 << 16);
+            this.out = new DataOutputStream(gzip);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        public void write(StructureSnapshot snapshot) throws IOException {
+            out.writeByte(RECORD);
+            SnapshotCodec.write(out, snapshot);
+            count++;
+        }
+
+        /**
+         * 寫入結尾並完成壓縮
+         */
+        public void finish() throws IOException {
+            out.writeByte(END);
+            out.writeLong(count);
+            out.flush();
+            gzip.finish();
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * 逐筆讀取結構
+     */
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private long count;
+        private boolean finished;
+
+        public Reader(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), 1 << 16)));
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a Catenary export file");
+                }
+                int version = in.readUnsignedByte();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported export version " + version);
+                }
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * 讀取下一筆結構
+         *
+         * @return 已讀完時為 null
+         * @throws IOException 檔案不完整或結尾的數量不符
+         */
+        public StructureSnapshot next() throws IOException {
+            if (finished) {
+                return null;
+            }
+            int type = in.readUnsignedByte();
+            if (type == END) {
+                finished = true;
+                long expected = in.readLong();
+                if (expected != count) {
+                    throw new IOException("Export file holds " + count + " structures but declares " + expected);
+                }
+                return null;
+            }
+            if (type != RECORD) {
+                throw new IOException("Corrupt export record type " + type);
+            }
+            count++;
+            return SnapshotCodec.read(in);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 記憶體中結構集合的不可變版本
+ * 由 {@link StructureManager} 在全域執行緒上每批變更發布一次新版本；任何執行緒取得後都可以不加鎖地讀取，
+ * 讀取期間內容不會改變。新版本複製上一版的對應表後只套用變更的結構，並只重建變更所在世界的列表。
+ */
+public final class StructureCatalog {
+
+    /**
+     * 尚未載入任何結構時的版本
+     */
+    public static final StructureCatalog EMPTY = new StructureCatalog(0, Collections.emptyMap(), Collections.emptyMap());
+
+    private final long version;
+    private final Map<UUID, StructureSnapshot> byId;
+    private final Map<String, List<StructureSnapshot>> byWorld;
+
+    private StructureCatalog(long version, Map<UUID, StructureSnapshot> byId, Map<String, List<StructureSnapshot>> byWorld) {
+        this.version = version;
+        this.byId = byId;
+        this.byWorld = byWorld;
+    }
+
+    /**
+     * 以變更建立下一個版本
+     *
+     * @param changes 變更的結構，值為空表示已移除
+     */
+    StructureCatalog apply(Map<UUID, Optional<StructureSnapshot>> changes) {
+        Map<UUID, StructureSnapshot> nextById = new HashMap<>(byId);
+        Set<String> touchedWorlds = new HashSet<>();
+        for (Map.Entry<UUID, Optional<StructureSnapshot>> change : changes.entrySet()) {
+            StructureSnapshot previous = change.getValue().isPresent()
+                ? nextById.put(change.getKey(), change.getValue().get())
+                : nextById.remove(change.getKey());
+            if (previous != null) {
+                touchedWorlds.add(previous.getWorldName());
+            }
+            change.getValue().ifPresent(snapshot -> touchedWorlds.add(snapshot.getWorldName()));
+        }
+
+        // 只重建變更所在的世界：保留未變更的結構，再加入變更後仍在此世界的結構
+        Map<String, List<StructureSnapshot>> nextByWorld = new HashMap<>(byWorld);
+        for (String worldName : touchedWorlds) {
+            List<StructureSnapshot> list = new ArrayList<>();
+            for (StructureSnapshot snapshot : getWorld(worldName)) {
+                if (!changes.containsKey(snapshot.getId())) {
+                    list.add(snapshot);
+                }
+            }
+            for (Optional<StructureSnapshot> change : changes.values()) {
+                if (change.isPresent() && change.get().getWorldName().equals(worldName)) {
+                    list.add(change.get());
+                }
+            }
+            if (list.isEmpty()) {
+                nextByWorld.remove(worldName);
+            } else {
+                nextByWorld.put(worldName, Collections.unmodifiableList(list));
+            }
+        }
+        return new StructureCatalog(version + 1, Collections.unmodifiableMap(nextById), Collections.unmodifiableMap(nextByWorld));
+    }
+
+    /**
+     * 取得版本號，每次發布遞增
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public StructureSnapshot get(UUID structureId) {
+        return byId.get(structureId);
+    }
+
+    public Collection<StructureSnapshot> getAll() {
+        return byId.values();
+    }
+
+    /**
+     * 取得世界中的結構
+     */
+    public List<StructureSnapshot> getWorld(String worldName) {
+        return byWorld.getOrDefault(worldName, Collections.emptyList());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+}
@@ -0,0 +1,185 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.CatenaryStructure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 記憶體中結構的次要索引
+ * 依擁有者、世界與名稱 (忽略大小寫的前綴與三字元片段) 查詢，查詢成本與結果數量成正比而非與結構總數成正比。
+ * 修改在加入、移除與重新命名時同步進行；讀取不需鎖定。
+ */
+class StructureIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> byOwner = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> byWorld = new ConcurrentHashMap<>();
+    // 擁有者與忽略大小寫的名稱 -> 結構，用於前綴查詢；同一擁有者的名稱在鍵中相鄰
+    private final NavigableMap<String, Set<UUID>> byName = new ConcurrentSkipListMap<>();
+    // 三字元片段 -> 名稱含有此片段的結構，用於子字串查詢
+    private final Map<String, Set<UUID>> byTrigram = new ConcurrentHashMap<>();
+
+    /**
+     * 加入或更新結構的索引
+     */
+    synchronized void add(CatenaryStructure structure) {
+        remove(structure.getId());
+        Entry entry = new Entry(structure.getOwnerId(), structure.getWorld().getName(), fold(structure.getName()));
+        entries.put(structure.getId(), entry);
+        link(byOwner, entry.ownerId, structure.getId());
+        link(byWorld, entry.worldName, structure.getId());
+        link(byName, nameKey(entry.ownerId, entry.name), structure.getId());
+        for (String gram : trigrams(entry.name)) {
+            link(byTrigram, gram, structure.getId());
+        }
+    }
+
+    /**
+     * 移除結構的索引
+     */
+    synchronized void remove(UUID structureId) {
+        Entry entry = entries.remove(structureId);
+        if (entry == null) {
+            return;
+        }
+        unlink(byOwner, entry.ownerId, structureId);
+        unlink(byWorld, entry.worldName, structureId);
+        unlink(byName, nameKey(entry.ownerId, entry.name), structureId);
+        for (String gram : trigrams(entry.name)) {
+            unlink(byTrigram, gram, structureId);
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        byOwner.clear();
+        byWorld.clear();
+        byName.clear();
+        byTrigram.clear();
+    }
+
+    /**
+     * 取得擁有者的結構
+     */
+    Set<UUID> findByOwner(UUID ownerId) {
+        return view(byOwner.get(ownerId));
+    }
+
+    /**
+     * 取得世界中的結構
+     */
+    Set<UUID> findByWorld(String worldName) {
+        return view(byWorld.get(worldName));
+    }
+
+    /**
+     * 取得擁有者名稱包含指定文字 (忽略大小寫) 的結構
+     * 從擁有者的結構與最少結構的三字元片段中選較小的集合逐一比對
+     */
+    List<UUID> findByName(UUID ownerId, String query) {
+        String folded = fold(query);
+        Set<UUID> candidates = findByOwner(ownerId);
+        for (String gram : trigrams(folded)) {
+            Set<UUID> posting = byTrigram.get(gram);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            if (posting.size() < candidates.size()) {
+                candidates = posting;
+            }
+        }
+
+        List<UUID> result = new ArrayList<>();
+        for (UUID structureId : candidates) {
+            Entry entry = entries.get(structureId);
+            if (entry != null && entry.ownerId.equals(ownerId) && entry.name.contains(folded)) {
+                result.add(structureId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 取得擁有者名稱以指定文字開頭 (忽略大小寫) 的結構
+     */
+    List<UUID> findByNamePrefix(UUID ownerId, String prefix, int limit) {
+        String key = nameKey(ownerId, fold(prefix));
+        List<UUID> result = new ArrayList<>();
+        for (Set<UUID> ids : byName.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            for (UUID structureId : ids) {
+                result.add(structureId);
+                if (result.size() >= limit) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static <K> void link(Map<K, Set<UUID>> index, K key, UUID structureId) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(structureId);
+    }
+
+    private static <K> void unlink(Map<K, Set<UUID>> index, K key, UUID structureId) {
+        Set<UUID> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(structureId);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<UUID> view(Set<UUID> ids) {
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    private static String nameKey(UUID ownerId, String folded) {
+        return ownerId + "\0" + folded;
+    }
+
+    static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 取得名稱中所有不重複的三字元片段，不足三字元時沒有片段
+     */
+    private static Set<String> trigrams(String folded) {
+        if (folded.length() < GRAM) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * 結構建立索引時的擁有者、世界與名稱，移除時據此找到對應的索引
+     */
+    private static final class Entry {
+        private final UUID ownerId;
+        private final String worldName;
+        private final String name;
+
+        private Entry(UUID ownerId, String worldName, String name) {
+            this.ownerId = ownerId;
+            this.worldName = worldName;
+            this.name = name;
+        }
+    }
+}
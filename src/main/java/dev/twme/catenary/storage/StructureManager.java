@@ -1,242 +1,944 @@
 package dev.twme.catenary.storage;
 
 import dev.twme.catenary.Catenary;
-import dev.twme.catenary.math.CatenaryCalculator;
 import dev.twme.catenary.math.Vector3D;
 import dev.twme.catenary.model.CatenaryStructure;
 import dev.twme.catenary.model.Preset;
 import dev.twme.catenary.model.RenderItem;
+import dev.twme.catenary.model.StructureSnapshot;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * 管理懸掛結構的儲存和載入
  */
 public class StructureManager {
 
+    // 匯入時每批寫入的結構數量
+    private static final int IMPORT_BATCH_SIZE = 500;
+    /** 完整寫入的後端每匯入這麼多批才寫入一次 */
+    private static final int IMPORT_FLUSH_BATCHES = 40;
+    
     private final Catenary plugin;
-    private final Map<UUID, CatenaryStructure> structures = new HashMap<>();
-    private final CatenaryCalculator calculator;
-    private File structuresFile;
+    private final Map<UUID, CatenaryStructure> structures = new ConcurrentHashMap<>();
+    // 擁有者、世界與名稱的次要索引，與 structures 同步修改
+    private final StructureIndex index = new StructureIndex();
+    // 最近發布的不可變版本，任何執行緒都可以讀取
+    private volatile StructureCatalog catalog = StructureCatalog.EMPTY;
+    // 尚未發布的變更，值為空表示已移除；在下一刻由全域執行緒合併為一個新版本
+    private final Map<UUID, Optional<StructureSnapshot>> catalogChanges = new ConcurrentHashMap<>();
+    private final AtomicBoolean catalogScheduled = new AtomicBoolean();
+    private final StructureStore store;
+    // 依區域載入的後端才有，負責區域的載入與釋放
+    private final RegionResidency regionResidency;
+    // 存放在區塊資料中的後端才有，負責區塊的讀取與釋放
+    private final ChunkResidency chunkResidency;
+    // 世界在啟用後載入或卸載時綁定與釋放結構
+    private final WorldResidency worldResidency;
+    // 讀取失敗時為 true，此時不寫入以保留原檔
+    private volatile boolean readOnly;
+    // 最近一次寫入的內容與尚未寫入的變更
+    private final PersistedStructures persisted = new PersistedStructures();
     
     public StructureManager(Catenary plugin) {
         this.plugin = plugin;
-        this.calculator = new CatenaryCalculator();
-        this.structuresFile = new File(plugin.getDataFolder(), "structures.yml");
+        this.store = createStore();
+        this.regionResidency = store instanceof RegionalStructureStore regional
+            ? new RegionResidency(plugin, this, regional) : null;
+        this.chunkResidency = store instanceof ChunkStructureStore chunkStore
+            ? new ChunkResidency(plugin, this, chunkStore) : null;
+        this.worldResidency = new WorldResidency(plugin, this);
         
         // 載入已保存的結構
         loadStructures();
     }
     
+    /**
+     * 建立設定的儲存後端
+     * 新格式尚無資料時，會將舊格式 (structures.yml、structures.dat) 的資料一次性轉換
+     */
+    private StructureStore createStore() {
+        File dataFolder = plugin.getDataFolder();
+        StorageType type = plugin.getConfigManager().getStorageType();
+        YamlStructureStore yamlStore = new YamlStructureStore(new File(dataFolder, "structures.yml"), plugin.getLogger());
+        if (type == StorageType.YAML) {
+            return yamlStore;
+        }
+        
+        File binaryFile = new File(dataFolder, "structures.dat");
+        File journalFile = new File(dataFolder, "structures.journal");
+        BinaryStructureStore binaryStore = new BinaryStructureStore(binaryFile, plugin.getConfigManager().isStorageCompressed());
+        if (!binaryStore.exists() && yamlStore.exists() && !migrate(yamlStore, binaryStore, yamlStore.getFile())) {
+            return yamlStore;
+        }
+        
+        JournaledStructureStore journaledStore = new JournaledStructureStore(binaryStore, journalFile,
+            plugin.getConfigManager().getJournalCompactBytes(), plugin.getLogger());
+        if (type == StorageType.JOURNAL) {
+            return journaledStore;
+        }
+        if (type == StorageType.REGION) {
+            RegionStructureStore regionStore = new RegionStructureStore(
+                new File(dataFolder, "regions"), plugin.getConfigManager().isStorageCompressed());
+            if (!regionStore.exists() && journaledStore.exists()
+                    && !migrate(journaledStore, regionStore, binaryFile, journalFile)) {
+                return journaledStore;
+            }
+            return regionStore;
+        }
+        if (type == StorageType.SQLITE) {
+            SqliteStructureStore sqliteStore = new SqliteStructureStore(new File(dataFolder, "structures.db"));
+            if (!sqliteStore.exists() && journaledStore.exists()
+                    && !migrate(journaledStore, sqliteStore, binaryFile, journalFile)) {
+                sqliteStore.close();
+                return journaledStore;
+            }
+            return sqliteStore;
+        }
+        if (type == StorageType.MAPPED) {
+            MappedStructureStore mappedStore = new MappedStructureStore(
+                new File(dataFolder, "structures.mapped"), new File(dataFolder, "structures.strings"));
+            if (!mappedStore.exists() && journaledStore.exists()
+                    && !migrate(journaledStore, mappedStore, binaryFile, journalFile)) {
+                mappedStore.close();
+                return journaledStore;
+            }
+            return mappedStore;
+        }
+        if (type == StorageType.CHUNK) {
+            ChunkStructureStore chunkStore = new ChunkStructureStore(plugin);
+            if (journaledStore.exists() && !migrate(journaledStore, chunkStore, binaryFile, journalFile)) {
+                return journaledStore;
+            }
+            return chunkStore;
+        }
+        if (journalFile.length() > 0) {
+            plugin.getLogger().warning("structures.journal is not used by storage type binary; "
+                + "switch to journal once to merge its changes into structures.dat");
+        }
+        return binaryStore;
+    }
+    
+    /**
+     * 將舊格式的資料一次性轉換到新的儲存後端，完成後舊檔加上 .migrated 副檔名
+     *
+     * @return 轉換失敗時為 false，此時應繼續使用舊格式以免遺失資料
+     */
+    private boolean migrate(StructureStore from, StructureStore to, File... sources) {
+        try {
+            List<StructureSnapshot> snapshots = from.load();
+            to.save(snapshots);
+            for (File source : sources) {
+                if (source.exists() && !source.renameTo(new File(source.getParentFile(), source.getName() + ".migrated"))) {
+                    plugin.getLogger().warning("Could not rename " + source.getName() + " after migration");
+                }
+            }
+            plugin.getLogger().info("Migrated " + snapshots.size() + " structures from " + from.describe() + " to " + to.describe());
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not migrate " + from.describe() + ", keeping it as storage: " + e.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * 載入所有結構
      */
     public void loadStructures() {
         structures.clear();
+        index.clear();
+        catalogChanges.clear();
+        catalog = StructureCatalog.EMPTY;
+        worldResidency.start();
         
-        if (!structuresFile.exists()) {
+        if (regionResidency != null) {
+            // 區域在區塊載入或玩家接近時才載入
+            regionResidency.start();
+            plugin.getLogger().info("Structures are loaded per region from " + store.describe());
+            return;
+        }
+        if (chunkResidency != null) {
+            // 結構跟著所在的區塊載入
+            chunkResidency.start();
+            plugin.getLogger().info("Structures are loaded per chunk from " + store.describe());
+            return;
+        }
+        
+        if (!store.exists()) {
             plugin.getLogger().info("No structures file found, creating a new one.");
-            try {
-                structuresFile.getParentFile().mkdirs();
-                structuresFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().severe("Could not create structures file: " + e.getMessage());
+            return;
+        }
+        
+        List<StructureSnapshot> snapshots;
+        try {
+            if (store.isIncremental()) {
+                // 逐筆寫入的後端只需要已載入世界中的結構
+                Set<String> worldNames = new HashSet<>();
+                for (World world : Bukkit.getWorlds()) {
+                    worldNames.add(world.getName());
+                }
+                snapshots = store.load(worldNames);
+            } else {
+                snapshots = store.load();
             }
+        } catch (IOException e) {
+            // 讀取失敗時停止寫入，避免以空資料覆蓋原檔
+            readOnly = true;
+            plugin.getLogger().severe("Could not load structures from " + store.describe() + ", saving is disabled: " + e.getMessage());
             return;
         }
+        readOnly = false;
+        persisted.reset(snapshots);
         
-        FileConfiguration config = YamlConfiguration.loadConfiguration(structuresFile);
-        ConfigurationSection structuresSection = config.getConfigurationSection("structures");
+        int waiting = 0;
+        for (StructureSnapshot snapshot : snapshots) {
+            World world = Bukkit.getWorld(snapshot.getWorldName());
+            if (world == null) {
+                // 保留在已寫入的內容中，世界載入時再綁定
+                waiting++;
+                continue;
+            }
+            track(createStructure(snapshot, world));
+        }
+        // 啟動時的結構一次建立為第一個版本
+        publishCatalog();
         
-        if (structuresSection == null) {
-            plugin.getLogger().info("No structures found to load.");
+        plugin.getLogger().info("Loaded " + structures.size() + " structures from " + store.describe() + ".");
+        if (waiting > 0) {
+            plugin.getLogger().info(waiting + " structures are waiting for their worlds to load.");
+        }
+    }
+    
+    /**
+     * 將從儲存後端讀取的結構加入管理，已在管理中的結構不會被取代
+     * 通常在寫入執行緒上呼叫；指令存取已釋放的區域時在主執行緒上呼叫
+     *
+     * @return 新加入管理的結構
+     */
+    synchronized List<CatenaryStructure> admit(List<StructureSnapshot> snapshots) {
+        List<CatenaryStructure> admitted = new ArrayList<>();
+        for (StructureSnapshot snapshot : snapshots) {
+            World world = Bukkit.getWorld(snapshot.getWorldName());
+            if (world == null || structures.containsKey(snapshot.getId())) {
+                continue;
+            }
+            CatenaryStructure structure = createStructure(snapshot, world);
+            track(structure);
+            persisted.put(structure.snapshot());
+            admitted.add(structure);
+        }
+        return admitted;
+    }
+    
+    /**
+     * 將從儲存後端讀取的結構加入管理並排入渲染，在寫入執行緒上呼叫
+     */
+    void admitAndRender(List<StructureSnapshot> snapshots) {
+        for (CatenaryStructure structure : admit(snapshots)) {
+            enqueueRender(structure);
+        }
+    }
+    
+    /**
+     * 世界載入後，在寫入執行緒上讀取其中的結構並排入渲染
+     * 依區域或區塊載入的後端會在區塊載入時讀取，不需另外處理
+     */
+    void bindWorld(String worldName) {
+        if (regionResidency != null || chunkResidency != null) {
             return;
         }
-        
-        for (String key : structuresSection.getKeys(false)) {
-            ConfigurationSection section = structuresSection.getConfigurationSection(key);
-            if (section == null) continue;
-            
-            try {
-                UUID id = UUID.fromString(key);
-                UUID ownerId = UUID.fromString(section.getString("owner", ""));
-                String name = section.getString("name", "未命名結構");
-                
-                // 載入世界
-                String worldName = section.getString("world");
-                World world = Bukkit.getWorld(worldName);
-                if (world == null) {
-                    plugin.getLogger().warning("Could not load structure " + id + ": world '" + worldName + "' not found");
-                    continue;
+        plugin.getWriteBehind().execute(() -> {
+            List<StructureSnapshot> snapshots = new ArrayList<>();
+            if (store.isIncremental()) {
+                try {
+                    snapshots = store.load(Collections.singleton(worldName));
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Could not load structures for world " + worldName + ": " + e.getMessage());
+                    return;
                 }
-                
-                // 載入向量
-                ConfigurationSection startSection = section.getConfigurationSection("start");
-                ConfigurationSection endSection = section.getConfigurationSection("end");
-                
-                Vector3D start = new Vector3D(
-                    startSection.getDouble("x"),
-                    startSection.getDouble("y"),
-                    startSection.getDouble("z")
-                );
-                
-                Vector3D end = new Vector3D(
-                    endSection.getDouble("x"),
-                    endSection.getDouble("y"),
-                    endSection.getDouble("z")
-                );
-                
-                // 載入參數
-                double slack = section.getDouble("slack", 0.3);
-                int segments = section.getInt("segments", 10);
-                double spacing = section.getDouble("spacing", 0.5);
-                
-                // 載入渲染項目
-                ConfigurationSection renderSection = section.getConfigurationSection("render");
-                Material material = Material.getMaterial(renderSection.getString("material", "CHAIN"));
-                if (material == null) material = Material.CHAIN;
-                
-                boolean isBlock = renderSection.getBoolean("isBlock", false);
-                float scale = (float) renderSection.getDouble("scale", 1.0);
-                float rotX = (float) renderSection.getDouble("rotationX", 0);
-                float rotY = (float) renderSection.getDouble("rotationY", 0);
-                float rotZ = (float) renderSection.getDouble("rotationZ", 0);
-                
-                RenderItem renderItem = new RenderItem(material, isBlock, scale, rotX, rotY, rotZ);
-                
-                // 建立結構
-                CatenaryStructure structure = new CatenaryStructure(
-                    id, ownerId, name, world, start, end, slack, segments, spacing, renderItem
-                );
-                
-                // 計算點位
-                List<Vector3D> points = calculator.calculatePoints(start, end, slack, segments);
-                structure.setPoints(points);
-                
-                // 載入可見性
-                structure.setVisible(section.getBoolean("visible", true));
-                
-                // 將結構加入管理
-                structures.put(id, structure);
-                
-            } catch (Exception e) {
-                plugin.getLogger().warning("Error loading structure " + key + ": " + e.getMessage());
+            } else {
+                // 完整寫入的後端，已寫入的內容保有所有世界的結構
+                snapshots = persisted.matching(snapshot -> snapshot.getWorldName().equals(worldName));
+            }
+            
+            List<CatenaryStructure> admitted = admit(snapshots);
+            for (CatenaryStructure structure : admitted) {
+                enqueueRender(structure);
             }
+            if (!admitted.isEmpty()) {
+                plugin.getLogger().info("Loaded " + admitted.size() + " structures for world " + worldName);
+            }
+        });
+    }
+    
+    /**
+     * 世界卸載時立即移除其中結構的顯示，再於寫入執行緒上釋放結構
+     */
+    void releaseWorld(String worldName) {
+        for (UUID structureId : index.findByWorld(worldName)) {
+            plugin.getDisplayEntityManager().removeStructureEntities(structureId);
         }
-        
-        plugin.getLogger().info("Loaded " + structures.size() + " structures.");
+        plugin.getWriteBehind().execute(() -> {
+            evict(new ArrayList<>(index.findByWorld(worldName)));
+            if (regionResidency != null) {
+                regionResidency.releaseWorld(worldName);
+            }
+        });
     }
     
     /**
-     * 保存所有結構
+     * 排入渲染；啟用遠距離渲染時改由近距離更新在玩家接近時渲染
+     */
+    private void enqueueRender(CatenaryStructure structure) {
+        if (structure.isVisible() && !plugin.getConfigManager().isFarFieldEnabled()) {
+            plugin.getDisplayEntityManager().renderStructure(structure);
+        }
+    }
+    
+    /**
+     * 將結構移出記憶體並移除其顯示，等待中的變更會先寫入
+     * 完整寫入的後端仍保留已寫入的內容，之後的寫入不會遺失這些結構
+     * 在寫入執行緒上呼叫
+     */
+    void evict(Collection<UUID> structureIds) {
+        for (UUID structureId : structureIds) {
+            if (untrack(structureId)) {
+                plugin.getDisplayEntityManager().removeStructureEntities(structureId);
+            }
+        }
+        writePendingChanges();
+        if (store.isIncremental()) {
+            persisted.removeAll(structureIds);
+        }
+    }
+    
+    /**
+     * 從快照建立結構，點位在使用時才計算
+     */
+    private CatenaryStructure createStructure(StructureSnapshot snapshot, World world) {
+        CatenaryStructure structure = new CatenaryStructure(
+            snapshot.getId(), snapshot.getOwnerId(), snapshot.getName(), world,
+            snapshot.getStart(), snapshot.getEnd(),
+            snapshot.getSlack(), snapshot.getSegments(), snapshot.getSpacing(),
+            snapshot.toRenderItem()
+        );
+        structure.setVisible(snapshot.isVisible());
+        return structure;
+    }
+    
+    /**
+     * 立即保存所有結構並等待寫入完成
+     * 內容與已寫入內容相同的結構不會重複寫入
      */
     public void saveStructures() {
-        FileConfiguration config = new YamlConfiguration();
-        ConfigurationSection structuresSection = config.createSection("structures");
+        List<StructureSnapshot> snapshots = new ArrayList<>(structures.size());
+        for (CatenaryStructure structure : structures.values()) {
+            snapshots.add(structure.snapshot());
+        }
+        persisted.queueUnsaved(snapshots);
+        scheduleWrite();
+        plugin.getWriteBehind().flush();
+    }
+    
+    /**
+     * 標記結構已變更，延遲一段時間後與其他變更合併寫入
+     */
+    public void markDirty(CatenaryStructure structure) {
+        persisted.change(structure.getId(), Optional.of(structure.snapshot()));
+        scheduleWrite();
+        changeCatalog(structure.getId(), Optional.of(structure.snapshot()));
+    }
+    
+    /**
+     * 標記結構已移除
+     */
+    private void markRemoved(UUID structureId) {
+        persisted.change(structureId, Optional.empty());
+        scheduleWrite();
+    }
+    
+    private void scheduleWrite() {
+        plugin.getWriteBehind().schedule("structures", this::writePendingChanges,
+            plugin.getConfigManager().getSaveDelayMillis());
+    }
+    
+    /**
+     * 將等待中的變更套用到已寫入的內容並覆寫儲存檔，在寫入執行緒上執行
+     */
+    private void writePendingChanges() {
+        if (readOnly) {
+            plugin.getLogger().warning("Skipping save: structures could not be loaded from " + store.describe());
+            return;
+        }
         
-        for (Map.Entry<UUID, CatenaryStructure> entry : structures.entrySet()) {
-            UUID id = entry.getKey();
-            CatenaryStructure structure = entry.getValue();
-            
-            ConfigurationSection section = structuresSection.createSection(id.toString());
-            
-            // 保存基本資訊
-            section.set("owner", structure.getOwnerId().toString());
-            section.set("name", structure.getName());
-            section.set("world", structure.getWorld().getName());
-            
-            // 保存向量
-            ConfigurationSection startSection = section.createSection("start");
-            startSection.set("x", structure.getStart().getX());
-            startSection.set("y", structure.getStart().getY());
-            startSection.set("z", structure.getStart().getZ());
+        try {
+            int written = persisted.write(store);
+            if (written > 0 && plugin.getConfigManager().isDebugMode()) {
+                plugin.getLogger().info("Saved " + written + " structure changes (" + persisted.size() + " total).");
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save structures: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 移除擁有者的所有結構，包含所在世界未載入的結構
+     *
+     * @param callback 在全域執行緒上收到移除的數量
+     */
+    public void purgeOwner(UUID ownerId, IntConsumer callback) {
+        purge(index.findByOwner(ownerId), snapshot -> snapshot.getOwnerId().equals(ownerId),
+            () -> store.findByOwner(ownerId), callback);
+    }
+    
+    /**
+     * 移除世界中的所有結構，包含世界未載入時的結構
+     *
+     * @param callback 在全域執行緒上收到移除的數量
+     */
+    public void purgeWorld(String worldName, IntConsumer callback) {
+        purge(index.findByWorld(worldName), snapshot -> snapshot.getWorldName().equals(worldName),
+            () -> store.findByWorld(worldName), callback);
+    }
+    
+    /**
+     * 已載入的結構立即移除；其餘在寫入執行緒上以後端的索引查詢，
+     * 沒有索引的逐筆寫入後端逐筆讀取，完整寫入的後端改用已寫入的內容，並與其他變更一起寫入
+     */
+    private void purge(Set<UUID> loaded, Predicate<StructureSnapshot> filter, StoreQuery query, IntConsumer callback) {
+        Set<UUID> removed = new HashSet<>();
+        for (UUID structureId : new ArrayList<>(loaded)) {
+            removeStructure(structureId);
+            removed.add(structureId);
+        }
+        
+        plugin.getWriteBehind().execute(() -> {
+            List<StructureSnapshot> stored = null;
+            try {
+                stored = query.find();
+                if (stored == null && store.isIncremental()) {
+                    // 逐筆寫入的後端只保留使用中的結構，沒有索引時逐筆讀取全部結構
+                    List<StructureSnapshot> scanned = new ArrayList<>();
+                    store.scan(snapshot -> {
+                        if (filter.test(snapshot)) {
+                            scanned.add(snapshot);
+                        }
+                    });
+                    stored = scanned;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Indexed lookup failed, using persisted structures: " + e.getMessage());
+            }
+            if (stored == null) {
+                stored = persisted.matching(filter);
+            }
             
-            ConfigurationSection endSection = section.createSection("end");
-            endSection.set("x", structure.getEnd().getX());
-            endSection.set("y", structure.getEnd().getY());
-            endSection.set("z", structure.getEnd().getZ());
+            for (StructureSnapshot snapshot : stored) {
+                if (!structures.containsKey(snapshot.getId()) && removed.add(snapshot.getId())) {
+                    persisted.change(snapshot.getId(), Optional.empty());
+                }
+            }
+            writePendingChanges();
             
-            // 保存參數
-            section.set("slack", structure.getSlack());
-            section.set("segments", structure.getSegments());
-            section.set("spacing", structure.getSpacing());
+            int count = removed.size();
+            plugin.getTaskScheduler().runGlobal(() -> callback.accept(count));
+        });
+    }
+    
+    /**
+     * 將符合條件的結構逐筆匯出到檔案，包含未載入的世界與區域
+     * 在寫入執行緒上先寫入等待中的變更，再從儲存後端逐筆讀取，不佔用主執行緒
+     *
+     * @param callback 在全域執行緒上收到匯出的數量
+     */
+    public void exportStructures(File file, Predicate<StructureSnapshot> filter, TransferCallback callback) {
+        plugin.getWriteBehind().execute(() -> {
+            long[] count = new long[1];
+            IOException error = null;
+            try {
+                if (readOnly) {
+                    throw new IOException("structures could not be loaded from " + store.describe());
+                }
+                writePendingChanges();
+                AtomicFiles.write(file, out -> {
+                    StructureArchive.Writer writer = new StructureArchive.Writer(out);
+                    scanStored(snapshot -> {
+                        if (filter.test(snapshot)) {
+                            writer.write(snapshot);
+                        }
+                    });
+                    writer.finish();
+                    count[0] = writer.getCount();
+                });
+                plugin.getLogger().info("Exported " + count[0] + " structures to " + file.getName());
+            } catch (IOException e) {
+                error = e;
+                plugin.getLogger().warning("Could not export structures to " + file.getName() + ": " + e.getMessage());
+            }
             
-            // 保存渲染項目
-            ConfigurationSection renderSection = section.createSection("render");
-            renderSection.set("material", structure.getRenderItem().getItem().getType().name());
-            renderSection.set("isBlock", structure.getRenderItem().isBlock());
-            renderSection.set("scale", structure.getRenderItem().getScale());
-            renderSection.set("rotationX", structure.getRenderItem().getRotationX());
-            renderSection.set("rotationY", structure.getRenderItem().getRotationY());
-            renderSection.set("rotationZ", structure.getRenderItem().getRotationZ());
+            IOException result = error;
+            plugin.getTaskScheduler().runGlobal(() -> callback.done(count[0], result));
+        });
+    }
+    
+    /**
+     * 從匯出檔逐筆匯入結構，相同 ID 的結構會被取代
+     * 在寫入執行緒上每 {@value #IMPORT_BATCH_SIZE} 筆寫入一次，已載入的結構排入渲染
+     *
+     * @param callback 在全域執行緒上收到匯入的數量；失敗時已匯入的批次仍會保留
+     */
+    public void importStructures(File file, TransferCallback callback) {
+        plugin.getWriteBehind().execute(() -> {
+            long count = 0;
+            IOException error = null;
+            try {
+                if (readOnly) {
+                    throw new IOException("structures could not be loaded from " + store.describe());
+                }
+                try (StructureArchive.Reader reader = new StructureArchive.Reader(file)) {
+                    List<StructureSnapshot> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                    StructureSnapshot snapshot;
+                    int batches = 0;
+                    while ((snapshot = reader.next()) != null) {
+                        batch.add(snapshot);
+                        if (batch.size() >= IMPORT_BATCH_SIZE) {
+                            // 完整寫入的後端每次寫入都會重寫整個檔案，只定期寫入
+                            boolean flush = store.isIncremental() || ++batches % IMPORT_FLUSH_BATCHES == 0;
+                            importBatch(batch, flush);
+                            count += batch.size();
+                            batch.clear();
+                        }
+                    }
+                    importBatch(batch, true);
+                    count += batch.size();
+                }
+                plugin.getLogger().info("Imported " + count + " structures from " + file.getName());
+            } catch (IOException e) {
+                error = e;
+                plugin.getLogger().warning("Could not import structures from " + file.getName()
+                    + " after " + count + " structures: " + e.getMessage());
+            }
             
-            // 保存可見性
-            section.set("visible", structure.isVisible());
+            long imported = count;
+            IOException result = error;
+            plugin.getTaskScheduler().runGlobal(() -> callback.done(imported, result));
+        });
+    }
+    
+    /**
+     * 寫入一批匯入的結構，在寫入執行緒上呼叫
+     * 記憶體中的結構與顯示在下一刻於全域執行緒上更新：所在世界已載入 (依區域或區塊載入時為區域或起點區塊已載入)
+     * 的結構加入管理並排入渲染
+     *
+     * @param flush 是否立即寫入；否則留在待寫入的變更中，由之後的寫入一併寫入
+     */
+    private void importBatch(List<StructureSnapshot> batch, boolean flush) {
+        for (StructureSnapshot snapshot : batch) {
+            persisted.change(snapshot.getId(), Optional.of(snapshot));
+        }
+        if (flush) {
+            writePendingChanges();
         }
         
-        try {
-            config.save(structuresFile);
-            plugin.getLogger().info("Saved " + structures.size() + " structures.");
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save structures: " + e.getMessage());
+        List<StructureSnapshot> imported = new ArrayList<>(batch);
+        plugin.getTaskScheduler().runGlobalNextTick(() -> admitImported(imported));
+    }
+    
+    /**
+     * 以匯入的結構取代記憶體中的同一結構，在全域執行緒上呼叫
+     */
+    private void admitImported(List<StructureSnapshot> batch) {
+        for (StructureSnapshot snapshot : batch) {
+            if (untrack(snapshot.getId())) {
+                plugin.getDisplayEntityManager().removeStructureEntities(snapshot.getId());
+            }
+            World world = Bukkit.getWorld(snapshot.getWorldName());
+            if (world == null || (regionResidency != null && !regionResidency.isResident(RegionKey.of(snapshot)))
+                    || (chunkResidency != null && !isChunkLoaded(world, ChunkStructureStore.ChunkKey.of(snapshot)))) {
+                // 逐筆寫入的後端只保留記憶體中結構的已寫入內容，其餘在載入時讀取
+                if (store.isIncremental()) {
+                    persisted.remove(snapshot.getId());
+                }
+                continue;
+            }
+            
+            CatenaryStructure structure = createStructure(snapshot, world);
+            track(structure);
+            persisted.put(structure.snapshot());
+            enqueueRender(structure);
         }
     }
     
+    private static boolean isChunkLoaded(World world, ChunkStructureStore.ChunkKey key) {
+        return world.isChunkLoaded(key.getX(), key.getZ());
+    }
+    
+    /**
+     * 逐筆讀取所有已寫入的結構，在寫入執行緒上呼叫
+     */
+    private void scanStored(StructureStore.SnapshotConsumer consumer) throws IOException {
+        if (store.isIncremental()) {
+            store.scan(consumer);
+            return;
+        }
+        // 完整寫入的後端，已寫入的內容即為所有結構
+        for (StructureSnapshot snapshot : persisted.snapshots()) {
+            consumer.accept(snapshot);
+        }
+    }
+    
+    /**
+     * 匯出或匯入完成的回呼
+     */
+    @FunctionalInterface
+    public interface TransferCallback {
+        /**
+         * @param count 匯出或已匯入的結構數量
+         * @param error 失敗時的錯誤，成功時為 null
+         */
+        void done(long count, IOException error);
+    }
+    
+    /**
+     * 後端的索引查詢
+     */
+    @FunctionalInterface
+    private interface StoreQuery {
+        List<StructureSnapshot> find() throws IOException;
+    }
+    
+    /**
+     * 關閉儲存後端，應在背景寫入停止後呼叫
+     */
+    public void close() {
+        worldResidency.stop();
+        if (regionResidency != null) {
+            regionResidency.stop();
+        }
+        if (chunkResidency != null) {
+            chunkResidency.stop();
+        }
+        store.close();
+    }
+    
     /**
      * 添加新結構
      */
     public void addStructure(CatenaryStructure structure) {
-        structures.put(structure.getId(), structure);
-        saveStructures();
+        track(structure);
+        markDirty(structure);
     }
     
     /**
      * 移除結構
      */
     public void removeStructure(UUID structureId) {
-        if (structures.remove(structureId) != null) {
+        if (untrack(structureId)) {
             // 移除顯示實體
             plugin.getDisplayEntityManager().removeStructureEntities(structureId);
-            saveStructures();
+            markRemoved(structureId);
+        }
+    }
+    
+    /**
+     * 重新命名結構
+     */
+    public void renameStructure(CatenaryStructure structure, String name) {
+        structure.setName(name);
+        if (structures.get(structure.getId()) == structure) {
+            index.add(structure);
+        }
+        markDirty(structure);
+    }
+    
+    /**
+     * 加入管理並建立索引
+     */
+    private void track(CatenaryStructure structure) {
+        structures.put(structure.getId(), structure);
+        index.add(structure);
+        changeCatalog(structure.getId(), Optional.of(structure.snapshot()));
+    }
+    
+    /**
+     * 移出管理並移除索引
+     *
+     * @return 結構原本在管理中時為 true
+     */
+    private boolean untrack(UUID structureId) {
+        index.remove(structureId);
+        if (structures.remove(structureId) == null) {
+            return false;
+        }
+        changeCatalog(structureId, Optional.empty());
+        return true;
+    }
+    
+    /**
+     * 記錄尚未發布的變更，同一刻內的變更合併為一個版本
+     */
+    private void changeCatalog(UUID structureId, Optional<StructureSnapshot> snapshot) {
+        catalogChanges.put(structureId, snapshot);
+        if (catalogScheduled.compareAndSet(false, true)) {
+            plugin.getTaskScheduler().runGlobalNextTick(this::publishCatalog);
         }
     }
     
     /**
-     * 取得結構
+     * 在全域執行緒上套用等待中的變更並發布新版本
+     */
+    private synchronized void publishCatalog() {
+        catalogScheduled.set(false);
+        Map<UUID, Optional<StructureSnapshot>> changes = new HashMap<>();
+        for (Map.Entry<UUID, Optional<StructureSnapshot>> entry : catalogChanges.entrySet()) {
+            if (catalogChanges.remove(entry.getKey(), entry.getValue())) {
+                changes.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!changes.isEmpty()) {
+            catalog = catalog.apply(changes);
+        }
+    }
+    
+    /**
+     * 取得最近發布的結構集合版本
+     * 不可變且可在任何執行緒上讀取；本刻內的變更會在下一刻發布
+     */
+    public StructureCatalog getCatalog() {
+        return catalog;
+    }
+    
+    /**
+     * 平移結構
+     * 已掛載的結構只需傳送錨點，否則重新渲染
+     */
+    public void moveStructure(CatenaryStructure structure, double dx, double dy, double dz) {
+        Vector3D offset = new Vector3D(dx, dy, dz);
+        structure.setStart(structure.getStart().add(offset));
+        structure.setEnd(structure.getEnd().add(offset));
+        
+        if (!plugin.getDisplayEntityManager().moveStructure(structure.getId(), dx, dy, dz)) {
+            plugin.getDisplayEntityManager().renderStructure(structure);
+        }
+        markDirty(structure);
+    }
+    
+    /**
+     * 取得記憶體中的結構，已釋放的結構為 null
      */
     public CatenaryStructure getStructure(UUID structureId) {
         return structures.get(structureId);
     }
     
     /**
-     * 取得玩家的所有結構
+     * 取得結構，依區域載入時會在寫入執行緒上載入已釋放結構所在的區域
+     * 用於指令等玩家主動的存取，渲染等頻繁的查詢應使用 getStructure
+     *
+     * @param callback 收到結構，找不到時為 null；需要讀取儲存後端時在全域執行緒上呼叫，否則立即呼叫
      */
-    public List<CatenaryStructure> getPlayerStructures(UUID playerId) {
-        return structures.values().stream()
-            .filter(structure -> structure.getOwnerId().equals(playerId))
-            .collect(Collectors.toList());
+    public void loadStructure(UUID structureId, Consumer<CatenaryStructure> callback) {
+        CatenaryStructure structure = structures.get(structureId);
+        if (structure != null || regionResidency == null) {
+            callback.accept(structure);
+            return;
+        }
+        lookup(() -> {
+            try {
+                StructureSnapshot snapshot = store.findById(structureId);
+                return snapshot == null ? null : loadResident(snapshot);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not look up structure " + structureId + ": " + e.getMessage());
+                return null;
+            }
+        }, callback);
+    }
+    
+    /**
+     * 取得玩家所有結構的快照，依區域載入時包含已釋放的結構，但不會載入其所在的區域
+     *
+     * @param callback 需要讀取儲存後端時在全域執行緒上呼叫，否則立即呼叫
+     */
+    public void findPlayerStructures(UUID playerId, Consumer<List<StructureSnapshot>> callback) {
+        if (regionResidency == null) {
+            callback.accept(snapshots(resolve(index.findByOwner(playerId))));
+            return;
+        }
+        lookup(() -> new ArrayList<>(storedByOwner(playerId).values()), callback);
+    }
+    
+    /**
+     * 通過名稱搜尋玩家結構的快照，依區域載入時包含已釋放的結構，但不會載入其所在的區域
+     *
+     * @param callback 需要讀取儲存後端時在全域執行緒上呼叫，否則立即呼叫
+     */
+    public void findPlayerStructuresByName(UUID playerId, String name, Consumer<List<StructureSnapshot>> callback) {
+        if (regionResidency == null) {
+            callback.accept(snapshots(resolve(index.findByName(playerId, name))));
+            return;
+        }
+        String folded = StructureIndex.fold(name);
+        lookup(() -> {
+            List<StructureSnapshot> matches = new ArrayList<>();
+            for (StructureSnapshot snapshot : storedByOwner(playerId).values()) {
+                if (StructureIndex.fold(snapshot.getName()).contains(folded)) {
+                    matches.add(snapshot);
+                }
+            }
+            return matches;
+        }, callback);
     }
     
     /**
-     * 通過名稱搜尋玩家結構
+     * 取得世界中的所有結構
      */
-    public List<CatenaryStructure> findPlayerStructuresByName(UUID playerId, String name) {
-        return structures.values().stream()
-            .filter(structure -> structure.getOwnerId().equals(playerId))
-            .filter(structure -> structure.getName().toLowerCase().contains(name.toLowerCase()))
-            .collect(Collectors.toList());
+    public List<CatenaryStructure> getWorldStructures(String worldName) {
+        return resolve(index.findByWorld(worldName));
+    }
+    
+    /**
+     * 檢查玩家是否已達到可建立的結構數量上限，管理員不受限制
+     *
+     * @param callback 需要讀取儲存後端時在全域執行緒上呼叫，否則立即呼叫
+     */
+    public void hasReachedStructureLimit(Player player, Consumer<Boolean> callback) {
+        if (player.hasPermission("catenary.admin")) {
+            callback.accept(false);
+            return;
+        }
+        int limit = plugin.getConfigManager().getMaxStructuresPerPlayer();
+        countPlayerStructures(player.getUniqueId(), count -> callback.accept(count >= limit));
+    }
+    
+    /**
+     * 計算玩家的結構數量，依區域載入時以儲存後端的擁有者索引計入已釋放的結構，不讀取區域
+     *
+     * @param callback 需要讀取儲存後端時在全域執行緒上呼叫，否則立即呼叫
+     */
+    public void countPlayerStructures(UUID playerId, IntConsumer callback) {
+        if (regionResidency == null) {
+            callback.accept(index.findByOwner(playerId).size());
+            return;
+        }
+        lookup(() -> {
+            Set<UUID> ids = new HashSet<>();
+            try {
+                Set<UUID> stored = store.findIdsByOwner(playerId);
+                if (stored != null) {
+                    ids.addAll(stored);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not count structures of " + playerId + ": " + e.getMessage());
+            }
+            for (Map.Entry<UUID, Optional<StructureSnapshot>> change : persisted.getPending().entrySet()) {
+                if (change.getValue().isPresent() && change.getValue().get().getOwnerId().equals(playerId)) {
+                    ids.add(change.getKey());
+                } else {
+                    ids.remove(change.getKey());
+                }
+            }
+            ids.addAll(index.findByOwner(playerId));
+            return ids.size();
+        }, callback::accept);
+    }
+    
+    /**
+     * 在寫入執行緒上查詢儲存後端，再於全域執行緒上交給回呼
+     * 查詢與寫入、區域的載入與釋放依序執行，不會阻塞主執行緒
+     */
+    private <T> void lookup(Supplier<T> query, Consumer<T> callback) {
+        plugin.getWriteBehind().execute(() -> {
+            T result = query.get();
+            plugin.getTaskScheduler().runGlobal(() -> callback.accept(result));
+        });
+    }
+    
+    /**
+     * 合併儲存後端、等待寫入的變更與記憶體中的結構，取得擁有者目前所有結構的快照
+     * 在寫入執行緒上呼叫
+     */
+    private Map<UUID, StructureSnapshot> storedByOwner(UUID ownerId) {
+        Map<UUID, StructureSnapshot> snapshots = new LinkedHashMap<>();
+        try {
+            List<StructureSnapshot> stored = store.findByOwner(ownerId);
+            if (stored != null) {
+                for (StructureSnapshot snapshot : stored) {
+                    snapshots.put(snapshot.getId(), snapshot);
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not look up structures of " + ownerId + ": " + e.getMessage());
+        }
+        for (Map.Entry<UUID, Optional<StructureSnapshot>> change : persisted.getPending().entrySet()) {
+            if (change.getValue().isPresent() && change.getValue().get().getOwnerId().equals(ownerId)) {
+                snapshots.put(change.getKey(), change.getValue().get());
+            } else {
+                snapshots.remove(change.getKey());
+            }
+        }
+        for (CatenaryStructure structure : resolve(index.findByOwner(ownerId))) {
+            snapshots.put(structure.getId(), structure.snapshot());
+        }
+        return snapshots;
+    }
+    
+    /**
+     * 取得快照對應的結構，已釋放時載入所在的區域，在寫入執行緒上呼叫
+     */
+    private CatenaryStructure loadResident(StructureSnapshot snapshot) {
+        CatenaryStructure structure = structures.get(snapshot.getId());
+        if (structure != null || Bukkit.getWorld(snapshot.getWorldName()) == null) {
+            return structure;
+        }
+        try {
+            regionResidency.loadNow(RegionKey.of(snapshot));
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not load structure region " + RegionKey.of(snapshot) + ": " + e.getMessage());
+        }
+        return structures.get(snapshot.getId());
+    }
+    
+    private static List<StructureSnapshot> snapshots(List<CatenaryStructure> structures) {
+        List<StructureSnapshot> snapshots = new ArrayList<>(structures.size());
+        for (CatenaryStructure structure : structures) {
+            snapshots.add(structure.snapshot());
+        }
+        return snapshots;
+    }
+    
+    /**
+     * 取得玩家名稱以指定文字開頭的結構名稱，用於指令補全
+     */
+    public List<String> completePlayerStructureNames(UUID playerId, String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        for (CatenaryStructure structure : resolve(index.findByNamePrefix(playerId, prefix, limit))) {
+            names.add(structure.getName());
+        }
+        return names;
+    }
+    
+    private List<CatenaryStructure> resolve(Collection<UUID> structureIds) {
+        List<CatenaryStructure> result = new ArrayList<>(structureIds.size());
+        for (UUID structureId : structureIds) {
+            CatenaryStructure structure = structures.get(structureId);
+            if (structure != null) {
+                result.add(structure);
+            }
+        }
+        return result;
     }
     
     /**
@@ -256,6 +958,20 @@ public class StructureManager {
         }
     }
     
+    /**
+     * 取得目前在記憶體中的結構數量
+     */
+    public int getResidentCount() {
+        return structures.size();
+    }
+    
+    /**
+     * 取得區域的載入與釋放狀態，只有依區域載入的後端才有，其餘為 null
+     */
+    public RegionResidency getRegionResidency() {
+        return regionResidency;
+    }
+    
     /**
      * 取得所有結構
      */
@@ -0,0 +1,139 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.model.StructureSnapshot;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 結構資料的儲存後端
+ * 只處理結構快照的讀寫，世界解析與點位計算由 {@link StructureManager} 負責
+ */
+public interface StructureStore {
+
+    /**
+     * 儲存的資料是否存在
+     */
+    boolean exists();
+
+    /**
+     * 讀取所有結構
+     */
+    List<StructureSnapshot> load() throws IOException;
+
+    /**
+     * 逐筆讀取所有結構，預設讀取全部後逐筆交給呼叫端
+     * 支援逐筆讀取的後端不會同時在記憶體中保存所有結構，用於匯出等大量讀取
+     */
+    default void scan(SnapshotConsumer consumer) throws IOException {
+        for (StructureSnapshot snapshot : load()) {
+            consumer.accept(snapshot);
+        }
+    }
+
+    /**
+     * 以完整的結構集合覆寫儲存的資料
+     */
+    void save(Collection<StructureSnapshot> snapshots) throws IOException;
+
+    /**
+     * 寫入一批變更，預設以完整內容覆寫
+     *
+     * @param changes 變更的結構，值為空表示已移除
+     * @param snapshots 套用變更後的完整內容
+     */
+    default void saveChanges(Map<UUID, Optional<StructureSnapshot>> changes, Collection<StructureSnapshot> snapshots) throws IOException {
+        save(snapshots);
+    }
+
+    /**
+     * 是否逐筆寫入變更
+     * 逐筆寫入的後端不需要完整的內容即可保存，因此可以只載入需要的結構
+     */
+    default boolean isIncremental() {
+        return false;
+    }
+
+    /**
+     * 讀取指定世界的結構，預設讀取全部後過濾
+     */
+    default List<StructureSnapshot> load(Set<String> worldNames) throws IOException {
+        List<StructureSnapshot> snapshots = new ArrayList<>();
+        for (StructureSnapshot snapshot : load()) {
+            if (worldNames.contains(snapshot.getWorldName())) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * 以索引查詢擁有者的所有結構，包含未載入的世界
+     *
+     * @return 沒有索引的後端為 null，由呼叫端改用記憶體中的內容
+     */
+    default List<StructureSnapshot> findByOwner(UUID ownerId) throws IOException {
+        return null;
+    }
+
+    /**
+     * 查詢擁有者所有結構的 ID，用於計數
+     *
+     * @return 沒有索引的後端為 null，由呼叫端改用記憶體中的內容
+     */
+    default Set<UUID> findIdsByOwner(UUID ownerId) throws IOException {
+        List<StructureSnapshot> snapshots = findByOwner(ownerId);
+        if (snapshots == null) {
+            return null;
+        }
+        Set<UUID> ids = new HashSet<>();
+        for (StructureSnapshot snapshot : snapshots) {
+            ids.add(snapshot.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * 以 ID 查詢單一結構
+     *
+     * @return 找不到時為 null；沒有索引的後端一律為 null
+     */
+    default StructureSnapshot findById(UUID structureId) throws IOException {
+        return null;
+    }
+
+    /**
+     * 以索引查詢世界中的所有結構
+     *
+     * @return 沒有索引的後端為 null，由呼叫端改用記憶體中的內容
+     */
+    default List<StructureSnapshot> findByWorld(String worldName) throws IOException {
+        return null;
+    }
+
+    /**
+     * 取得用於日誌的描述
+     */
+    String describe();
+
+    /**
+     * 釋放後端持有的資源
+     */
+    default void close() {
+    }
+
+    /**
+     * 逐筆接收結構的回呼
+     */
+    @FunctionalInterface
+    interface SnapshotConsumer {
+        void accept(StructureSnapshot snapshot) throws IOException;
+    }
+}
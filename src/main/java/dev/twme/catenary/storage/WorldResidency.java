@@ -0,0 +1,44 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.Catenary;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * 依世界的載入與卸載綁定結構
+ * 世界在插件啟用後才載入時，讀取並渲染其中的結構；世界卸載時移除顯示並釋放結構。
+ * 未載入世界的結構仍保留在儲存中，寫入時不會遺失。
+ */
+public class WorldResidency implements Listener {
+
+    private final Catenary plugin;
+    private final StructureManager structureManager;
+
+    public WorldResidency(Catenary plugin, StructureManager structureManager) {
+        this.plugin = plugin;
+        this.structureManager = structureManager;
+    }
+
+    public void start() {
+        HandlerList.unregisterAll(this);
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    public void stop() {
+        HandlerList.unregisterAll(this);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        structureManager.bindWorld(event.getWorld().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        structureManager.releaseWorld(event.getWorld().getName());
+    }
+}
@@ -0,0 +1,111 @@
+package dev.twme.catenary.storage;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * 延遲合併的背景寫入
+ * 所有寫入都在同一條背景執行緒上依序執行；同一個鍵在延遲期間的多次要求只會寫入一次，
+ * 寫入工作本身負責取出最新的資料。
+ */
+public class WriteBehindExecutor {
+
+    private final Logger logger;
+    private final ScheduledExecutorService executor;
+    // 已排程但尚未執行的寫入，以鍵合併
+    private final Map<String, Runnable> pending = new ConcurrentHashMap<>();
+    private volatile boolean shutdown;
+
+    public WriteBehindExecutor(Logger logger) {
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Catenary-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 排程寫入，延遲期間內同一個鍵的後續要求會併入已排程的寫入
+     * 關閉後會直接在呼叫的執行緒上寫入
+     */
+    public void schedule(String key, Runnable write, long delayMillis) {
+        if (shutdown) {
+            run(key, write);
+            return;
+        }
+        if (pending.putIfAbsent(key, write) == null) {
+            executor.schedule(() -> runPending(key), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 在寫入執行緒上盡快執行工作，與寫入依序進行
+     * 關閉後會直接在呼叫的執行緒上執行
+     */
+    public void execute(Runnable task) {
+        if (shutdown) {
+            run("task", task);
+            return;
+        }
+        executor.execute(() -> run("task", task));
+    }
+
+    /**
+     * 立即執行所有等待中的寫入，並等待完成
+     */
+    public void flush() {
+        if (shutdown) {
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                for (String key : new ArrayList<>(pending.keySet())) {
+                    runPending(key);
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("Interrupted while flushing pending writes");
+        } catch (ExecutionException e) {
+            logger.severe("Could not flush pending writes: " + e.getCause());
+        }
+    }
+
+    /**
+     * 寫入所有等待中的資料並停止背景執行緒
+     */
+    public void shutdown() {
+        flush();
+        shutdown = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("Writer thread did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runPending(String key) {
+        Runnable write = pending.remove(key);
+        if (write != null) {
+            run(key, write);
+        }
+    }
+
+    private void run(String key, Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            logger.severe("Write '" + key + "' failed: " + e.getMessage());
+        }
+    }
+}
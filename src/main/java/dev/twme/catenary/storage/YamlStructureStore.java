@@ -0,0 +1,148 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * 以 structures.yml 儲存結構
+ */
+public class YamlStructureStore implements StructureStore {
+
+    private final File file;
+    private final Logger logger;
+
+    public YamlStructureStore(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public List<StructureSnapshot> load() {
+        List<StructureSnapshot> snapshots = new ArrayList<>();
+        FileConfiguration config = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection structuresSection = config.getConfigurationSection("structures");
+        if (structuresSection == null) {
+            return snapshots;
+        }
+
+        for (String key : structuresSection.getKeys(false)) {
+            ConfigurationSection section = structuresSection.getConfigurationSection(key);
+            if (section == null) continue;
+
+            try {
+                UUID id = UUID.fromString(key);
+                UUID ownerId = UUID.fromString(section.getString("owner", ""));
+                String name = section.getString("name", "未命名結構");
+                String worldName = section.getString("world");
+
+                // 載入向量
+                ConfigurationSection startSection = section.getConfigurationSection("start");
+                ConfigurationSection endSection = section.getConfigurationSection("end");
+                Vector3D start = new Vector3D(
+                    startSection.getDouble("x"),
+                    startSection.getDouble("y"),
+                    startSection.getDouble("z")
+                );
+                Vector3D end = new Vector3D(
+                    endSection.getDouble("x"),
+                    endSection.getDouble("y"),
+                    endSection.getDouble("z")
+                );
+
+                // 載入渲染項目
+                ConfigurationSection renderSection = section.getConfigurationSection("render");
+                Material material = Material.getMaterial(renderSection.getString("material", "CHAIN"));
+                if (material == null) material = Material.CHAIN;
+
+                snapshots.add(new StructureSnapshot(
+                    id, ownerId, name, worldName, start, end,
+                    section.getDouble("slack", 0.3),
+                    section.getInt("segments", 10),
+                    section.getDouble("spacing", 0.5),
+                    material,
+                    renderSection.getBoolean("isBlock", false),
+                    (float) renderSection.getDouble("scale", 1.0),
+                    (float) renderSection.getDouble("rotationX", 0),
+                    (float) renderSection.getDouble("rotationY", 0),
+                    (float) renderSection.getDouble("rotationZ", 0),
+                    section.getBoolean("visible", true)
+                ));
+            } catch (Exception e) {
+                logger.warning("Error loading structure " + key + ": " + e.getMessage());
+            }
+        }
+        return snapshots;
+    }
+
+    @Override
+    public void save(Collection<StructureSnapshot> snapshots) throws IOException {
+        FileConfiguration config = new YamlConfiguration();
+        ConfigurationSection structuresSection = config.createSection("structures");
+
+        for (StructureSnapshot structure : snapshots) {
+            ConfigurationSection section = structuresSection.createSection(structure.getId().toString());
+
+            // 保存基本資訊
+            section.set("owner", structure.getOwnerId().toString());
+            section.set("name", structure.getName());
+            section.set("world", structure.getWorldName());
+
+            // 保存向量
+            ConfigurationSection startSection = section.createSection("start");
+            startSection.set("x", structure.getStart().getX());
+            startSection.set("y", structure.getStart().getY());
+            startSection.set("z", structure.getStart().getZ());
+
+            ConfigurationSection endSection = section.createSection("end");
+            endSection.set("x", structure.getEnd().getX());
+            endSection.set("y", structure.getEnd().getY());
+            endSection.set("z", structure.getEnd().getZ());
+
+            // 保存參數
+            section.set("slack", structure.getSlack());
+            section.set("segments", structure.getSegments());
+            section.set("spacing", structure.getSpacing());
+
+            // 保存渲染項目
+            ConfigurationSection renderSection = section.createSection("render");
+            renderSection.set("material", structure.getMaterial().name());
+            renderSection.set("isBlock", structure.isBlock());
+            renderSection.set("scale", structure.getScale());
+            renderSection.set("rotationX", structure.getRotationX());
+            renderSection.set("rotationY", structure.getRotationY());
+            renderSection.set("rotationZ", structure.getRotationZ());
+
+            // 保存可見性
+            section.set("visible", structure.isVisible());
+        }
+
+        AtomicFiles.write(file, config.saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String describe() {
+        return file.getName();
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
@@ -11,10 +11,10 @@ import org.bukkit.Particle;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.Color;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 工作室管理器
@@ -22,7 +22,7 @@ import java.util.*;
 public class StudioManager {
     
     private final Catenary plugin;
-    private final Map<UUID, SessionData> activeSessions = new HashMap<>();
+    private final Map<UUID, SessionData> activeSessions = new ConcurrentHashMap<>();
     private final CatenaryCalculator calculator;
     
     public StudioManager(Catenary plugin) {
@@ -119,61 +119,62 @@ public class StudioManager {
         
         session.previewPoints = previewPoints;
         
-        // 顯示預覽粒子
-        new BukkitRunnable() {
-            int counter = 0;
+        // 顯示預覽粒子，在玩家所屬的執行緒上執行
+        int[] counter = {0};
+        plugin.getTaskScheduler().runForEntityTimer(player, task -> {
+            // 檢查會話是否仍然活動
+            SessionData activeSession = activeSessions.get(player.getUniqueId());
+            if (activeSession == null || activeSession.state != SessionState.READY_TO_CREATE) {
+                task.cancel();
+                return;
+            }
             
-            @Override
-            public void run() {
-                // 檢查會話是否仍然活動
-                if (!activeSessions.containsKey(player.getUniqueId()) ||
-                    activeSessions.get(player.getUniqueId()).state != SessionState.READY_TO_CREATE) {
-                    cancel();
-                    return;
-                }
-                
-                // 計算預覽方向 - 為了更好的視覺效果，使用較長的粒子線條
-                List<Vector3D> currentPoints = activeSessions.get(player.getUniqueId()).previewPoints;
-                
-                // 顯示每個點位的粒子和方向
-                for (int i = 0; i < currentPoints.size() - 1; i++) {
-                    Vector3D current = currentPoints.get(i);
-                    Vector3D next = currentPoints.get(i + 1);
-                    Vector3D direction = next.subtract(current).normalize().multiply(0.1); // 短向量表示方向
-                    
-                    // 顯示點位粒子
-                    player.spawnParticle(
-                        Particle.END_ROD,
-                        current.getX(), current.getY(), current.getZ(),
-                        1, 0, 0, 0, 0
-                    );
-                    
-                    // 顯示方向粒子 - 修復此處的錯誤
-                    Particle.DustOptions dustOptions = new Particle.DustOptions(Color.RED, 1.0f); // 建立紅色粒子設定
-                    player.spawnParticle(
-                        Particle.DUST,
-                        current.getX(), current.getY(), current.getZ(),
-                        1, 0, 0, 0,
-                        dustOptions // 提供必要的 DustOptions 物件
-                    );
-                }
+            counter[0]++;
+            if (counter[0] >= 100) { // 5秒後停止預覽（假設每秒運行20次）
+                task.cancel();
+            }
+            
+            // 伺服器負載高時降低預覽粒子的顯示頻率
+            if ((counter[0] - 1) % plugin.getQualityGovernor().getTier().getPreviewInterval() != 0) {
+                return;
+            }
+            
+            // 計算預覽方向 - 為了更好的視覺效果，使用較長的粒子線條
+            List<Vector3D> currentPoints = activeSession.previewPoints;
+            
+            // 顯示每個點位的粒子和方向
+            for (int i = 0; i < currentPoints.size() - 1; i++) {
+                Vector3D current = currentPoints.get(i);
+                Vector3D next = currentPoints.get(i + 1);
+                Vector3D direction = next.subtract(current).normalize().multiply(0.1); // 短向量表示方向
                 
-                // 顯示最後一個點
-                if (!currentPoints.isEmpty()) {
-                    Vector3D last = currentPoints.get(currentPoints.size() - 1);
-                    player.spawnParticle(
-                        Particle.END_ROD,
-                        last.getX(), last.getY(), last.getZ(),
-                        1, 0, 0, 0, 0
-                    );
-                }
+                // 顯示點位粒子
+                player.spawnParticle(
+                    Particle.END_ROD,
+                    current.getX(), current.getY(), current.getZ(),
+                    1, 0, 0, 0, 0
+                );
                 
-                counter++;
-                if (counter >= 100) { // 5秒後停止預覽（假設每秒運行20次）
-                    cancel();
-                }
+                // 顯示方向粒子 - 修復此處的錯誤
+                Particle.DustOptions dustOptions = new Particle.DustOptions(Color.RED, 1.0f); // 建立紅色粒子設定
+                player.spawnParticle(
+                    Particle.DUST,
+                    current.getX(), current.getY(), current.getZ(),
+                    1, 0, 0, 0,
+                    dustOptions // 提供必要的 DustOptions 物件
+                );
+            }
+            
+            // 顯示最後一個點
+            if (!currentPoints.isEmpty()) {
+                Vector3D last = currentPoints.get(currentPoints.size() - 1);
+                player.spawnParticle(
+                    Particle.END_ROD,
+                    last.getX(), last.getY(), last.getZ(),
+                    1, 0, 0, 0, 0
+                );
             }
-        }.runTaskTimer(plugin, 0L, 1L);
+        }, 1L, 1L);
         
         // 提示玩家確認或調整
         player.sendMessage("§a預覽已顯示。請輸入 §e/catenary confirm §a確認建立，或使用 §e/catenary adjust <參數> <值> §a調整參數。");
@@ -270,6 +271,24 @@ public class StudioManager {
             return;
         }
         
+        // 再次檢查結構數量上限，計數完成後才建立
+        plugin.getStructureManager().hasReachedStructureLimit(player, reached -> {
+            if (reached) {
+                player.sendMessage("§c你已達到懸掛結構數量上限 (" + plugin.getConfigManager().getMaxStructuresPerPlayer() + ")！");
+                return;
+            }
+            // 計數期間會話可能已取消或已確認
+            if (session.state != SessionState.READY_TO_CREATE || !activeSessions.remove(player.getUniqueId(), session)) {
+                return;
+            }
+            createStructure(player, session);
+        });
+    }
+    
+    /**
+     * 依確認的會話建立並渲染懸掛結構
+     */
+    private void createStructure(Player player, SessionData session) {
         // 建立結構物件
         CatenaryStructure structure = new CatenaryStructure(
             UUID.randomUUID(),
@@ -284,14 +303,6 @@ public class StudioManager {
             session.preset.getRenderItem()
         );
         
-        // 計算並設定點位
-        structure.setPoints(calculator.calculatePoints(
-            session.firstPoint,
-            session.secondPoint,
-            structure.getSlack(),
-            structure.getSegments()
-        ));
-        
         // 保存結構
         plugin.getStructureManager().addStructure(structure);
         
@@ -299,9 +310,6 @@ public class StudioManager {
         plugin.getDisplayEntityManager().renderStructure(structure);
         
         player.sendMessage("§a懸掛結構已成功建立！");
-        
-        // 結束會話
-        activeSessions.remove(player.getUniqueId());
     }
     
     /**
@@ -0,0 +1,375 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.math.CatenaryCalculator;
+import dev.twme.catenary.math.PointCache;
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.CatenaryStructure;
+import dev.twme.catenary.model.Preset;
+import dev.twme.catenary.model.RenderTemplate;
+import dev.twme.catenary.model.StructureSnapshot;
+import dev.twme.catenary.scheduler.TaskScheduler;
+import org.bukkit.Material;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 以 {@link InMemoryRenderSink} 驅動顯示實體管理器，驗證規劃、套用、預算與移動的行為
+ */
+class DisplayEntityManagerTest {
+
+    private static final String WORLD = "world";
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private TestSettings settings;
+    private ManualScheduler scheduler;
+    private InMemoryRenderSink sink;
+    private DisplayEntityManager manager;
+
+    @BeforeEach
+    void setUp() {
+        settings = new TestSettings();
+        scheduler = new ManualScheduler();
+        sink = new InMemoryRenderSink(List.of(WORLD));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    void rendersEveryPlannedPoint() {
+        start();
+        StructureSnapshot snapshot = structure(UUID.randomUUID(), 1, 10);
+        int expected = manager.planRender(snapshot).size();
+
+        manager.renderStructure(snapshot);
+        tickUntil(() -> sink.getLiveCount(snapshot.getId()) == expected);
+
+        assertTrue(expected > 0);
+        assertEquals(expected, manager.getRenderBudget().getWorldCount(WORLD));
+        assertTrue(sink.getFlushCount() > 0);
+    }
+
+    @Test
+    void rerenderReplacesPreviousDisplays() {
+        start();
+        StructureSnapshot snapshot = structure(UUID.randomUUID(), 1, 10);
+        int expected = manager.planRender(snapshot).size();
+
+        manager.renderStructure(snapshot);
+        tickUntil(() -> sink.getLiveCount(snapshot.getId()) == expected);
+        long firstSpawns = sink.getSpawnCount();
+        manager.renderStructure(snapshot);
+        tickUntil(() -> sink.getSpawnCount() == firstSpawns + expected);
+
+        assertEquals(expected, sink.getLiveCount(snapshot.getId()));
+        assertEquals(expected, sink.getRemoveCount());
+        assertEquals(expected, manager.getRenderBudget().getWorldCount(WORLD));
+    }
+
+    @Test
+    void removeReleasesDisplaysAndBudget() {
+        start();
+        StructureSnapshot snapshot = structure(UUID.randomUUID(), 1, 10);
+        manager.renderStructure(snapshot);
+        tickUntil(() -> sink.getLiveCount() > 0);
+
+        manager.removeStructureEntities(snapshot.getId());
+
+        assertEquals(0, sink.getLiveCount());
+        assertEquals(0, manager.getRenderBudget().getWorldCount(WORLD));
+        assertFalse(manager.isRendered(snapshot.getId()));
+    }
+
+    @Test
+    void chargesOnlySpawnedDisplays() {
+        List<Runnable> batches = new ArrayList<>();
+        sink = new InMemoryRenderSink(List.of(WORLD)) {
+            private int spawns;
+
+            @Override
+            public void execute(String worldName, int chunkX, int chunkZ, Runnable batch) {
+                batches.add(batch);
+            }
+
+            @Override
+            public RenderHandle spawnBlock(String worldName, double x, double y, double z, RenderTemplate template,
+                                           UUID structureId, Quaternionf rotation, Vector3f translation, RenderHandle anchor) {
+                // 每兩個顯示物件有一個生成失敗
+                return spawns++ % 2 == 0 ? null : super.spawnBlock(worldName, x, y, z, template, structureId,
+                    rotation, translation, anchor);
+            }
+        };
+        start();
+        StructureSnapshot snapshot = structure(UUID.randomUUID(), 1, 10);
+        manager.renderStructure(snapshot);
+        tickUntil(() -> !batches.isEmpty());
+
+        // 區塊批次尚未執行，還沒有佔用
+        assertEquals(0, manager.getRenderBudget().getWorldCount(WORLD));
+
+        for (Runnable batch : batches) {
+            batch.run();
+        }
+        int live = sink.getLiveCount(snapshot.getId());
+        assertTrue(live > 0);
+        assertEquals(live, manager.getRenderBudget().getWorldCount(WORLD));
+        assertEquals(live, manager.getRenderBudget().getChunkCount(WORLD, 0, 0));
+    }
+
+    @Test
+    void clipsToTheRemainingChunkBudget() {
+        settings.maxDisplaysPerChunk = 6;
+        start();
+        UUID owner = UUID.randomUUID();
+        StructureSnapshot first = structure(owner, 1, 10);
+        StructureSnapshot second = structure(owner, 2, 12);
+        // 位於另一個區塊，單一規劃執行緒依序處理，出現時代表第二個結構已經套用
+        StructureSnapshot marker = structure(owner, 20, 10);
+
+        manager.renderStructure(first);
+        tickUntil(() -> sink.getLiveCount(first.getId()) > 0);
+        manager.renderStructure(second);
+        manager.renderStructure(marker);
+        tickUntil(() -> sink.getLiveCount(marker.getId()) > 0);
+
+        // 第一個結構先以較大的間距重新規劃，第二個結構只取得剩餘的預算
+        int inChunk = sink.getLiveCount(first.getId()) + sink.getLiveCount(second.getId());
+        assertTrue(sink.getLiveCount(first.getId()) > 0);
+        assertTrue(inChunk <= 6, "chunk budget exceeded: " + inChunk);
+        assertEquals(inChunk, manager.getRenderBudget().getChunkCount(WORLD, 0, 0));
+    }
+
+    @Test
+    void riggedStructureMovesThroughAnchors() {
+        settings.riggingMode = RiggingMode.STRUCTURE;
+        start();
+        StructureSnapshot snapshot = structure(UUID.randomUUID(), 1, 10);
+        int points = manager.planRender(snapshot).size();
+        manager.renderStructure(snapshot);
+        // 錨點加上所有渲染點
+        tickUntil(() -> sink.getLiveCount(snapshot.getId()) == points + 1);
+        List<Double> before = heights();
+
+        assertTrue(manager.moveStructure(snapshot.getId(), 0, 5, 0));
+
+        assertEquals(1, sink.getMoveCount());
+        List<Double> after = heights();
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.get(i) + 5, after.get(i), 1e-9);
+        }
+    }
+
+    @Test
+    void riggedMoveChargesTheNewChunks() {
+        settings.riggingMode = RiggingMode.STRUCTURE;
+        start();
+        StructureSnapshot snapshot = structure(UUID.randomUUID(), 1, 10);
+        int points = manager.planRender(snapshot).size();
+        manager.renderStructure(snapshot);
+        tickUntil(() -> sink.getLiveCount(snapshot.getId()) == points + 1);
+
+        // 從區塊 (0, 0) 移到區塊 (2, 0)
+        assertTrue(manager.moveStructure(snapshot.getId(), 32, 0, 0));
+
+        assertEquals(0, manager.getRenderBudget().getChunkCount(WORLD, 0, 0));
+        assertEquals(points, manager.getRenderBudget().getChunkCount(WORLD, 2, 0));
+        assertEquals(points, manager.getRenderBudget().getWorldCount(WORLD));
+
+        manager.removeStructureEntities(snapshot.getId());
+        assertEquals(0, manager.getRenderBudget().getChunkCount(WORLD, 2, 0));
+    }
+
+    @Test
+    void unriggedStructureIsNotMovedInPlace() {
+        start();
+        StructureSnapshot snapshot = structure(UUID.randomUUID(), 1, 10);
+        manager.renderStructure(snapshot);
+        tickUntil(() -> sink.getLiveCount() > 0);
+
+        assertFalse(manager.moveStructure(snapshot.getId(), 0, 5, 0));
+        assertEquals(0, sink.getMoveCount());
+    }
+
+    @Test
+    void skipsStructuresInUnloadedWorlds() {
+        start();
+        StructureSnapshot snapshot = new StructureSnapshot(UUID.randomUUID(), UUID.randomUUID(), "test", "world_nether",
+            new Vector3D(1, 64, 1), new Vector3D(10, 64, 1), 1.0, 20, 0.5, Material.CHAIN, false,
+            1f, 0f, 0f, 0f, true);
+        StructureSnapshot loaded = structure(UUID.randomUUID(), 1, 10);
+
+        manager.renderStructure(snapshot);
+        manager.renderStructure(loaded);
+        tickUntil(() -> sink.getLiveCount(loaded.getId()) > 0);
+
+        assertEquals(0, sink.getLiveCount(snapshot.getId()));
+        assertEquals(0, manager.getRenderBudget().getWorldCount("world_nether"));
+    }
+
+    private void start() {
+        manager = new DisplayEntityManager(new TestEnvironment(), sink);
+    }
+
+    private static StructureSnapshot structure(UUID ownerId, double z, double length) {
+        return new StructureSnapshot(UUID.randomUUID(), ownerId, "test", WORLD,
+            new Vector3D(1, 64, z), new Vector3D(1 + length, 64, z), 1.0, 20, 0.5, Material.CHAIN, false,
+            1f, 0f, 0f, 0f, true);
+    }
+
+    private List<Double> heights() {
+        List<Double> heights = new ArrayList<>();
+        for (RenderHandle handle : sink.getLiveHandles()) {
+            heights.add(handle.getY());
+        }
+        Collections.sort(heights);
+        return heights;
+    }
+
+    /**
+     * 推進伺服器刻直到條件成立，規劃在背景執行緒上完成
+     */
+    private void tickUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not reached within " + TIMEOUT_MILLIS + " ms");
+            }
+            scheduler.tick();
+            Thread.onSpinWait();
+        }
+    }
+
+    private final class TestEnvironment implements RenderEnvironment {
+        private final PointCache points = new PointCache(new CatenaryCalculator(), 64);
+
+        @Override
+        public RenderSettings getSettings() {
+            return settings;
+        }
+
+        @Override
+        public TaskScheduler getScheduler() {
+            return scheduler;
+        }
+
+        @Override
+        public Logger getLogger() {
+            return Logger.getLogger("DisplayEntityManagerTest");
+        }
+
+        @Override
+        public QualityTier getQualityTier() {
+            return QualityTier.HIGH;
+        }
+
+        @Override
+        public List<Vector3D> getPoints(Vector3D start, Vector3D end, double slack, int segments) {
+            return points.getPoints(start, end, slack, segments);
+        }
+
+        @Override
+        public RenderTemplate getTemplate(Material material, boolean block, float scale) {
+            return new RenderTemplate(material, block, scale, null);
+        }
+
+        @Override
+        public CatenaryStructure getStructure(UUID structureId) {
+            return null;
+        }
+
+        @Override
+        public Collection<Preset> getPresets() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public File getResourcePackFile() {
+            return new File("build/catenary-models.zip");
+        }
+    }
+
+    private static final class TestSettings implements RenderSettings {
+        private int maxDisplaysPerChunk;
+        private RiggingMode riggingMode = RiggingMode.NONE;
+
+        @Override
+        public boolean isDebugMode() {
+            return false;
+        }
+
+        @Override
+        public int getPlannerThreads() {
+            return 1;
+        }
+
+        @Override
+        public int getSpawnBudgetPerTick() {
+            return 1000;
+        }
+
+        @Override
+        public RiggingMode getRiggingMode() {
+            return riggingMode;
+        }
+
+        @Override
+        public double getStructureRiggingMaxSpan() {
+            return 32.0;
+        }
+
+        @Override
+        public int getMoveInterpolationTicks() {
+            return 0;
+        }
+
+        @Override
+        public boolean isBakedMode() {
+            return false;
+        }
+
+        @Override
+        public double getBakedSectionLength() {
+            return 4.0;
+        }
+
+        @Override
+        public int getMaxDisplaysPerChunk() {
+            return maxDisplaysPerChunk;
+        }
+
+        @Override
+        public int getMaxDisplaysPerWorld() {
+            return 0;
+        }
+
+        @Override
+        public int getMaxDisplaysPerPlayer() {
+            return 0;
+        }
+
+        @Override
+        public boolean isFarFieldEnabled() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.scheduler.SchedulerTask;
+import dev.twme.catenary.scheduler.TaskScheduler;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 由測試推進的排程器，全域計時任務只在 {@link #tick()} 時執行，其餘任務立即執行
+ */
+final class ManualScheduler implements TaskScheduler {
+
+    private final List<Consumer<SchedulerTask>> timers = new ArrayList<>();
+    private final SchedulerTask handle = new SchedulerTask() {
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * 執行一刻的全域計時任務
+     */
+    void tick() {
+        for (Consumer<SchedulerTask> timer : timers) {
+            timer.accept(handle);
+        }
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        task.run();
+    }
+
+    @Override
+    public void runGlobalNextTick(Runnable task) {
+        task.run();
+    }
+
+    @Override
+    public SchedulerTask runGlobalTimer(Consumer<SchedulerTask> task, long delay, long period) {
+        timers.add(task);
+        return handle;
+    }
+
+    @Override
+    public void runAt(World world, int chunkX, int chunkZ, Runnable task) {
+        task.run();
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task) {
+        task.run();
+    }
+
+    @Override
+    public SchedulerTask runForEntityTimer(Entity entity, Consumer<SchedulerTask> task, long delay, long period) {
+        return null;
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        task.run();
+    }
+
+    @Override
+    public void cancelAll() {
+        timers.clear();
+    }
+}
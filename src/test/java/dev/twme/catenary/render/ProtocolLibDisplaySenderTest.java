@@ -0,0 +1,83 @@
+package dev.twme.catenary.render;
+
+import org.bukkit.Material;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 驗證虛擬顯示的中繼資料索引與 1.21.4 的顯示實體一致
+ * 顯示實體: 8 插值延遲、9 變換插值時間、11 平移、12 縮放、13 左旋轉、14 右旋轉、
+ * 16 亮度、17 可見距離、18 陰影半徑、19 陰影強度；方塊展示 23 方塊狀態；物品展示 23 物品、24 顯示類型
+ */
+class ProtocolLibDisplaySenderTest {
+
+    private static final Object CONTENT = new Object();
+
+    @Test
+    void transformUsesDisplayIndices() {
+        VirtualDisplay display = display(-1, new Vector3f(1, 2, 3), 2f);
+
+        Map<Integer, Object> values = collect(out -> ProtocolLibDisplaySender.writeTransform(display, 10, out));
+
+        assertEquals(List.of(8, 9, 11, 12, 13, 14), new ArrayList<>(values.keySet()));
+        assertEquals(0, values.get(8));
+        assertEquals(10, values.get(9));
+        assertEquals(new Vector3f(1, 2, 3), values.get(11));
+        assertEquals(new Vector3f(2, 2, 2), values.get(12));
+        assertEquals(new Quaternionf().rotateY(0.5f), values.get(13));
+        assertEquals(new Quaternionf(), values.get(14));
+    }
+
+    @Test
+    void blockDisplaySpawnMetadata() {
+        VirtualDisplay display = display(-1, new Vector3f(), 1f);
+
+        Map<Integer, Object> values = collect(out -> ProtocolLibDisplaySender.writeSpawnMetadata(display, CONTENT, out));
+
+        assertEquals(List.of(8, 9, 11, 12, 13, 14, 16, 17, 18, 19, 23), new ArrayList<>(values.keySet()));
+        // 方塊光與天空光都為 15
+        assertEquals(0x00F000F0, values.get(16));
+        assertEquals(64f, values.get(17));
+        assertEquals(0f, values.get(18));
+        assertEquals(0f, values.get(19));
+        assertEquals(0, values.get(9));
+        assertSame(CONTENT, values.get(23));
+    }
+
+    @Test
+    void itemDisplaySpawnMetadataIncludesDisplayType() {
+        VirtualDisplay display = display(3, new Vector3f(), 4f);
+
+        Map<Integer, Object> values = collect(out -> ProtocolLibDisplaySender.writeSpawnMetadata(display, CONTENT, out));
+
+        assertEquals(List.of(8, 9, 11, 12, 13, 14, 16, 17, 18, 19, 23, 24), new ArrayList<>(values.keySet()));
+        assertSame(CONTENT, values.get(23));
+        assertEquals((byte) 0, values.get(24));
+    }
+
+    private static VirtualDisplay display(int variant, Vector3f translation, float scale) {
+        return new VirtualDisplay(1, UUID.randomUUID(), "world", 0, 64, 0, Material.CHAIN, variant, false,
+            new Quaternionf().rotateY(0.5f), translation, scale);
+    }
+
+    private static Map<Integer, Object> collect(Consumer<ProtocolLibDisplaySender.MetadataWriter> writer) {
+        Map<Integer, Object> values = new LinkedHashMap<>();
+        writer.accept((index, value) -> {
+            if (values.put(index, value) != null) {
+                throw new AssertionError("Duplicate metadata index " + index);
+            }
+        });
+        return values;
+    }
+}
@@ -0,0 +1,89 @@
+package dev.twme.catenary.render;
+
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 不發送封包、只記錄每位玩家可見虛擬顯示與封包順序的發送端
+ * 用於在沒有封包函式庫的環境下驗證虛擬顯示的可見範圍、封包數量與順序
+ */
+final class RecordingDisplaySender implements VirtualDisplaySender {
+
+    private final AtomicInteger entityIdCounter = new AtomicInteger(1_000_000_000);
+    private final Map<UUID, Set<Integer>> visible = new ConcurrentHashMap<>();
+    private final AtomicLong spawnPackets = new AtomicLong();
+    private final AtomicLong updatePackets = new AtomicLong();
+    private final AtomicLong destroyPackets = new AtomicLong();
+    // 依發送順序記錄的封包，例如 "spawn 12"、"update 12 10"、"destroy [12, 13]"
+    private final List<String> packets = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public int allocateEntityId() {
+        return entityIdCounter.incrementAndGet();
+    }
+
+    @Override
+    public void spawn(Player player, Collection<VirtualDisplay> displays) {
+        Set<Integer> ids = visible.computeIfAbsent(player.getUniqueId(), key -> ConcurrentHashMap.newKeySet());
+        for (VirtualDisplay display : displays) {
+            ids.add(display.getEntityId());
+            spawnPackets.incrementAndGet();
+            packets.add("spawn " + display.getEntityId());
+        }
+    }
+
+    @Override
+    public void update(Player player, VirtualDisplay display, int interpolationTicks) {
+        updatePackets.incrementAndGet();
+        packets.add("update " + display.getEntityId() + " " + interpolationTicks);
+    }
+
+    @Override
+    public void destroy(Player player, Collection<Integer> entityIds) {
+        Set<Integer> ids = visible.get(player.getUniqueId());
+        if (ids != null) {
+            ids.removeAll(entityIds);
+        }
+        destroyPackets.incrementAndGet();
+        packets.add("destroy " + new ArrayList<>(entityIds));
+    }
+
+    /**
+     * 取得玩家目前看得到的虛擬顯示實體ID
+     */
+    public Set<Integer> getVisible(UUID playerId) {
+        Set<Integer> ids = visible.get(playerId);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * 取得依發送順序記錄的封包
+     */
+    public List<String> getPackets() {
+        synchronized (packets) {
+            return new ArrayList<>(packets);
+        }
+    }
+
+    public long getSpawnPackets() {
+        return spawnPackets.get();
+    }
+
+    public long getUpdatePackets() {
+        return updatePackets.get();
+    }
+
+    public long getDestroyPackets() {
+        return destroyPackets.get();
+    }
+}
@@ -0,0 +1,219 @@
+package dev.twme.catenary.render;
+
+import com.sun.management.ThreadMXBean;
+import dev.twme.catenary.math.CatenaryCalculator;
+import dev.twme.catenary.math.Vector3D;
+import org.joml.Quaternionf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 比較 RenderPlanner 與舊版以 List 與物件計算自動密度的每次規劃配置量與耗時
+ * 執行: mvn test -Dtest=RenderPlannerBenchmark -Dcatenary.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "catenary.benchmark", matches = "true")
+class RenderPlannerBenchmark {
+
+    private static final int CURVES = 256;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final double SPACING = 0.5;
+
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private List<List<Vector3D>> curves;
+    // 保存結果避免被 JIT 消除
+    private long sink;
+
+    @BeforeEach
+    void setUp() {
+        assertTrue(threads.isThreadAllocatedMemorySupported(), "JVM must report per-thread allocation");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        curves = generate(CURVES);
+    }
+
+    @Test
+    void plannerVersusListPath() {
+        RenderPlanner planner = new RenderPlanner();
+        RenderPlan plan = new RenderPlan();
+
+        Result legacy = measure("list", () -> {
+            for (List<Vector3D> points : curves) {
+                sink += legacyPlan(points, SPACING).size();
+            }
+        });
+        Result reused = measure("planner", () -> {
+            for (List<Vector3D> points : curves) {
+                sink += planner.plan(points, SPACING, plan).size();
+            }
+        });
+        // 每次規劃都建立新的計畫時，配置量包含計畫陣列的成長
+        Result fresh = measure("planner+new", () -> {
+            for (List<Vector3D> points : curves) {
+                sink += planner.plan(points, SPACING, new RenderPlan()).size();
+            }
+        });
+
+        long points = 0;
+        for (List<Vector3D> curve : curves) {
+            points += planner.plan(curve, SPACING, plan).size();
+        }
+        System.out.printf("%d curves, spacing %.1f, %.1f render points/plan%n%-12s %14s %12s%n",
+            CURVES, SPACING, (double) points / CURVES, "path", "bytes/plan", "ns/plan");
+        for (Result result : List.of(legacy, reused, fresh)) {
+            System.out.printf("%-12s %14.1f %12.1f%n", result.name, result.bytesPerPlan, result.nanosPerPlan);
+        }
+
+        assertTrue(reused.bytesPerPlan * 100 < legacy.bytesPerPlan,
+            "reused planner should allocate under 1% of the list path");
+        assertTrue(fresh.bytesPerPlan < legacy.bytesPerPlan,
+            "planner with a new plan should allocate less than the list path");
+    }
+
+    /**
+     * 預熱後取多輪的平均配置量與耗時
+     */
+    private Result measure(String name, Runnable round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            round.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - allocated;
+        double plans = (double) MEASURED_ROUNDS * CURVES;
+        return new Result(name, bytes / plans, elapsed / plans);
+    }
+
+    /**
+     * 產生長度、落差與段數各異的懸鏈線
+     */
+    private static List<List<Vector3D>> generate(int count) {
+        Random random = new Random(42);
+        CatenaryCalculator calculator = new CatenaryCalculator();
+        List<List<Vector3D>> curves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Vector3D start = new Vector3D(random.nextInt(2000) + 0.5, 64 + random.nextInt(40), random.nextInt(2000) + 0.5);
+            Vector3D end = start.add(new Vector3D(4 + random.nextInt(40), -random.nextInt(10), random.nextInt(30) - 15));
+            curves.add(calculator.calculatePoints(start, end, 0.1 + random.nextDouble(), 10 + random.nextInt(40)));
+        }
+        return curves;
+    }
+
+    /**
+     * 舊版 DisplayEntityManager.calculateAutoDensity 的做法，
+     * 每次規劃都配置 List、Vector3D 與 Quaternionf
+     */
+    private static List<LegacyPoint> legacyPlan(List<Vector3D> points, double baseSpacing) {
+        List<LegacyPoint> renderPoints = new ArrayList<>();
+        if (points.size() < 2) {
+            return renderPoints;
+        }
+
+        List<Double> segmentLengths = new ArrayList<>();
+        List<Vector3D> directions = new ArrayList<>();
+        for (int i = 1; i < points.size(); i++) {
+            Vector3D segment = points.get(i).subtract(points.get(i - 1));
+            segmentLengths.add(segment.length());
+            directions.add(segment.normalize());
+        }
+
+        List<Double> curvatures = new ArrayList<>();
+        for (int i = 0; i < directions.size() - 1; i++) {
+            double dot = Math.max(-1.0, Math.min(1.0, directions.get(i).dot(directions.get(i + 1))));
+            curvatures.add(Math.acos(dot) / segmentLengths.get(i + 1));
+        }
+        if (curvatures.isEmpty()) {
+            curvatures.add(0.0);
+            curvatures.add(0.0);
+        } else {
+            curvatures.add(0, curvatures.get(0));
+            curvatures.add(curvatures.get(curvatures.size() - 1));
+        }
+
+        double minCurvature = curvatures.stream().mapToDouble(Double::doubleValue).min().orElse(0);
+        double maxCurvature = curvatures.stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        double range = maxCurvature - minCurvature;
+        boolean uniform = range < 0.01 || Double.isNaN(range);
+
+        renderPoints.add(new LegacyPoint(points.get(0), legacyRotation(directions.get(0))));
+        Vector3D prevPoint = points.get(0);
+        for (int i = 0; i < directions.size(); i++) {
+            double spacing = baseSpacing;
+            if (!uniform) {
+                double normalized = (curvatures.get(i) - minCurvature) / (range + 0.0001);
+                spacing = baseSpacing * Math.max(0.3, 1 - 0.7 * normalized);
+            }
+            Vector3D direction = directions.get(i);
+            double segmentLength = segmentLengths.get(i);
+            for (double d = spacing; d < segmentLength; d += spacing) {
+                Vector3D position = prevPoint.add(direction.multiply(d));
+                Quaternionf rotation;
+                if (i < directions.size() - 1) {
+                    rotation = legacyRotation(legacyInterpolate(direction, directions.get(i + 1), d / segmentLength));
+                } else {
+                    rotation = legacyRotation(direction);
+                }
+                renderPoints.add(new LegacyPoint(position, rotation));
+            }
+            prevPoint = points.get(i + 1);
+        }
+
+        Vector3D last = points.get(points.size() - 1);
+        if (renderPoints.get(renderPoints.size() - 1).position.distance(last) > 0.01) {
+            renderPoints.add(new LegacyPoint(last, legacyRotation(directions.get(directions.size() - 1))));
+        }
+        return renderPoints;
+    }
+
+    private static Quaternionf legacyRotation(Vector3D direction) {
+        if (Math.abs(direction.getY()) > 0.99) {
+            float pitch = (float) (direction.getY() > 0 ? -Math.PI / 2 : Math.PI / 2);
+            return new Quaternionf().rotationY((float) (Math.PI / 2)).rotateX(pitch);
+        }
+        float yaw = (float) Math.atan2(direction.getX(), direction.getZ());
+        float pitch = (float) -Math.asin(direction.getY());
+        return new Quaternionf()
+            .rotateY((float) (Math.PI / 2))
+            .rotateY(yaw)
+            .rotateX(pitch)
+            .rotateZ((float) (Math.PI / 2));
+    }
+
+    private static Vector3D legacyInterpolate(Vector3D from, Vector3D to, double t) {
+        return from.multiply(1 - t).add(to.multiply(t)).normalize();
+    }
+
+    private static final class LegacyPoint {
+        private final Vector3D position;
+        private final Quaternionf rotation;
+
+        private LegacyPoint(Vector3D position, Quaternionf rotation) {
+            this.position = position;
+            this.rotation = rotation;
+        }
+    }
+
+    private static final class Result {
+        private final String name;
+        private final double bytesPerPlan;
+        private final double nanosPerPlan;
+
+        private Result(String name, double bytesPerPlan, double nanosPerPlan) {
+            this.name = name;
+            this.bytesPerPlan = bytesPerPlan;
+            this.nanosPerPlan = nanosPerPlan;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package dev.twme.catenary.render;
+
+import dev.twme.catenary.model.RenderTemplate;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 以 {@link RecordingDisplaySender} 驗證虛擬顯示的可見範圍與封包順序
+ */
+class VirtualRenderSinkTest {
+
+    private static final int VIEW_DISTANCE = 32;
+
+    private final World world = proxy(World.class, (name, args) -> "getName".equals(name) ? "world" : null);
+    private final UUID playerId = UUID.randomUUID();
+    private final RenderTemplate template = new RenderTemplate(Material.CHAIN, false, 1f, null);
+    private Location playerLocation;
+    private ManualScheduler scheduler;
+    private RecordingDisplaySender sender;
+    private VirtualRenderSink sink;
+
+    @BeforeEach
+    void setUp() {
+        playerLocation = new Location(world, 0, 64, 0);
+        Player player = proxy(Player.class, (name, args) -> switch (name) {
+            case "getUniqueId" -> playerId;
+            case "isOnline" -> true;
+            case "getLocation" -> playerLocation;
+            default -> null;
+        });
+        Server server = proxy(Server.class, (name, args) -> switch (name) {
+            case "getWorld" -> "world".equals(args[0]) ? world : null;
+            case "getOnlinePlayers" -> List.of(player);
+            case "getPlayer" -> playerId.equals(args[0]) ? player : null;
+            default -> null;
+        });
+        scheduler = new ManualScheduler();
+        sender = new RecordingDisplaySender();
+        sink = new VirtualRenderSink(server, scheduler, () -> VIEW_DISTANCE, 10, sender);
+    }
+
+    @Test
+    void flushSendsOnlyDisplaysWithinViewDistance() {
+        VirtualDisplay near = spawn(5, 5, null);
+        spawn(500, 500, null);
+
+        sink.flush();
+
+        assertEquals(Set.of(near.getEntityId()), sender.getVisible(playerId));
+        assertEquals(List.of("spawn " + near.getEntityId()), sender.getPackets());
+    }
+
+    @Test
+    void flushWithoutNewDisplaysSendsNothing() {
+        spawn(5, 5, null);
+        sink.flush();
+        int sent = sender.getPackets().size();
+
+        sink.flush();
+
+        assertEquals(sent, sender.getPackets().size());
+    }
+
+    @Test
+    void leavingViewDistanceDestroysDisplays() {
+        VirtualDisplay near = spawn(5, 5, null);
+        sink.flush();
+
+        playerLocation = new Location(world, 1000, 64, 1000);
+        scheduler.tick();
+
+        assertTrue(sender.getVisible(playerId).isEmpty());
+        assertEquals(List.of("spawn " + near.getEntityId(), "destroy [" + near.getEntityId() + "]"), sender.getPackets());
+    }
+
+    @Test
+    void enteringViewDistanceSpawnsOnRefresh() {
+        VirtualDisplay far = spawn(500, 500, null);
+        sink.flush();
+        assertTrue(sender.getVisible(playerId).isEmpty());
+
+        playerLocation = new Location(world, 490, 64, 490);
+        scheduler.tick();
+
+        assertEquals(Set.of(far.getEntityId()), sender.getVisible(playerId));
+    }
+
+    @Test
+    void removeDestroysForViewersOnly() {
+        VirtualDisplay near = spawn(5, 5, null);
+        VirtualDisplay far = spawn(500, 500, null);
+        sink.flush();
+
+        sink.remove(far);
+        sink.remove(near);
+
+        assertEquals(List.of("spawn " + near.getEntityId(), "destroy [" + near.getEntityId() + "]"), sender.getPackets());
+        assertTrue(!near.isValid() && !far.isValid());
+    }
+
+    @Test
+    void movingAnAnchorUpdatesItsPassengersOnly() {
+        VirtualDisplay anchor = (VirtualDisplay) sink.spawnAnchor("world", 4, 64, 4, UUID.randomUUID());
+        VirtualDisplay first = spawn(4, 4, anchor);
+        VirtualDisplay second = spawn(6, 4, anchor);
+        sink.flush();
+
+        sink.move(anchor, 0, 2, 0, 10);
+
+        // 錨點不會發送給客戶端；同一批生成的順序不固定，移動時依掛載順序更新
+        List<String> packets = sender.getPackets();
+        assertEquals(Set.of("spawn " + first.getEntityId(), "spawn " + second.getEntityId()), Set.copyOf(packets.subList(0, 2)));
+        assertEquals(List.of(
+            "update " + first.getEntityId() + " 10",
+            "update " + second.getEntityId() + " 10"
+        ), packets.subList(2, packets.size()));
+        assertEquals(66, first.getY(), 1e-9);
+        assertEquals(66, second.getY(), 1e-9);
+    }
+
+    @Test
+    void closeDestroysEverythingVisible() {
+        VirtualDisplay near = spawn(5, 5, null);
+        sink.flush();
+
+        sink.close();
+
+        assertTrue(sender.getVisible(playerId).isEmpty());
+        assertEquals(1, sender.getDestroyPackets());
+        assertEquals("destroy [" + near.getEntityId() + "]", sender.getPackets().get(1));
+    }
+
+    private VirtualDisplay spawn(double x, double z, VirtualDisplay anchor) {
+        return (VirtualDisplay) sink.spawnBlock("world", x, 64, z, template, UUID.randomUUID(),
+            new Quaternionf(), new Vector3f(), anchor);
+    }
+
+    @FunctionalInterface
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    /**
+     * 以方法名稱回應的介面替身，未處理的方法回傳 null 或基本型別的預設值
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                case "toString":
+                    return type.getSimpleName();
+                default:
+                    Object result = answer.answer(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return result;
+            }
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Material;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 驗證已寫入內容的比較：讀取後未變更的結構不會被重寫
+ */
+class PersistedStructuresTest {
+
+    private RecordingStore store;
+    private PersistedStructures persisted;
+
+    @BeforeEach
+    void setUp() {
+        store = new RecordingStore();
+        for (int i = 0; i < 3; i++) {
+            store.snapshots.add(snapshot(UUID.randomUUID(), "結構-" + i));
+        }
+        persisted = new PersistedStructures();
+    }
+
+    @Test
+    void loadThenSaveWritesNothing() throws IOException {
+        persisted.reset(store.load());
+
+        // 載入時由快照建立的結構，其 snapshot() 會回傳內容相同的新物件
+        assertEquals(0, persisted.queueUnsaved(copies(store.snapshots)));
+        assertEquals(0, persisted.write(store));
+        assertTrue(store.changes.isEmpty());
+    }
+
+    @Test
+    void changedStructureIsWrittenOnce() throws IOException {
+        persisted.reset(store.load());
+        List<StructureSnapshot> current = copies(store.snapshots);
+        StructureSnapshot renamed = rename(current.get(1), "新名稱");
+        current.set(1, renamed);
+
+        assertEquals(1, persisted.queueUnsaved(current));
+        assertEquals(1, persisted.write(store));
+        assertEquals(Map.of(renamed.getId(), Optional.of(renamed)), store.changes.get(0));
+
+        assertEquals(0, persisted.queueUnsaved(copies(current)));
+        assertEquals(0, persisted.write(store));
+        assertEquals(1, store.changes.size());
+    }
+
+    @Test
+    void pendingChangeIsNotReplacedBySave() throws IOException {
+        persisted.reset(store.load());
+        UUID removed = store.snapshots.get(0).getId();
+        persisted.change(removed, Optional.empty());
+
+        // 尚未寫入的移除不會被儲存時的快照蓋掉
+        assertEquals(0, persisted.queueUnsaved(List.of(rename(store.snapshots.get(0), "其他"))));
+        assertEquals(1, persisted.write(store));
+        assertEquals(Optional.empty(), store.changes.get(0).get(removed));
+        assertEquals(2, persisted.size());
+        assertFalse(persisted.getPending().containsKey(removed));
+    }
+
+    private static StructureSnapshot snapshot(UUID id, String name) {
+        return new StructureSnapshot(id, new UUID(0, 1), name, "world",
+            new Vector3D(10.25, 64, -3.5), new Vector3D(20, 60, 4),
+            1.2, 20, 0.5, Material.CHAIN, false, 1f, 0f, 90f, 0f, true);
+    }
+
+    private static StructureSnapshot rename(StructureSnapshot snapshot, String name) {
+        return new StructureSnapshot(snapshot.getId(), snapshot.getOwnerId(), name, snapshot.getWorldName(),
+            snapshot.getStart(), snapshot.getEnd(), snapshot.getSlack(), snapshot.getSegments(), snapshot.getSpacing(),
+            snapshot.getMaterial(), snapshot.isBlock(), snapshot.getScale(),
+            snapshot.getRotationX(), snapshot.getRotationY(), snapshot.getRotationZ(), snapshot.isVisible());
+    }
+
+    private static List<StructureSnapshot> copies(List<StructureSnapshot> snapshots) {
+        List<StructureSnapshot> copies = new ArrayList<>();
+        for (StructureSnapshot snapshot : snapshots) {
+            Vector3D start = snapshot.getStart();
+            Vector3D end = snapshot.getEnd();
+            copies.add(new StructureSnapshot(snapshot.getId(), snapshot.getOwnerId(), snapshot.getName(),
+                snapshot.getWorldName(),
+                new Vector3D(start.getX(), start.getY(), start.getZ()), new Vector3D(end.getX(), end.getY(), end.getZ()),
+                snapshot.getSlack(), snapshot.getSegments(), snapshot.getSpacing(),
+                snapshot.getMaterial(), snapshot.isBlock(), snapshot.getScale(),
+                snapshot.getRotationX(), snapshot.getRotationY(), snapshot.getRotationZ(), snapshot.isVisible()));
+        }
+        return copies;
+    }
+
+    /**
+     * 記錄每次寫入的變更
+     */
+    private static final class RecordingStore implements StructureStore {
+        private final List<StructureSnapshot> snapshots = new ArrayList<>();
+        private final List<Map<UUID, Optional<StructureSnapshot>>> changes = new ArrayList<>();
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public List<StructureSnapshot> load() {
+            return new ArrayList<>(snapshots);
+        }
+
+        @Override
+        public void save(Collection<StructureSnapshot> snapshots) {
+            throw new AssertionError("full rewrite");
+        }
+
+        @Override
+        public void saveChanges(Map<UUID, Optional<StructureSnapshot>> changes, Collection<StructureSnapshot> snapshots) {
+            this.changes.add(Map.copyOf(changes));
+        }
+
+        @Override
+        public boolean isIncremental() {
+            return true;
+        }
+
+        @Override
+        public String describe() {
+            return "recording";
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Material;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 驗證區域儲存在舊區域沒有快取時，跨區域移動與刪除會從舊區域移除
+ */
+class RegionStructureStoreTest {
+
+    private static final UUID OWNER = new UUID(0, 1);
+
+    private Path directory;
+    private File root;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("catenary-regions");
+        root = directory.resolve("regions").toFile();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void moveAcrossRegionsRemovesTheOldCopy() throws IOException {
+        StructureSnapshot original = snapshot(UUID.randomUUID(), 10);
+        StructureSnapshot other = snapshot(UUID.randomUUID(), 20);
+        new RegionStructureStore(root, false).saveChanges(changes(original, other), List.of());
+
+        // 新的實例沒有任何區域的快取，如同重新啟動後
+        StructureSnapshot moved = snapshot(original.getId(), 2000);
+        new RegionStructureStore(root, false).saveChanges(changes(moved), List.of());
+
+        RegionStructureStore reopened = new RegionStructureStore(root, false);
+        List<StructureSnapshot> stored = reopened.load();
+        assertEquals(2, stored.size());
+        assertEquals(1, stored.stream().filter(snapshot -> snapshot.getId().equals(original.getId())).count());
+        assertEquals(RegionKey.of(moved), RegionKey.of(reopened.findById(original.getId())));
+        assertEquals(2, reopened.findByOwner(OWNER).size());
+        assertEquals(Set.of(original.getId(), other.getId()), reopened.findIdsByOwner(OWNER));
+    }
+
+    @Test
+    void deleteFromUncachedRegion() throws IOException {
+        StructureSnapshot removed = snapshot(UUID.randomUUID(), 10);
+        StructureSnapshot kept = snapshot(UUID.randomUUID(), 3000);
+        new RegionStructureStore(root, false).saveChanges(changes(removed, kept), List.of());
+
+        new RegionStructureStore(root, false).saveChanges(Map.of(removed.getId(), Optional.empty()), List.of());
+
+        RegionStructureStore reopened = new RegionStructureStore(root, false);
+        assertEquals(List.of(kept.getId()), reopened.load().stream().map(StructureSnapshot::getId).toList());
+        assertNull(reopened.findById(removed.getId()));
+        assertEquals(Set.of(kept.getId()), reopened.findIdsByOwner(OWNER));
+    }
+
+    @Test
+    void buildsTheIndexForShardsWrittenWithoutOne() throws IOException {
+        StructureSnapshot snapshot = snapshot(UUID.randomUUID(), 10);
+        new RegionStructureStore(root, false).saveChanges(changes(snapshot), List.of());
+        deleteTree(new File(root, ".index"));
+
+        RegionStructureStore reopened = new RegionStructureStore(root, false);
+        assertEquals(Set.of(snapshot.getId()), reopened.findIdsByOwner(OWNER));
+        assertTrue(new File(root, ".index").isDirectory());
+    }
+
+    private static Map<UUID, Optional<StructureSnapshot>> changes(StructureSnapshot... snapshots) {
+        Map<UUID, Optional<StructureSnapshot>> changes = new LinkedHashMap<>();
+        for (StructureSnapshot snapshot : snapshots) {
+            changes.put(snapshot.getId(), Optional.of(snapshot));
+        }
+        return changes;
+    }
+
+    private static StructureSnapshot snapshot(UUID id, double x) {
+        return new StructureSnapshot(id, OWNER, "結構", "world",
+            new Vector3D(x, 64, 5), new Vector3D(x + 8, 60, 9),
+            1.0, 20, 0.5, Material.CHAIN, false, 1f, 0f, 0f, 0f, true);
+    }
+
+    private static void deleteTree(File file) throws IOException {
+        try (Stream<Path> files = Files.walk(file.toPath())) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
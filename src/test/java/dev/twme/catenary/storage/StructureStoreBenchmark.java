@@ -0,0 +1,172 @@
+package dev.twme.catenary.storage;
+
+import dev.twme.catenary.math.Vector3D;
+import dev.twme.catenary.model.StructureSnapshot;
+import org.bukkit.Material;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 比較二進位與 YAML 儲存在 10 萬筆結構下的寫入、讀取時間與檔案大小
+ * 執行: mvn test -Dtest=StructureStoreBenchmark -Dcatenary.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "catenary.benchmark", matches = "true")
+class StructureStoreBenchmark {
+
+    private static final int STRUCTURES = 100_000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final double COORDINATE_TOLERANCE = 1.0 / 4096;
+
+    private Path directory;
+    private List<StructureSnapshot> snapshots;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("catenary-benchmark");
+        snapshots = generate(STRUCTURES);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void binaryVersusYaml() throws IOException {
+        Result yaml = measure("yaml", new YamlStructureStore(directory.resolve("structures.yml").toFile(),
+            Logger.getLogger("StructureStoreBenchmark")), directory.resolve("structures.yml").toFile());
+        Result binary = measure("binary", new BinaryStructureStore(directory.resolve("structures.dat").toFile(), false),
+            directory.resolve("structures.dat").toFile());
+        Result compressed = measure("binary+gzip", new BinaryStructureStore(directory.resolve("structures.dat.gz").toFile(), true),
+            directory.resolve("structures.dat.gz").toFile());
+
+        System.out.printf("%d structures%n%-12s %10s %10s %12s%n", STRUCTURES, "store", "save ms", "load ms", "bytes");
+        for (Result result : List.of(yaml, binary, compressed)) {
+            System.out.printf("%-12s %10.1f %10.1f %12d%n", result.name, result.saveMillis, result.loadMillis, result.bytes);
+        }
+
+        assertTrue(binary.loadMillis < yaml.loadMillis, "binary load should be faster than YAML");
+        assertTrue(binary.bytes < yaml.bytes, "binary file should be smaller than YAML");
+    }
+
+    /**
+     * 預熱後取多次寫入與讀取的中位數，並確認讀回的內容與寫入一致
+     */
+    private Result measure(String name, StructureStore store, File file) throws IOException {
+        double[] saves = new double[MEASURED_ROUNDS];
+        double[] loads = new double[MEASURED_ROUNDS];
+        List<StructureSnapshot> loaded = null;
+        for (int round = -WARMUP_ROUNDS; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            store.save(snapshots);
+            long saved = System.nanoTime();
+            loaded = store.load();
+            long end = System.nanoTime();
+            if (round >= 0) {
+                saves[round] = (saved - start) / 1e6;
+                loads[round] = (end - saved) / 1e6;
+            }
+        }
+        verify(loaded);
+        return new Result(name, median(saves), median(loads), file.length());
+    }
+
+    private void verify(List<StructureSnapshot> loaded) {
+        assertEquals(snapshots.size(), loaded.size());
+        for (int i = 0; i < snapshots.size(); i += 997) {
+            StructureSnapshot expected = snapshots.get(i);
+            StructureSnapshot actual = loaded.stream()
+                .filter(snapshot -> snapshot.getId().equals(expected.getId()))
+                .findFirst()
+                .orElseThrow();
+            assertEquals(expected.getName(), actual.getName());
+            // 二進位儲存將座標量化為 1/4096 方塊
+            assertEquals(expected.getStart().getX(), actual.getStart().getX(), COORDINATE_TOLERANCE);
+            assertEquals(expected.getEnd().getZ(), actual.getEnd().getZ(), COORDINATE_TOLERANCE);
+            assertEquals(expected.getSlack(), actual.getSlack(), 0);
+            assertEquals(expected.isVisible(), actual.isVisible());
+        }
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * 產生分布在多個世界、擁有者與材質的結構，座標帶有小數以反映實際的資料
+     */
+    private static List<StructureSnapshot> generate(int count) {
+        Random random = new Random(42);
+        List<UUID> owners = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            owners.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        String[] worlds = {"world", "world_nether", "world_the_end"};
+        Material[] materials = {Material.CHAIN, Material.BLACK_WOOL, Material.LANTERN};
+
+        List<StructureSnapshot> snapshots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextInt(60_000) - 30_000 + random.nextDouble();
+            double y = 60 + random.nextInt(100) + random.nextDouble();
+            double z = random.nextInt(60_000) - 30_000 + random.nextDouble();
+            snapshots.add(new StructureSnapshot(
+                new UUID(random.nextLong(), random.nextLong()),
+                owners.get(random.nextInt(owners.size())),
+                "懸掛結構-" + i,
+                worlds[i % worlds.length],
+                new Vector3D(x, y, z),
+                new Vector3D(x + random.nextInt(30), y - random.nextInt(5), z + random.nextInt(30)),
+                0.1 + random.nextDouble(),
+                10 + random.nextInt(40),
+                0.5,
+                materials[i % materials.length],
+                i % 2 == 0,
+                1f,
+                0f,
+                random.nextInt(4) * 90f,
+                0f,
+                i % 10 != 0
+            ));
+        }
+        return snapshots;
+    }
+
+    private static final class Result {
+        private final String name;
+        private final double saveMillis;
+        private final double loadMillis;
+        private final long bytes;
+
+        private Result(String name, double saveMillis, double loadMillis, long bytes) {
+            this.name = name;
+            this.saveMillis = saveMillis;
+            this.loadMillis = loadMillis;
+            this.bytes = bytes;
+        }
+    }
+}